@@ -0,0 +1,99 @@
+/**
+ * LatencyRecorder.java
+ *
+ * Per-client latency and status recording.
+ */
+package com.okta.scim.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Records latencies (microseconds) and outcomes per operation. Each client thread owns
+ * one recorder, so recording takes no locks; recorders are merged for the report.
+ */
+final class LatencyRecorder {
+
+    /** Status code recorded for requests that failed without a response (I/O error, timeout). */
+    static final int NO_RESPONSE = 0;
+
+    private final Map<Operation, long[]> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Integer> counts = new EnumMap<>(Operation.class);
+    private final Map<Operation, Integer> errors = new EnumMap<>(Operation.class);
+    private final Map<Integer, Integer> statuses = new TreeMap<>();
+
+    void record(Operation op, long micros, int status) {
+        append(op, micros);
+        statuses.merge(status, 1, Integer::sum);
+        if (status < 200 || status >= 300)
+            errors.merge(op, 1, Integer::sum);
+    }
+
+    void mergeFrom(LatencyRecorder other) {
+        other.counts.forEach((op, n) -> {
+            long[] theirs = other.latencies.get(op);
+            for (int i = 0; i < n; i++)
+                append(op, theirs[i]);
+        });
+        other.statuses.forEach((status, n) -> statuses.merge(status, n, Integer::sum));
+        other.errors.forEach((op, n) -> errors.merge(op, n, Integer::sum));
+    }
+
+    private void append(Operation op, long micros) {
+        int n = counts.getOrDefault(op, 0);
+        long[] values = latencies.computeIfAbsent(op, k -> new long[1024]);
+        if (n == values.length) {
+            values = Arrays.copyOf(values, n * 2);
+            latencies.put(op, values);
+        }
+        values[n] = micros;
+        counts.put(op, n + 1);
+    }
+
+    /**
+     * Prints one line per operation and a total.
+     *
+     * @param seconds measured wall-clock seconds
+     */
+    void print(double seconds) {
+        String header = String.format("%-32s %10s %8s %10s %9s %9s %9s %9s %9s",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        System.out.println(header);
+        System.out.println("-".repeat(header.length()));
+        long[] all = new long[counts.values().stream().mapToInt(Integer::intValue).sum()];
+        int offset = 0;
+        for (Operation op : Operation.values()) {
+            Integer n = counts.get(op);
+            if (n == null)
+                continue;
+            long[] sorted = Arrays.copyOf(latencies.get(op), n);
+            System.arraycopy(sorted, 0, all, offset, n);
+            offset += n;
+            Arrays.sort(sorted);
+            printRow(op.label(), sorted, errors.getOrDefault(op, 0), seconds);
+        }
+        Arrays.sort(all);
+        System.out.println("-".repeat(header.length()));
+        printRow("total", all, errors.values().stream().mapToInt(Integer::intValue).sum(), seconds);
+        System.out.println();
+        StringBuilder codes = new StringBuilder("status codes:");
+        statuses.forEach((status, n) -> codes.append(' ')
+                .append(status == NO_RESPONSE ? "no-response" : String.valueOf(status)).append('=').append(n));
+        System.out.println(codes);
+    }
+
+    private static void printRow(String label, long[] sorted, int errors, double seconds) {
+        System.out.printf("%-32s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", label, sorted.length, errors,
+                sorted.length / seconds, percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                percentile(sorted, 99.9), sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1000.0);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0)
+            return 0;
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1000.0;
+    }
+}
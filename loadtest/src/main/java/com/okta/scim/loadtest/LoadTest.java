@@ -0,0 +1,160 @@
+/**
+ * LoadTest.java
+ *
+ * Entry point of the load generator.
+ */
+package com.okta.scim.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replays a weighted mix of Okta provisioning calls against a running server and reports
+ * throughput, latency percentiles and errors per operation.
+ * <p>
+ * The run has three phases: seeding {@code --users} users through {@code /scim/v2/Bulk},
+ * a warm-up, and the measured period. Each of the {@code --concurrency} clients keeps
+ * exactly one request in flight (closed loop), like Okta's provisioning workers.
+ * Start the server without MySQL using the {@code embedded} Spring profile.
+ */
+public final class LoadTest {
+
+    private static final Pattern BULK_RESULT = Pattern.compile(
+            "\"location\":\"[^\"]*/Users/(\\d+)\",\"method\":\"POST\",\"bulkId\":\"u(\\d+)\"");
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && (args[0].equals("--help") || args[0].equals("-h"))) {
+            System.out.print(LoadTestConfig.USAGE);
+            return;
+        }
+        LoadTestConfig config;
+        try {
+            config = LoadTestConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestConfig.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(config.timeout()))
+                .build();
+        OktaTraffic traffic = new OktaTraffic(config);
+        ExecutorService clients = Executors.newFixedThreadPool(config.concurrency());
+        try {
+            seed(config, client, traffic, clients);
+            run(config, client, traffic, clients);
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static void seed(LoadTestConfig config, HttpClient client, OktaTraffic traffic, ExecutorService clients)
+            throws Exception {
+        if (config.users() == 0)
+            return;
+        System.out.printf("Seeding %d users via %s/scim/v2/Bulk ...%n", config.users(), config.baseUrl());
+        long start = System.nanoTime();
+        long[] scimIds = new long[config.users()];
+        List<Future<?>> batches = new ArrayList<>();
+        for (int from = 0; from < config.users(); from += config.seedBatch()) {
+            int lo = from;
+            int hi = Math.min(from + config.seedBatch(), config.users());
+            batches.add(clients.submit(() -> {
+                HttpResponse<String> response = client.send(traffic.seedBatch(lo, hi),
+                        HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() != 200)
+                    throw new IllegalStateException("Seeding failed with HTTP " + response.statusCode() + ": "
+                            + response.body());
+                Matcher m = BULK_RESULT.matcher(response.body());
+                int seen = 0;
+                while (m.find()) {
+                    scimIds[Integer.parseInt(m.group(2))] = Long.parseLong(m.group(1));
+                    seen++;
+                }
+                if (seen != hi - lo)
+                    throw new IllegalStateException("Seeding batch " + lo + ".." + hi + " created only " + seen
+                            + " users: " + response.body());
+                return null;
+            }));
+        }
+        for (Future<?> batch : batches)
+            batch.get();
+        traffic.setScimIds(scimIds);
+        System.out.printf("Seeded %d users in %.1f s%n%n", config.users(), (System.nanoTime() - start) / 1e9);
+    }
+
+    private static void run(LoadTestConfig config, HttpClient client, OktaTraffic traffic, ExecutorService clients)
+            throws Exception {
+        Operation[] ops = config.mix().keySet().toArray(new Operation[0]);
+        int[] cumulative = new int[ops.length];
+        int total = 0;
+        for (int i = 0; i < ops.length; i++) {
+            total += config.mix().get(ops[i]);
+            cumulative[i] = total;
+        }
+        int totalWeight = total;
+
+        System.out.printf("Running %s with %d clients: %d s warm-up, %d s measured%n", describe(config.mix()),
+                config.concurrency(), config.warmup(), config.duration());
+        long measureFrom = System.nanoTime() + config.warmup() * 1_000_000_000L;
+        long measureTo = measureFrom + config.duration() * 1_000_000_000L;
+
+        List<Future<LatencyRecorder>> results = new ArrayList<>();
+        for (int c = 0; c < config.concurrency(); c++) {
+            results.add(clients.submit(() -> {
+                LatencyRecorder recorder = new LatencyRecorder();
+                long now;
+                while ((now = System.nanoTime()) < measureTo) {
+                    int pick = ThreadLocalRandom.current().nextInt(totalWeight);
+                    int i = 0;
+                    while (cumulative[i] <= pick)
+                        i++;
+                    Operation op = ops[i];
+                    HttpRequest request = traffic.next(op);
+                    int status;
+                    long start = System.nanoTime();
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = LatencyRecorder.NO_RESPONSE;
+                    }
+                    long end = System.nanoTime();
+                    if (now >= measureFrom && end <= measureTo)
+                        recorder.record(op, (end - start) / 1_000, status);
+                }
+                return recorder;
+            }));
+        }
+
+        LatencyRecorder merged = new LatencyRecorder();
+        for (Future<LatencyRecorder> result : results)
+            merged.mergeFrom(result.get());
+        System.out.println();
+        merged.print(config.duration());
+    }
+
+    private static String describe(Map<Operation, Integer> mix) {
+        StringBuilder sb = new StringBuilder();
+        mix.forEach((op, weight) -> sb.append(sb.length() > 0 ? ", " : "").append(op.label()).append(" x")
+                .append(weight));
+        return "[" + sb + "]";
+    }
+}
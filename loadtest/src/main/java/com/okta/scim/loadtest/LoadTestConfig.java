@@ -0,0 +1,104 @@
+/**
+ * LoadTestConfig.java
+ *
+ * Command-line options of the load generator.
+ */
+package com.okta.scim.loadtest;
+
+import java.net.URI;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Options, given as {@code --name=value}.
+ *
+ * @param baseUrl     server base URL
+ * @param token       bearer token sent with every request
+ * @param users       number of users seeded (through /Bulk) before the run
+ * @param seedBatch   users per seeding Bulk request
+ * @param prefix      userName prefix of seeded users; reusing it re-seeds by reactivation
+ * @param concurrency number of concurrent clients (closed loop: one request in flight each)
+ * @param warmup      warm-up seconds, not included in the results
+ * @param duration    measured seconds
+ * @param timeout     per-request timeout in seconds
+ * @param mix         relative weight of each operation
+ */
+record LoadTestConfig(URI baseUrl, String token, int users, int seedBatch, String prefix, int concurrency,
+        int warmup, int duration, int timeout, Map<Operation, Integer> mix) {
+
+    static final String USAGE = """
+            Usage: java -jar oktascim-loadtest.jar [--name=value ...]
+              --url=http://localhost:8080   server base URL
+              --token=...                   bearer token (default: the example server's token)
+              --users=10000                 users to seed before the run
+              --seed-batch=500              users per seeding Bulk request (<= scim.bulk.max-operations)
+              --prefix=loadtest             userName prefix of seeded users
+              --concurrency=32              concurrent clients
+              --warmup=10                   warm-up seconds (not measured)
+              --duration=60                 measured seconds
+              --timeout=30                  request timeout in seconds
+              --mix=create:5,reactivate:10,filter:40,get:15,put:15,deactivate:15
+                                            relative operation weights
+            """;
+
+    private static final String DEFAULT_TOKEN = "00SvMqRNdFYjFRh6Cqm80A8lbDQxJdxfvZR8KGZa-J";
+    private static final String DEFAULT_MIX = "create:5,reactivate:10,filter:40,get:15,put:15,deactivate:15";
+
+    /**
+     * Parses command-line arguments.
+     *
+     * @param args {@code --name=value} pairs
+     * @return configuration
+     */
+    static LoadTestConfig parse(String[] args) {
+        Map<String, String> options = new java.util.HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Unrecognised argument " + arg);
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        LoadTestConfig config = new LoadTestConfig(
+                URI.create(stripSlash(options.getOrDefault("url", "http://localhost:8080"))),
+                options.getOrDefault("token", DEFAULT_TOKEN),
+                positive(options, "users", 10_000, true),
+                positive(options, "seed-batch", 500, false),
+                options.getOrDefault("prefix", "loadtest"),
+                positive(options, "concurrency", 32, false),
+                positive(options, "warmup", 10, true),
+                positive(options, "duration", 60, false),
+                positive(options, "timeout", 30, false),
+                parseMix(options.getOrDefault("mix", DEFAULT_MIX)));
+        if (config.users() == 0 && config.mix().keySet().stream().anyMatch(Operation::needsSeededUser))
+            throw new IllegalArgumentException("--users=0 only works with a mix of create operations");
+        return config;
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2)
+                throw new IllegalArgumentException("Invalid --mix entry " + entry);
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0)
+                weights.put(Operation.fromOption(parts[0].trim().toLowerCase(Locale.ROOT)), weight);
+        }
+        if (weights.isEmpty())
+            throw new IllegalArgumentException("--mix has no operation with a positive weight");
+        return weights;
+    }
+
+    private static int positive(Map<String, String> options, String name, int defaultValue, boolean zeroAllowed) {
+        String value = options.get(name);
+        int parsed = value != null ? Integer.parseInt(value) : defaultValue;
+        if (parsed < 0 || parsed == 0 && !zeroAllowed)
+            throw new IllegalArgumentException("--" + name + " must be " + (zeroAllowed ? ">= 0" : "> 0"));
+        return parsed;
+    }
+
+    private static String stripSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
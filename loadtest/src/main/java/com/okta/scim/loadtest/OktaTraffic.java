@@ -0,0 +1,120 @@
+/**
+ * OktaTraffic.java
+ *
+ * Builds the HTTP requests Okta sends while provisioning users.
+ */
+package com.okta.scim.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request bodies follow Okta's SCIM 2.0 provisioning payloads (profile push, existence
+ * check, deactivation PATCH). Seeded users are addressed by index; their SCIM IDs are
+ * learned from the seeding Bulk responses.
+ */
+final class OktaTraffic {
+
+    private static final String JSON = "application/scim+json";
+
+    private final LoadTestConfig config;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong created = new AtomicLong();
+    private long[] scimIds = new long[0];
+
+    OktaTraffic(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    void setScimIds(long[] scimIds) {
+        this.scimIds = scimIds;
+    }
+
+    String seededUserName(int index) {
+        return config.prefix() + "." + index + "@example.com";
+    }
+
+    /**
+     * A Bulk request creating (or reactivating) seeded users {@code from} to {@code to - 1}.
+     */
+    HttpRequest seedBatch(int from, int to) {
+        StringBuilder body = new StringBuilder(
+                "{\"schemas\":[\"urn:ietf:params:scim:api:messages:2.0:BulkRequest\"],\"Operations\":[");
+        for (int i = from; i < to; i++) {
+            if (i > from)
+                body.append(',');
+            body.append("{\"method\":\"POST\",\"path\":\"/Users\",\"bulkId\":\"u").append(i).append("\",\"data\":")
+                    .append(userJson(seededUserName(i), i, true)).append('}');
+        }
+        body.append("]}");
+        return request("/scim/v2/Bulk").POST(HttpRequest.BodyPublishers.ofString(body.toString())).build();
+    }
+
+    /**
+     * Builds a request for an operation against a random seeded user.
+     */
+    HttpRequest next(Operation op) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int index = scimIds.length > 0 ? random.nextInt(scimIds.length) : 0;
+        switch (op) {
+            case CREATE: {
+                String userName = config.prefix() + "." + runId + "." + created.incrementAndGet() + "@example.com";
+                return request("/scim/v2/Users").POST(body(userJson(userName, random.nextInt(1 << 20), false))).build();
+            }
+            case REACTIVATE:
+                return request("/scim/v2/Users").POST(body(userJson(seededUserName(index), index, true))).build();
+            case FILTER: {
+                String filter = "userName eq \"" + seededUserName(index) + "\"";
+                return request("/scim/v2/Users?filter=" + URLEncoder.encode(filter, StandardCharsets.UTF_8)
+                        .replace("+", "%20") + "&startIndex=1&count=100").GET().build();
+            }
+            case GET:
+                return request("/scim/v2/Users/" + scimIds[index]).GET().build();
+            case PUT:
+                return request("/scim/v2/Users/" + scimIds[index])
+                        .PUT(body(userJson(seededUserName(index), index + random.nextInt(3), true))).build();
+            case DEACTIVATE:
+                return request("/scim/v2/Users/" + scimIds[index]).method("PATCH", body("""
+                        {"schemas":["urn:ietf:params:scim:api:messages:2.0:PatchOp"],\
+                        "Operations":[{"op":"replace","value":{"active":false}}]}""")).build();
+            default:
+                throw new IllegalArgumentException(op.name());
+        }
+    }
+
+    /**
+     * Okta's user profile push. {@code variant} changes the family name, so PUTs alternate
+     * between a few profile versions instead of always writing identical data.
+     */
+    private static String userJson(String userName, int variant, boolean active) {
+        String given = "Given" + Math.abs(userName.hashCode() % 10_000);
+        String family = List.of("Rodriguez", "Nguyen", "Okafor").get(Math.floorMod(variant, 3));
+        return "{\"schemas\":[\"urn:ietf:params:scim:schemas:core:2.0:User\"],"
+                + "\"userName\":\"" + userName + "\","
+                + "\"name\":{\"givenName\":\"" + given + "\",\"familyName\":\"" + family + "\"},"
+                + "\"emails\":[{\"primary\":true,\"value\":\"" + userName + "\",\"type\":\"work\"}],"
+                + "\"displayName\":\"" + given + " " + family + "\","
+                + "\"locale\":\"en-US\","
+                + "\"externalId\":\"00u" + Integer.toHexString(userName.hashCode()) + "\","
+                + "\"groups\":[],"
+                + "\"active\":" + active + "}";
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(config.baseUrl() + path))
+                .timeout(Duration.ofSeconds(config.timeout()))
+                .header("Authorization", "Bearer " + config.token())
+                .header("Accept", JSON)
+                .header("Content-Type", JSON);
+    }
+
+    private static HttpRequest.BodyPublisher body(String json) {
+        return HttpRequest.BodyPublishers.ofString(json);
+    }
+}
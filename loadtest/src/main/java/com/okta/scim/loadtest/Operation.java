@@ -0,0 +1,51 @@
+/**
+ * Operation.java
+ *
+ * Request types replayed by the load generator.
+ */
+package com.okta.scim.loadtest;
+
+/**
+ * The calls Okta makes while provisioning, in the shape Okta sends them.
+ */
+enum Operation {
+
+    /** POST /Users for a user that does not exist yet. */
+    CREATE("create", "POST /Users (new)", false),
+    /** POST /Users for a seeded user, which reactivates it. */
+    REACTIVATE("reactivate", "POST /Users (existing)", true),
+    /** GET /Users?filter=userName eq "..." (Okta's existence check before a create). */
+    FILTER("filter", "GET /Users?filter", true),
+    /** GET /Users/{id}. */
+    GET("get", "GET /Users/{id}", true),
+    /** PUT /Users/{id} with the full profile. */
+    PUT("put", "PUT /Users/{id}", true),
+    /** PATCH /Users/{id} setting active=false. */
+    DEACTIVATE("deactivate", "PATCH /Users/{id} (deactivate)", true);
+
+    private final String option;
+    private final String label;
+    private final boolean needsSeededUser;
+
+    Operation(String option, String label, boolean needsSeededUser) {
+        this.option = option;
+        this.label = label;
+        this.needsSeededUser = needsSeededUser;
+    }
+
+    String label() {
+        return label;
+    }
+
+    boolean needsSeededUser() {
+        return needsSeededUser;
+    }
+
+    static Operation fromOption(String option) {
+        for (Operation op : values()) {
+            if (op.option.equals(option))
+                return op;
+        }
+        throw new IllegalArgumentException("Unknown operation '" + option + "' in --mix");
+    }
+}
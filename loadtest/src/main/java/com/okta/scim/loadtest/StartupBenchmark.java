@@ -0,0 +1,181 @@
+/**
+ * StartupBenchmark.java
+ *
+ * Measures server startup time and first-request latency.
+ */
+package com.okta.scim.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the server command given after {@code --} in a fresh JVM {@code --runs} times and
+ * reports, per run and as min / median / max:
+ * <ul>
+ *   <li>ready: from process start until {@code /actuator/health} answers 200,</li>
+ *   <li>first: the first Okta-style {@code GET /Users?filter=userName eq ...},</li>
+ *   <li>second: the same request again, as the warm reference.</li>
+ * </ul>
+ * Run it once per variant with the same database profile, e.g.
+ * <pre>
+ * java -cp loadtest/target/oktascim-loadtest.jar com.okta.scim.loadtest.StartupBenchmark -- \
+ *     java -jar target/oktascim-0.0.1-SNAPSHOT.jar --spring.profiles.active=embedded
+ * java -cp loadtest/target/oktascim-loadtest.jar com.okta.scim.loadtest.StartupBenchmark --dir=target/fast-start -- \
+ *     java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+ *     -jar oktascim-0.0.1-SNAPSHOT.jar --spring.profiles.active=embedded,fast-start
+ * </pre>
+ */
+public final class StartupBenchmark {
+
+    static final String USAGE = """
+            Usage: java -cp oktascim-loadtest.jar com.okta.scim.loadtest.StartupBenchmark [--name=value ...] -- command...
+              --runs=10                     server starts to measure
+              --url=http://localhost:8080   server base URL
+              --token=...                   bearer token (default: the example server's token)
+              --dir=.                       working directory of the server command
+              --timeout=120                 seconds a start may take
+            """;
+
+    private static final String DEFAULT_TOKEN = "00SvMqRNdFYjFRh6Cqm80A8lbDQxJdxfvZR8KGZa-J";
+    private static final String FILTER = "userName eq \"startup.benchmark@example.com\"";
+
+    private record Options(int runs, URI baseUrl, String token, File dir, int timeout, List<String> command) {
+    }
+
+    private record Run(long readyMillis, long firstMicros, long secondMicros) {
+    }
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        if (isUp(client, options))
+            throw new IllegalStateException("A server is already answering at " + options.baseUrl());
+
+        System.out.printf("Starting %s %d times%n%n", String.join(" ", options.command()), options.runs());
+        System.out.printf("%4s %10s %12s %12s%n", "run", "ready ms", "first ms", "second ms");
+        List<Run> runs = new ArrayList<>();
+        for (int i = 1; i <= options.runs(); i++) {
+            Run run = measure(client, options);
+            runs.add(run);
+            System.out.printf("%4d %10d %12.1f %12.1f%n", i, run.readyMillis(), run.firstMicros() / 1e3,
+                    run.secondMicros() / 1e3);
+        }
+        System.out.println();
+        System.out.printf("%-6s %10s %12s %12s%n", "", "ready ms", "first ms", "second ms");
+        printSummary("min", runs, 0);
+        printSummary("median", runs, runs.size() / 2);
+        printSummary("max", runs, runs.size() - 1);
+    }
+
+    private static Run measure(HttpClient client, Options options) throws Exception {
+        long start = System.nanoTime();
+        Process server = new ProcessBuilder(options.command())
+                .directory(options.dir())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            long deadline = start + TimeUnit.SECONDS.toNanos(options.timeout());
+            while (!isUp(client, options)) {
+                if (!server.isAlive())
+                    throw new IllegalStateException("Server exited with status " + server.exitValue());
+                if (System.nanoTime() > deadline)
+                    throw new IllegalStateException("Server not ready after " + options.timeout() + " s");
+                Thread.sleep(5);
+            }
+            long readyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long firstMicros = timeFilterRequest(client, options);
+            long secondMicros = timeFilterRequest(client, options);
+            return new Run(readyMillis, firstMicros, secondMicros);
+        } finally {
+            server.destroy();
+            if (!server.waitFor(30, TimeUnit.SECONDS)) {
+                server.destroyForcibly();
+                server.waitFor();
+            }
+        }
+    }
+
+    private static boolean isUp(HttpClient client, Options options) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(options.baseUrl().resolve("/actuator/health"))
+                .timeout(Duration.ofSeconds(1))
+                .GET()
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static long timeFilterRequest(HttpClient client, Options options) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(options.baseUrl().resolve(
+                        "/scim/v2/Users?filter=" + URLEncoder.encode(FILTER, StandardCharsets.UTF_8)))
+                .header("Authorization", "Bearer " + options.token())
+                .header("Accept", "application/scim+json")
+                .timeout(Duration.ofSeconds(options.timeout()))
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        if (response.statusCode() != 200)
+            throw new IllegalStateException("GET /Users answered HTTP " + response.statusCode());
+        return micros;
+    }
+
+    private static void printSummary(String label, List<Run> runs, int index) {
+        long[] ready = runs.stream().mapToLong(Run::readyMillis).sorted().toArray();
+        long[] first = runs.stream().mapToLong(Run::firstMicros).sorted().toArray();
+        long[] second = runs.stream().mapToLong(Run::secondMicros).sorted().toArray();
+        System.out.printf("%-6s %10d %12.1f %12.1f%n", label, ready[index], first[index] / 1e3, second[index] / 1e3);
+    }
+
+    private static Options parse(String[] args) {
+        int separator = Arrays.asList(args).indexOf("--");
+        if (separator < 0 || separator == args.length - 1)
+            throw new IllegalArgumentException("Missing server command after --");
+        Map<String, String> options = new HashMap<>();
+        for (String arg : Arrays.copyOfRange(args, 0, separator)) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("Unrecognised argument " + arg);
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        int runs = Integer.parseInt(options.getOrDefault("runs", "10"));
+        int timeout = Integer.parseInt(options.getOrDefault("timeout", "120"));
+        if (runs <= 0 || timeout <= 0)
+            throw new IllegalArgumentException("--runs and --timeout must be > 0");
+        return new Options(runs, URI.create(options.getOrDefault("url", "http://localhost:8080")),
+                options.getOrDefault("token", DEFAULT_TOKEN), new File(options.getOrDefault("dir", ".")),
+                timeout, List.of(Arrays.copyOfRange(args, separator + 1, args.length)));
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * BenchmarkFixtures.java
+ *
+ * Shared test data for the JMH benchmarks.
+ */
+package com.okta.scim.server.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okta.scim.server.example.entity.UserEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Payloads captured from Okta provisioning traffic (anonymised) and generated users.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * An ObjectMapper configured the way Spring Boot configures the application's.
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    /**
+     * Reads a JSON payload from {@code src/jmh/resources/payloads}.
+     */
+    static byte[] payload(String name) {
+        try (InputStream in = BenchmarkFixtures.class.getResourceAsStream("/payloads/" + name)) {
+            if (in == null)
+                throw new IllegalArgumentException("No payload " + name);
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static UserEntity user(long scimId) {
+        UserEntity user = new UserEntity();
+        user.setScimId(scimId);
+        user.setExternalId("00u" + Long.toString(scimId * 7919, 36) + "x7h8i9");
+        user.setUserName("user" + scimId + "@example.com");
+        user.setGivenName("Given" + scimId);
+        user.setFamilyName("Family" + scimId);
+        user.setEmail("user" + scimId + "@example.com");
+        user.setActive(scimId % 10 != 0);
+        user.setVersion(scimId % 5);
+        return user;
+    }
+
+    static List<UserEntity> users(int count) {
+        List<UserEntity> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++)
+            users.add(user(100_000L + i));
+        return users;
+    }
+
+    /**
+     * Discards everything written to it, so benchmarks measure serialisation only.
+     */
+    static final class NullOutputStream extends OutputStream {
+        long written;
+
+        @Override
+        public void write(int b) {
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            written += len;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * FilterBenchmark.java
+ *
+ * Measures SCIM filter handling on the list endpoint.
+ */
+package com.okta.scim.server.example.benchmark;
+
+import com.okta.scim.server.example.filter.Filter;
+import com.okta.scim.server.example.filter.FilterCache;
+import com.okta.scim.server.example.filter.FilterParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The filters Okta sends to {@code GET /Users}: a cold parse, a {@link FilterCache} hit
+ * (the steady state), and computing the metrics shape tag.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+
+    @Param({
+            "userName eq \"isabella.rodriguez@example.com\"",
+            "externalId eq \"00u1b2c3d4e5f6g7h8i9\"",
+            "emails[type eq \"work\" and value co \"@example.com\"] and active eq true"
+    })
+    public String filter;
+
+    private FilterCache cache;
+    private Filter parsed;
+
+    @Setup
+    public void setUp() {
+        cache = new FilterCache(1024, new SimpleMeterRegistry());
+        parsed = cache.get(filter);
+    }
+
+    @Benchmark
+    public Filter parse() {
+        return FilterParser.parse(filter);
+    }
+
+    @Benchmark
+    public Filter cachedLookup() {
+        return cache.get(filter);
+    }
+
+    @Benchmark
+    public String shape() {
+        return parsed.shape();
+    }
+}
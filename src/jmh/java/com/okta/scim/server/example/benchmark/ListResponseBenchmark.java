@@ -0,0 +1,71 @@
+/**
+ * ListResponseBenchmark.java
+ *
+ * Measures serialisation of SCIM ListResponses.
+ */
+package com.okta.scim.server.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okta.scim.server.example.entity.UserEntity;
+import com.okta.scim.server.example.repository.UserProjection;
+import com.okta.scim.server.example.serializer.ScimUserWriter;
+import com.okta.scim.server.example.service.UserService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A page of 1k or 10k users, written by the streaming {@link ScimUserWriter} used by
+ * {@code GET /Users} and, for comparison, built as maps and serialised in one go.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ListResponseBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int size;
+
+    private final UserService userService = new UserService();
+    private ObjectMapper objectMapper;
+    private ScimUserWriter writer;
+    private List<UserEntity> users;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        writer = new ScimUserWriter(objectMapper);
+        users = BenchmarkFixtures.users(size);
+    }
+
+    @Benchmark
+    public long streamingWriter() throws IOException {
+        BenchmarkFixtures.NullOutputStream out = new BenchmarkFixtures.NullOutputStream();
+        writer.writeListResponse(out, users.size(), 1, users.iterator(), UserProjection.ALL, null);
+        return out.written;
+    }
+
+    @Benchmark
+    public long mapsAndObjectMapper() throws IOException {
+        List<Map<String, Object>> resources = new ArrayList<>(users.size());
+        for (UserEntity user : users)
+            resources.add(userService.buildSCIMResponse(user));
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("schemas", List.of(ScimUserWriter.LIST_RESPONSE_SCHEMA));
+        response.put("totalResults", users.size());
+        response.put("startIndex", 1);
+        response.put("itemsPerPage", users.size());
+        response.put("Resources", resources);
+        BenchmarkFixtures.NullOutputStream out = new BenchmarkFixtures.NullOutputStream();
+        objectMapper.writeValue(out, response);
+        return out.written;
+    }
+}
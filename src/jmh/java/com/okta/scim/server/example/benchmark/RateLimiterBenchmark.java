@@ -0,0 +1,45 @@
+/**
+ * RateLimiterBenchmark.java
+ *
+ * Measures the per-request cost of the client rate limiter.
+ */
+package com.okta.scim.server.example.benchmark;
+
+import com.okta.scim.server.example.ratelimit.ClientRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ClientRateLimiter#acquire} under the limit, for one thread and for four threads
+ * sharing a client (all CASing the same bucket), which is the overhead every request pays.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private ClientRateLimiter limiter;
+
+    @Setup
+    public void setUp() {
+        ClientRateLimiter.Budget unlimited = new ClientRateLimiter.Budget(1e9, 1_000_000_000);
+        limiter = new ClientRateLimiter(unlimited, unlimited, new SimpleMeterRegistry());
+        limiter.acquire("okta", false, 1);
+    }
+
+    @Benchmark
+    public void acquire() {
+        limiter.acquire("okta", false, 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void acquireContended() {
+        limiter.acquire("okta", false, 1);
+    }
+}
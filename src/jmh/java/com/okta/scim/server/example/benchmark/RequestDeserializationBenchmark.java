@@ -0,0 +1,68 @@
+/**
+ * RequestDeserializationBenchmark.java
+ *
+ * Measures parsing of Okta request bodies.
+ */
+package com.okta.scim.server.example.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okta.scim.server.example.dto.UserDTO;
+import com.okta.scim.server.example.patch.PatchPlan;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserDTO} from Okta's create (POST) and replace (PUT) bodies, and PATCH bodies
+ * into a {@link PatchPlan}: the deactivation Okta sends in bulk and a profile update
+ * with a value-filter path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestDeserializationBenchmark {
+
+    private static final TypeReference<Map<String, Object>> MAP = new TypeReference<>() {
+    };
+
+    private ObjectMapper objectMapper;
+    private byte[] createUser;
+    private byte[] replaceUser;
+    private byte[] deactivatePatch;
+    private byte[] profilePatch;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        createUser = BenchmarkFixtures.payload("okta-create-user.json");
+        replaceUser = BenchmarkFixtures.payload("okta-replace-user.json");
+        deactivatePatch = BenchmarkFixtures.payload("okta-deactivate-patch.json");
+        profilePatch = BenchmarkFixtures.payload("okta-profile-patch.json");
+    }
+
+    @Benchmark
+    public UserDTO createUser() throws IOException {
+        return objectMapper.readValue(createUser, UserDTO.class);
+    }
+
+    @Benchmark
+    public UserDTO replaceUser() throws IOException {
+        return objectMapper.readValue(replaceUser, UserDTO.class);
+    }
+
+    @Benchmark
+    public PatchPlan deactivatePatch() throws IOException {
+        return PatchPlan.parse(objectMapper.readValue(deactivatePatch, MAP));
+    }
+
+    @Benchmark
+    public PatchPlan profilePatch() throws IOException {
+        return PatchPlan.parse(objectMapper.readValue(profilePatch, MAP));
+    }
+}
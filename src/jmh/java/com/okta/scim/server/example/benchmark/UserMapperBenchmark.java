@@ -0,0 +1,51 @@
+/**
+ * UserMapperBenchmark.java
+ *
+ * Measures DTO to entity mapping.
+ */
+package com.okta.scim.server.example.benchmark;
+
+import com.okta.scim.server.example.dto.UserDTO;
+import com.okta.scim.server.example.entity.UserEntity;
+import com.okta.scim.server.example.mapper.UserMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link UserMapper#toEntity} (POST) and {@link UserMapper#updateEntityFromDTO} (PUT)
+ * with DTOs deserialised from Okta payloads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMapperBenchmark {
+
+    private final UserMapper mapper = new UserMapper();
+    private UserDTO createDto;
+    private UserDTO replaceDto;
+    private UserEntity existing;
+
+    @Setup
+    public void setUp() throws IOException {
+        var objectMapper = BenchmarkFixtures.objectMapper();
+        createDto = objectMapper.readValue(BenchmarkFixtures.payload("okta-create-user.json"), UserDTO.class);
+        replaceDto = objectMapper.readValue(BenchmarkFixtures.payload("okta-replace-user.json"), UserDTO.class);
+        existing = BenchmarkFixtures.user(104_857L);
+    }
+
+    @Benchmark
+    public UserEntity toEntity() {
+        return mapper.toEntity(createDto);
+    }
+
+    @Benchmark
+    public UserEntity updateEntityFromDTO() {
+        mapper.updateEntityFromDTO(replaceDto, existing);
+        return existing;
+    }
+}
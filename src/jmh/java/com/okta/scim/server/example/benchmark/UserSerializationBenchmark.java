@@ -0,0 +1,50 @@
+/**
+ * UserSerializationBenchmark.java
+ *
+ * Measures rendering of single SCIM users.
+ */
+package com.okta.scim.server.example.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okta.scim.server.example.entity.UserEntity;
+import com.okta.scim.server.example.serializer.ScimUserWriter;
+import com.okta.scim.server.example.service.UserService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One user as returned by POST/PUT/PATCH ({@link UserService#buildSCIMResponse} then
+ * Jackson) and by GET on a response-cache miss ({@link ScimUserWriter#renderUser}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserSerializationBenchmark {
+
+    private final UserService userService = new UserService(); // buildSCIMResponse uses no collaborators
+    private ObjectMapper objectMapper;
+    private ScimUserWriter writer;
+    private UserEntity user;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        writer = new ScimUserWriter(objectMapper);
+        user = BenchmarkFixtures.user(104_857L);
+    }
+
+    @Benchmark
+    public byte[] buildSCIMResponseAndSerialize() throws IOException {
+        return objectMapper.writeValueAsBytes(userService.buildSCIMResponse(user));
+    }
+
+    @Benchmark
+    public byte[] streamingWriter() {
+        return writer.renderUser(user);
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * AuditEvent.java
+ *
+ * One provisioning event as handed from a request thread to the audit writer.
+ */
+package com.okta.scim.server.example.audit;
+
+/**
+ * Compact, immutable audit record. It only holds references captured on the request
+ * thread; formatting and PII redaction happen on the writer thread.
+ *
+ * @param timestamp  epoch milliseconds
+ * @param action     what happened, e.g. {@code user.create}
+ * @param status     HTTP status of the outcome
+ * @param scimId     affected user, if known
+ * @param userName   userName of the affected user, if known
+ * @param externalId Okta ID of the affected user, if known
+ * @param tenant     tenant the user belongs to
+ */
+public record AuditEvent(long timestamp, String action, int status, Long scimId, String userName, String externalId,
+        String tenant) {
+}
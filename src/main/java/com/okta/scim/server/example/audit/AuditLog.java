@@ -0,0 +1,239 @@
+/**
+ * AuditLog.java
+ *
+ * Asynchronous audit trail of SCIM provisioning requests.
+ */
+package com.okta.scim.server.example.audit;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.okta.scim.server.example.datasource.TenantContext;
+import com.okta.scim.server.example.entity.UserEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records who was provisioned how, without putting log I/O on the request path.
+ * <p>
+ * Request threads build a small {@link AuditEvent} and offer it to a bounded lock-free
+ * ring buffer; that is all they pay. A single daemon thread drains the buffer in batches,
+ * formats each event as one JSON line and appends it to a size-rotated file, flushing once
+ * per batch. When the buffer is full the event is dropped and counted
+ * ({@code scim.audit.dropped}) rather than slowing provisioning down.
+ * <p>
+ * Writes and reads are sampled separately ({@code scim.audit.write-sample-rate},
+ * {@code scim.audit.read-sample-rate}). With {@code scim.audit.redact-pii} the userName and
+ * externalId (often an email or employee ID) are replaced by a truncated SHA-256, which
+ * still correlates events for one user.
+ */
+@Component
+public class AuditLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+    private final boolean enabled;
+    private final double writeSampleRate;
+    private final double readSampleRate;
+    private final boolean redactPii;
+    private final int batchSize;
+    private final long idleNanos;
+    private final AuditRingBuffer<AuditEvent> buffer;
+    private final RollingAuditFile file;
+    private final Counter droppedOverflow;
+    private final Counter droppedIo;
+    private final Counter written;
+    private final Thread writer;
+    private volatile boolean running;
+
+    public AuditLog(@Value("${scim.audit.enabled:true}") boolean enabled,
+            @Value("${scim.audit.file:logs/scim-audit.log}") String fileName,
+            @Value("${scim.audit.max-file-size:10MB}") DataSize maxFileSize,
+            @Value("${scim.audit.max-history:5}") int maxHistory,
+            @Value("${scim.audit.buffer-size:8192}") int bufferSize,
+            @Value("${scim.audit.batch-size:512}") int batchSize,
+            @Value("${scim.audit.flush-interval:200ms}") Duration flushInterval,
+            @Value("${scim.audit.write-sample-rate:1.0}") double writeSampleRate,
+            @Value("${scim.audit.read-sample-rate:0.0}") double readSampleRate,
+            @Value("${scim.audit.redact-pii:true}") boolean redactPii,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.writeSampleRate = writeSampleRate;
+        this.readSampleRate = readSampleRate;
+        this.redactPii = redactPii;
+        this.batchSize = batchSize;
+        this.idleNanos = flushInterval.toNanos();
+        this.buffer = new AuditRingBuffer<>(bufferSize);
+        this.file = new RollingAuditFile(Path.of(fileName), maxFileSize.toBytes(), maxHistory);
+        this.droppedOverflow = dropped(meterRegistry, "overflow");
+        this.droppedIo = dropped(meterRegistry, "io");
+        this.written = Counter.builder("scim.audit.written")
+                .description("Audit events written to the audit file")
+                .register(meterRegistry);
+        Gauge.builder("scim.audit.queued", buffer, AuditRingBuffer::size)
+                .description("Audit events waiting for the writer")
+                .register(meterRegistry);
+
+        this.writer = new Thread(this::drainLoop, "scim-audit-writer");
+        this.writer.setDaemon(true);
+        if (enabled) {
+            running = true;
+            writer.start();
+        }
+    }
+
+    private static Counter dropped(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("scim.audit.dropped")
+                .description("Audit events lost because the buffer was full or the file could not be written")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Audits a state-changing operation on a user.
+     *
+     * @param action what happened, e.g. {@code user.create}
+     * @param user   affected user
+     * @param status HTTP status returned
+     */
+    public void write(String action, UserEntity user, int status) {
+        if (sampled(writeSampleRate))
+            offer(action, user, status);
+    }
+
+    /**
+     * Audits a read of a user.
+     *
+     * @param action what happened, e.g. {@code user.read}
+     * @param user   user read
+     * @param status HTTP status returned
+     */
+    public void read(String action, UserEntity user, int status) {
+        if (sampled(readSampleRate))
+            offer(action, user, status);
+    }
+
+    /**
+     * Audits a state-changing operation where only the SCIM ID is known, e.g. a bulk
+     * operation result.
+     *
+     * @param action what happened
+     * @param scimId affected user, or null
+     * @param status HTTP status returned
+     */
+    public void write(String action, Long scimId, int status) {
+        if (sampled(writeSampleRate))
+            offer(new AuditEvent(System.currentTimeMillis(), action, status, scimId, null, null,
+                    TenantContext.current()));
+    }
+
+    private boolean sampled(double rate) {
+        return enabled && (rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate));
+    }
+
+    private void offer(String action, UserEntity user, int status) {
+        offer(new AuditEvent(System.currentTimeMillis(), action, status,
+                user.getScimId(), user.getUserName(), user.getExternalId(), TenantContext.current()));
+    }
+
+    private void offer(AuditEvent event) {
+        if (!buffer.offer(event))
+            droppedOverflow.increment();
+    }
+
+    private void drainLoop() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        StringBuilder line = new StringBuilder(256);
+        while (running || buffer.size() > 0) {
+            if (buffer.drainTo(batch, batchSize) == 0) {
+                LockSupport.parkNanos(idleNanos);
+                continue;
+            }
+            try {
+                for (AuditEvent event : batch) {
+                    line.setLength(0);
+                    format(event, line);
+                    file.write(line.toString().getBytes(StandardCharsets.UTF_8));
+                }
+                file.flush();
+                written.increment(batch.size());
+            } catch (IOException e) {
+                droppedIo.increment(batch.size());
+                logger.warn("Could not write {} audit events: {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            logger.warn("Could not close the audit file: {}", e.getMessage());
+        }
+    }
+
+    private void format(AuditEvent event, StringBuilder line) {
+        line.append("{\"ts\":\"").append(Instant.ofEpochMilli(event.timestamp()))
+                .append("\",\"action\":");
+        appendString(line, event.action());
+        line.append(",\"status\":").append(event.status());
+        if (!TenantContext.DEFAULT.equals(event.tenant())) {
+            line.append(",\"tenant\":");
+            appendString(line, event.tenant());
+        }
+        if (event.scimId() != null)
+            line.append(",\"id\":\"").append(event.scimId()).append('"');
+        if (event.externalId() != null) {
+            line.append(",\"externalId\":");
+            appendString(line, redactPii ? redact(event.externalId()) : event.externalId());
+        }
+        if (event.userName() != null) {
+            line.append(",\"userName\":");
+            appendString(line, redactPii ? redact(event.userName()) : event.userName());
+        }
+        line.append("}\n");
+    }
+
+    private static void appendString(StringBuilder line, String value) {
+        line.append('"');
+        JsonStringEncoder.getInstance().quoteAsString(value, line);
+        line.append('"');
+    }
+
+    private static String redact(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return "sha256:" + HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stops accepting work and lets the writer drain what is queued.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!running)
+            return;
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(5_000);
+    }
+}
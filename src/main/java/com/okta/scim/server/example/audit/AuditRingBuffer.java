@@ -0,0 +1,98 @@
+/**
+ * AuditRingBuffer.java
+ *
+ * Bounded lock-free queue between request threads and the audit writer.
+ */
+package com.okta.scim.server.example.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Multi-producer, single-consumer ring buffer. Each slot carries a sequence number that
+ * tells producers whether it is free and the consumer whether it is published, so
+ * producers only contend on one CAS of the tail and never block: when the buffer is
+ * full, {@link #offer} fails immediately.
+ *
+ * @param <E> element type
+ */
+final class AuditRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    /** Next position to consume; only touched by the consumer thread. */
+    private volatile long head;
+
+    /**
+     * @param minCapacity requested capacity, rounded up to a power of two
+     */
+    AuditRingBuffer(int minCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, minCapacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++)
+            sequences.set(i, i);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Publishes an element without blocking.
+     *
+     * @param element element to publish
+     * @return false if the buffer is full
+     */
+    boolean offer(E element) {
+        long pos = tail.get();
+        for (;;) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.lazySet(index, element);
+                    sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false; // slot still holds an unconsumed element from the previous lap
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Moves up to {@code max} published elements into {@code batch}. Consumer thread only.
+     *
+     * @return number of elements moved
+     */
+    int drainTo(List<E> batch, int max) {
+        long pos = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (pos & mask);
+            if (sequences.get(index) != pos + 1)
+                break;
+            batch.add(slots.get(index));
+            slots.lazySet(index, null);
+            sequences.lazySet(index, pos + mask + 1);
+            pos++;
+            drained++;
+        }
+        head = pos;
+        return drained;
+    }
+
+    /** Approximate number of queued elements. */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * RollingAuditFile.java
+ *
+ * Size-based rolling file the audit writer appends to.
+ */
+package com.okta.scim.server.example.audit;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends lines to {@code file}; once it exceeds {@code maxBytes} it is renamed to
+ * {@code file.1} (older files shift to {@code .2} ... {@code .maxHistory}, the oldest is
+ * deleted) and a fresh file is started. Used by the single writer thread only.
+ */
+final class RollingAuditFile implements Closeable {
+
+    private final Path file;
+    private final long maxBytes;
+    private final int maxHistory;
+    private OutputStream out;
+    private long size;
+
+    RollingAuditFile(Path file, long maxBytes, int maxHistory) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.maxHistory = maxHistory;
+    }
+
+    /**
+     * Buffers one encoded line; call {@link #flush} at the end of a batch.
+     */
+    void write(byte[] line) throws IOException {
+        if (out == null)
+            open();
+        else if (size + line.length > maxBytes && size > 0)
+            rotate();
+        out.write(line);
+        size += line.length;
+    }
+
+    void flush() throws IOException {
+        if (out != null)
+            out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private void open() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null)
+            Files.createDirectories(parent);
+        out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND), 64 * 1024);
+        size = Files.size(file);
+    }
+
+    private void rotate() throws IOException {
+        close();
+        if (maxHistory > 0) {
+            Files.deleteIfExists(archive(maxHistory));
+            for (int i = maxHistory - 1; i >= 1; i--) {
+                if (Files.exists(archive(i)))
+                    Files.move(archive(i), archive(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(file, archive(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+        open();
+    }
+
+    private Path archive(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * JwtTokenVerifier.java
+ *
+ * Accepts signed JWT bearer tokens, checked against a local JWKS file.
+ */
+package com.okta.scim.server.example.auth;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Verifies RS256 and ES256 JWTs against the keys in {@code scim.auth.jwt.jwks-file}; only
+ * active when that property is set. The token must be unexpired and, if configured,
+ * carry the expected {@code iss} and {@code aud}. The client ID is taken from
+ * {@code client_id}, {@code cid}, {@code azp} or {@code sub}, in that order.
+ * <p>
+ * Tokens that pass are kept in a bounded cache until the earlier of their {@code exp} and
+ * {@code scim.auth.jwt.cache-ttl}, so a client reusing its token costs one map lookup per
+ * request instead of a signature check. The JWKS file is re-read when it changes, which
+ * also clears the cache so tokens signed by a removed key stop working.
+ */
+@Component
+@Order(1)
+@ConditionalOnProperty(name = "scim.auth.jwt.jwks-file")
+public class JwtTokenVerifier implements TokenVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtTokenVerifier.class);
+
+    private static final Base64.Decoder BASE64URL = Base64.getUrlDecoder();
+    private static final String[] CLIENT_CLAIMS = { "client_id", "cid", "azp", "sub" };
+    private static final ECParameterSpec P256 = curve("secp256r1");
+
+    /**
+     * How a JWS {@code alg} is verified and which keys may be used for it.
+     *
+     * @param signature JCA signature algorithm
+     * @param keyType   required {@link PublicKey#getAlgorithm()}
+     * @param curve     required curve of an EC key, null for RSA
+     */
+    private record JwsAlgorithm(String signature, String keyType, ECParameterSpec curve) {
+
+        boolean accepts(PublicKey key) {
+            if (!keyType.equals(key.getAlgorithm()))
+                return false;
+            return curve == null
+                    || key instanceof ECPublicKey ec && ec.getParams().getCurve().equals(curve.getCurve());
+        }
+    }
+
+    private static final Map<String, JwsAlgorithm> ALGORITHMS = Map.of(
+            "RS256", new JwsAlgorithm("SHA256withRSA", "RSA", null),
+            // JWS carries raw R||S, not DER
+            "ES256", new JwsAlgorithm("SHA256withECDSAinP1363Format", "EC", P256));
+
+    private final ObjectMapper objectMapper;
+    private final WatchedFile jwksFile;
+    private final String issuer;
+    private final String audience;
+    private final long clockSkewSeconds;
+    private final Cache<String, VerifiedToken> verified;
+    private volatile Map<String, PublicKey> keys = Map.of();
+
+    public JwtTokenVerifier(ObjectMapper objectMapper,
+            @Value("${scim.auth.jwt.jwks-file}") String jwksFile,
+            @Value("${scim.auth.jwt.issuer:}") String issuer,
+            @Value("${scim.auth.jwt.audience:}") String audience,
+            @Value("${scim.auth.jwt.clock-skew:30s}") Duration clockSkew,
+            @Value("${scim.auth.jwt.cache-size:10000}") long cacheSize,
+            @Value("${scim.auth.jwt.cache-ttl:5m}") Duration cacheTtl,
+            @Value("${scim.auth.reload-interval:5s}") Duration reloadInterval,
+            MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.jwksFile = new WatchedFile(Path.of(jwksFile), reloadInterval);
+        this.issuer = issuer.isBlank() ? null : issuer;
+        this.audience = audience.isBlank() ? null : audience;
+        this.clockSkewSeconds = clockSkew.toSeconds();
+        long ttlNanos = cacheTtl.toNanos();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken v, long currentTime) {
+                        long untilExp = Duration.ofSeconds(v.expiresAt() - System.currentTimeMillis() / 1000)
+                                .toNanos();
+                        return Math.max(0, Math.min(ttlNanos, untilExp));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken v, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken v, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "scim.verified-tokens");
+        reloadIfChanged();
+    }
+
+    @Override
+    public ScimClient verify(String token) {
+        reloadIfChanged();
+        VerifiedToken cached = verified.getIfPresent(token);
+        if (cached != null)
+            return cached.client();
+        if (token.chars().filter(c -> c == '.').count() != 2)
+            return null; // not a JWS compact serialisation
+
+        VerifiedToken checked = check(token);
+        if (checked != null)
+            verified.put(token, checked);
+        return checked != null ? checked.client() : null;
+    }
+
+    /**
+     * Full verification: cheap claim checks first, the signature last.
+     */
+    private VerifiedToken check(String token) {
+        int firstDot = token.indexOf('.');
+        int secondDot = token.indexOf('.', firstDot + 1);
+        try {
+            JsonNode header = objectMapper.readTree(BASE64URL.decode(token.substring(0, firstDot)));
+            JsonNode claims = objectMapper.readTree(BASE64URL.decode(token.substring(firstDot + 1, secondDot)));
+
+            long now = System.currentTimeMillis() / 1000;
+            JsonNode exp = claims.get("exp");
+            if (exp == null || !exp.canConvertToLong() || exp.asLong() + clockSkewSeconds < now)
+                return null;
+            JsonNode nbf = claims.get("nbf");
+            if (nbf != null && (!nbf.canConvertToLong() || nbf.asLong() - clockSkewSeconds > now))
+                return null;
+            if (issuer != null && !issuer.equals(claims.path("iss").asText(null)))
+                return null;
+            if (audience != null && !hasAudience(claims.get("aud")))
+                return null;
+            String clientId = clientId(claims);
+            if (clientId == null)
+                return null;
+
+            JwsAlgorithm algorithm = ALGORITHMS.get(header.path("alg").asText());
+            PublicKey key = key(header.path("kid").asText(null));
+            if (algorithm == null || key == null || !algorithm.accepts(key))
+                return null;
+            Signature signature = Signature.getInstance(algorithm.signature());
+            signature.initVerify(key);
+            signature.update(token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII));
+            if (!signature.verify(BASE64URL.decode(token.substring(secondDot + 1))))
+                return null;
+            return new VerifiedToken(new ScimClient(clientId), exp.asLong());
+        } catch (IOException | IllegalArgumentException | GeneralSecurityException e) {
+            logger.debug("Rejected JWT: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean hasAudience(JsonNode aud) {
+        if (aud == null)
+            return false;
+        if (aud.isArray()) {
+            for (JsonNode value : aud) {
+                if (audience.equals(value.asText()))
+                    return true;
+            }
+            return false;
+        }
+        return audience.equals(aud.asText());
+    }
+
+    private static String clientId(JsonNode claims) {
+        for (String claim : CLIENT_CLAIMS) {
+            JsonNode value = claims.get(claim);
+            if (value != null && value.isTextual() && !value.asText().isEmpty())
+                return value.asText();
+        }
+        return null;
+    }
+
+    private PublicKey key(String kid) {
+        Map<String, PublicKey> current = keys;
+        if (kid != null)
+            return current.get(kid);
+        return current.size() == 1 ? current.values().iterator().next() : null;
+    }
+
+    private void reloadIfChanged() {
+        if (!jwksFile.changed())
+            return;
+        try {
+            Map<String, PublicKey> loaded = new HashMap<>();
+            int index = 0;
+            for (JsonNode jwk : objectMapper.readTree(jwksFile.path().toFile()).path("keys")) {
+                PublicKey key = toPublicKey(jwk);
+                if (key != null)
+                    loaded.put(jwk.path("kid").asText("key-" + index), key);
+                index++;
+            }
+            keys = Map.copyOf(loaded);
+            verified.invalidateAll();
+            logger.info("Loaded {} signing keys from {}", loaded.size(), jwksFile.path());
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            logger.warn("Could not load {}, keeping the previous keys: {}", jwksFile.path(), e.getMessage());
+        }
+    }
+
+    private static PublicKey toPublicKey(JsonNode jwk) throws GeneralSecurityException {
+        if (jwk.has("use") && !"sig".equals(jwk.path("use").asText()))
+            return null;
+        switch (jwk.path("kty").asText()) {
+            case "RSA":
+                return KeyFactory.getInstance("RSA").generatePublic(
+                        new RSAPublicKeySpec(unsigned(jwk, "n"), unsigned(jwk, "e")));
+            case "EC":
+                if (!"P-256".equals(jwk.path("crv").asText()))
+                    return null;
+                ECPoint point = new ECPoint(unsigned(jwk, "x"), unsigned(jwk, "y"));
+                return KeyFactory.getInstance("EC").generatePublic(new ECPublicKeySpec(point, P256));
+            default:
+                return null;
+        }
+    }
+
+    private static ECParameterSpec curve(String name) {
+        try {
+            AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+            parameters.init(new ECGenParameterSpec(name));
+            return parameters.getParameterSpec(ECParameterSpec.class);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Curve " + name + " is not supported by this JVM", e);
+        }
+    }
+
+    private static BigInteger unsigned(JsonNode jwk, String member) {
+        return new BigInteger(1, BASE64URL.decode(jwk.path(member).asText()));
+    }
+
+    private record VerifiedToken(ScimClient client, long expiresAt) {
+    }
+}
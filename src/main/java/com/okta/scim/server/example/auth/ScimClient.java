@@ -0,0 +1,18 @@
+/**
+ * ScimClient.java
+ *
+ * The authenticated caller of a SCIM request.
+ */
+package com.okta.scim.server.example.auth;
+
+/**
+ * Identity established by a {@link TokenVerifier}; stored on the request under
+ * {@link #REQUEST_ATTRIBUTE}.
+ *
+ * @param id client ID the token was issued to
+ */
+public record ScimClient(String id) {
+
+    /** Request attribute holding the authenticated {@code ScimClient}. */
+    public static final String REQUEST_ATTRIBUTE = ScimClient.class.getName();
+}
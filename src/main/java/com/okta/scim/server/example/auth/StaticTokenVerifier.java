@@ -0,0 +1,125 @@
+/**
+ * StaticTokenVerifier.java
+ *
+ * Accepts per-client opaque bearer tokens from configuration.
+ */
+package com.okta.scim.server.example.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Verifies opaque tokens against SHA-256 hashes configured per client, so plaintext
+ * tokens never appear in configuration:
+ * <pre>
+ * scim.auth.tokens.okta=sha256:&lt;hex&gt;[,sha256:&lt;hex&gt;...]
+ * </pre>
+ * (hash with {@code printf %s "$TOKEN" | sha256sum}). Listing several hashes for one
+ * client lets an old and a new token overlap during rotation. Entries in the optional
+ * {@code scim.auth.tokens-file} use the same {@code client=hashes} format and are re-read
+ * when the file changes, so tokens can be rotated without a restart.
+ * <p>
+ * The presented token is hashed once and compared against every configured hash with
+ * {@link MessageDigest#isEqual}, so neither the match position nor a shared prefix shows
+ * up in the response time.
+ */
+@Component
+@Order(0)
+public class StaticTokenVerifier implements TokenVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaticTokenVerifier.class);
+
+    private static final String HASH_PREFIX = "sha256:";
+
+    private final Map<String, String> configured;
+    private final WatchedFile tokensFile;
+    private volatile List<TokenHash> tokens;
+
+    public StaticTokenVerifier(Environment environment,
+            @Value("${scim.auth.tokens-file:}") String tokensFile,
+            @Value("${scim.auth.reload-interval:5s}") Duration reloadInterval) {
+        this.configured = Binder.get(environment)
+                .bind("scim.auth.tokens", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+        this.tokensFile = tokensFile.isBlank() ? null : new WatchedFile(Path.of(tokensFile), reloadInterval);
+        this.tokens = parse(configured);
+        reloadIfChanged();
+    }
+
+    @Override
+    public ScimClient verify(String token) {
+        reloadIfChanged();
+        byte[] presented = sha256(token);
+        ScimClient match = null;
+        for (TokenHash candidate : tokens) {
+            if (MessageDigest.isEqual(candidate.hash(), presented) && match == null)
+                match = candidate.client();
+        }
+        return match;
+    }
+
+    private void reloadIfChanged() {
+        if (tokensFile == null || !tokensFile.changed())
+            return;
+        Properties fromFile = new Properties();
+        try (Reader reader = Files.newBufferedReader(tokensFile.path(), StandardCharsets.UTF_8)) {
+            fromFile.load(reader);
+            List<TokenHash> loaded = new ArrayList<>(parse(configured));
+            fromFile.forEach((client, hashes) -> loaded.addAll(parse(client.toString(), hashes.toString())));
+            tokens = List.copyOf(loaded);
+            logger.info("Loaded {} bearer token hashes ({} from {})", loaded.size(), fromFile.size(), tokensFile.path());
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Could not load {}, keeping the previous tokens: {}", tokensFile.path(), e.getMessage());
+        }
+    }
+
+    private static List<TokenHash> parse(Map<String, String> entries) {
+        List<TokenHash> parsed = new ArrayList<>();
+        entries.forEach((client, hashes) -> parsed.addAll(parse(client, hashes)));
+        return List.copyOf(parsed);
+    }
+
+    private static List<TokenHash> parse(String client, String hashes) {
+        List<TokenHash> parsed = new ArrayList<>();
+        for (String hash : hashes.split(",")) {
+            hash = hash.trim();
+            if (!hash.regionMatches(true, 0, HASH_PREFIX, 0, HASH_PREFIX.length())
+                    || hash.length() != HASH_PREFIX.length() + 64)
+                throw new IllegalArgumentException("Token for client '" + client + "' must be sha256:<64 hex digits>");
+            parsed.add(new TokenHash(HexFormat.of().parseHex(hash.substring(HASH_PREFIX.length())),
+                    new ScimClient(client)));
+        }
+        return parsed;
+    }
+
+    private static byte[] sha256(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record TokenHash(byte[] hash, ScimClient client) {
+    }
+}
@@ -0,0 +1,20 @@
+/**
+ * TokenVerifier.java
+ *
+ * Strategy for validating bearer tokens.
+ */
+package com.okta.scim.server.example.auth;
+
+/**
+ * Validates a bearer token. Every {@code TokenVerifier} bean is consulted in
+ * {@link org.springframework.core.annotation.Order} until one accepts the token, so
+ * verifiers only decide about token formats they understand and return null otherwise.
+ */
+public interface TokenVerifier {
+
+    /**
+     * @param token bearer token, without the {@code Bearer } prefix
+     * @return the client the token belongs to, or null if this verifier does not accept it
+     */
+    ScimClient verify(String token);
+}
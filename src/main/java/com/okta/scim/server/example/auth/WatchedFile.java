@@ -0,0 +1,56 @@
+/**
+ * WatchedFile.java
+ *
+ * Detects changes to a configuration file without a file-system watcher.
+ */
+package com.okta.scim.server.example.auth;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls a file's modification time at most once per interval. Callers on the request
+ * path pay one volatile read between polls; exactly one caller performs each poll.
+ */
+final class WatchedFile {
+
+    private final Path path;
+    private final long intervalNanos;
+    private final AtomicLong nextCheck = new AtomicLong(Long.MIN_VALUE);
+    private volatile FileTime lastModified;
+
+    WatchedFile(Path path, Duration interval) {
+        this.path = path;
+        this.intervalNanos = interval.toNanos();
+    }
+
+    Path path() {
+        return path;
+    }
+
+    /**
+     * @return true if the file changed (or was seen for the first time) since the last
+     *         call that returned true
+     */
+    boolean changed() {
+        long now = System.nanoTime();
+        long next = nextCheck.get();
+        if (next != Long.MIN_VALUE && now - next < 0)
+            return false;
+        if (!nextCheck.compareAndSet(next, now + intervalNanos))
+            return false;
+        try {
+            FileTime modified = Files.getLastModifiedTime(path);
+            if (modified.equals(lastModified))
+                return false;
+            lastModified = modified;
+            return true;
+        } catch (IOException e) {
+            return false; // keep the last good contents while the file is missing
+        }
+    }
+}
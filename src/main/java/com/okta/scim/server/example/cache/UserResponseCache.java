@@ -0,0 +1,111 @@
+/**
+ * UserResponseCache.java
+ *
+ * Caches the rendered SCIM JSON of individual users.
+ */
+package com.okta.scim.server.example.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.okta.scim.server.example.datasource.TenantKey;
+import com.okta.scim.server.example.entity.UserEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import com.okta.scim.server.example.serializer.ScimUserWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds pre-rendered {@code GET /scim/v2/Users/{id}} bodies, optionally also gzipped,
+ * so the hot read path skips both map building and Jackson serialisation.
+ * <p>
+ * Entries are keyed by tenant and SCIM ID and tagged with the {@code @Version} of the entity they
+ * were rendered from; a lookup only hits when the tag matches the current entity, so a
+ * missed eviction can never serve stale JSON. Writers evict explicitly as well. Total size is
+ * capped in bytes with LRU-style eviction.
+ */
+@Component
+public class UserResponseCache {
+
+    private final ScimUserWriter scimUserWriter;
+    private final boolean gzip;
+    private final Cache<TenantKey<Long>, RenderedUser> cache;
+    private final Timer renderTimer;
+
+    public UserResponseCache(ScimUserWriter scimUserWriter,
+            @Value("${scim.cache.user-response.max-bytes:67108864}") long maxBytes,
+            @Value("${scim.cache.user-response.gzip:true}") boolean gzip,
+            MeterRegistry meterRegistry) {
+        this.scimUserWriter = scimUserWriter;
+        this.gzip = gzip;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((TenantKey<Long> key, RenderedUser r) -> r.weight())
+                .recordStats()
+                .build();
+        this.renderTimer = Timer.builder("scim.user.render")
+                .description("Time to serialise (and gzip) a user missing from the response cache")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "scim.user-responses");
+    }
+
+    /**
+     * Returns the rendered user, rendering and caching it on a miss or version change.
+     *
+     * @param user current entity state
+     * @return rendered bytes for this exact version
+     */
+    public RenderedUser get(UserEntity user) {
+        long version = user.getVersion() != null ? user.getVersion() : 0L;
+        TenantKey<Long> key = TenantKey.of(user.getScimId());
+        RenderedUser cached = cache.getIfPresent(key);
+        if (cached != null && cached.version() == version)
+            return cached;
+
+        RenderedUser rendered = renderTimer.record(() -> {
+            byte[] json = scimUserWriter.renderUser(user);
+            return new RenderedUser(version, json, gzip ? gzip(json) : null);
+        });
+        cache.put(key, rendered);
+        return rendered;
+    }
+
+    /**
+     * Drops the cached rendering of a user after a write.
+     *
+     * @param scimId SCIM user ID
+     */
+    public void evict(Long scimId) {
+        if (scimId != null)
+            cache.invalidate(TenantKey.of(scimId));
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 32);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A user rendered at a given version.
+     *
+     * @param version entity version the bytes were rendered from
+     * @param json    UTF-8 JSON body
+     * @param gzipped gzip-compressed body, or null when pre-compression is disabled
+     */
+    public record RenderedUser(long version, byte[] json, byte[] gzipped) {
+        int weight() {
+            return 64 + json.length + (gzipped != null ? gzipped.length : 0);
+        }
+    }
+}
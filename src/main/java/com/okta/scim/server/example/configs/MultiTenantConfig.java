@@ -0,0 +1,168 @@
+/**
+ * MultiTenantConfig.java
+ *
+ * Serves several Okta orgs from one JVM, each with its own database.
+ */
+package com.okta.scim.server.example.configs;
+
+import com.okta.scim.server.example.datasource.TenantConnectionProvider;
+import com.okta.scim.server.example.datasource.TenantContext;
+import com.okta.scim.server.example.datasource.TenantRegistry;
+import com.okta.scim.server.example.datasource.TenantRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cfg.MultiTenancySettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.util.function.SingletonSupplier;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Active with {@code scim.multi-tenant.enabled=true}. Each entry of
+ * {@code scim.tenants.<tenant>} names the clients that belong to the tenant and binds its
+ * pool exactly like {@code spring.datasource.hikari.*} under {@code datasource}, e.g.
+ * <pre>
+ * scim.tenants.acme.clients=okta-acme
+ * scim.tenants.acme.datasource.jdbc-url=jdbc:mysql://db:3306/scim_acme?useCursorFetch=true
+ * scim.tenants.acme.datasource.maximum-pool-size=5
+ * </pre>
+ * Driver and credentials default to {@code spring.datasource}'s, which remains the
+ * database of the default tenant (and the only one read replicas apply to).
+ * <p>
+ * The {@code dataSource} bean is wrapped in a {@link TenantRoutingDataSource}, Hibernate
+ * runs in multi-tenant mode through {@link TenantConnectionProvider}, and every tenant
+ * database is migrated with the same Flyway configuration at startup (so all tenants
+ * must use the same database product) and has its ID sequence aligned by
+ * {@link ScimIdSequenceAligner}.
+ * <p>
+ * A Hibernate session belongs to the tenant it was opened for, so
+ * {@code spring.jpa.open-in-view} must be false: with it, the session would be opened
+ * before the bearer token identified the tenant.
+ */
+@Configuration
+@ConditionalOnProperty(name = "scim.multi-tenant.enabled", havingValue = "true")
+public class MultiTenantConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiTenantConfig.class);
+
+    public MultiTenantConfig(@Value("${spring.jpa.open-in-view:true}") boolean openInView) {
+        if (openInView)
+            throw new IllegalStateException("scim.multi-tenant.enabled requires spring.jpa.open-in-view=false");
+    }
+
+    /**
+     * Binding target of one {@code scim.tenants.<tenant>} entry.
+     */
+    public static class TenantProperties {
+
+        private List<String> clients = new ArrayList<>();
+        private HikariConfig datasource = new HikariConfig();
+
+        public List<String> getClients() { return clients; }
+        public void setClients(List<String> clients) { this.clients = clients; }
+
+        public HikariConfig getDatasource() { return datasource; }
+        public void setDatasource(HikariConfig datasource) { this.datasource = datasource; }
+    }
+
+    @Bean
+    public TenantRegistry tenantRegistry(DataSourceProperties properties, Environment environment,
+            MeterRegistry meterRegistry) {
+        Map<String, TenantProperties> tenants = Binder.get(environment)
+                .bind("scim.tenants", Bindable.mapOf(String.class, TenantProperties.class))
+                .orElse(Map.of());
+        Map<String, HikariDataSource> dataSources = new LinkedHashMap<>();
+        Map<String, String> tenantByClient = new HashMap<>();
+        tenants.forEach((tenant, tenantProperties) -> {
+            if (TenantContext.DEFAULT.equals(tenant))
+                throw new IllegalStateException("Tenant ID '" + tenant + "' is reserved for spring.datasource");
+            HikariConfig config = tenantProperties.getDatasource();
+            if (config.getPoolName() == null)
+                config.setPoolName("tenant-" + tenant);
+            if (config.getDriverClassName() == null)
+                config.setDriverClassName(properties.determineDriverClassName());
+            if (config.getUsername() == null) {
+                config.setUsername(properties.determineUsername());
+                config.setPassword(properties.determinePassword());
+            }
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            dataSources.put(tenant, new HikariDataSource(config));
+            for (String client : tenantProperties.getClients()) {
+                String previous = tenantByClient.put(client, tenant);
+                if (previous != null)
+                    throw new IllegalStateException("Client " + client + " is mapped to tenants " + previous
+                            + " and " + tenant);
+            }
+        });
+        logger.info("Multi-tenant mode: tenants {}", dataSources.keySet());
+        return new TenantRegistry(dataSources, tenantByClient);
+    }
+
+    /**
+     * Wraps the application's {@code dataSource} bean, whichever configuration defined it.
+     * Static, because bean post-processors are created before regular beans; the registry
+     * is looked up when the first tenant connection is requested.
+     */
+    @Bean
+    public static BeanPostProcessor tenantRoutingDataSourcePostProcessor(ObjectProvider<TenantRegistry> registry) {
+        SingletonSupplier<TenantRegistry> tenants = SingletonSupplier.of(registry::getObject);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof TenantRoutingDataSource))
+                    return new TenantRoutingDataSource(dataSource, tenants);
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer multiTenantHibernateProperties(DataSource dataSource) {
+        TenantConnectionProvider provider = new TenantConnectionProvider((TenantRoutingDataSource) dataSource);
+        return hibernateProperties -> {
+            hibernateProperties.put(MultiTenancySettings.MULTI_TENANT_CONNECTION_PROVIDER, provider);
+            hibernateProperties.put(MultiTenancySettings.MULTI_TENANT_IDENTIFIER_RESOLVER, provider);
+        };
+    }
+
+    /**
+     * Migrates the default database as usual, then each tenant database with the same
+     * configuration.
+     */
+    @Bean
+    public FlywayMigrationStrategy tenantFlywayMigrationStrategy(ObjectProvider<TenantRegistry> registry) {
+        return flyway -> {
+            flyway.migrate();
+            registry.getObject().dataSources().forEach((tenant, dataSource) -> {
+                logger.info("Migrating the database of tenant {}", tenant);
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(dataSource)
+                        .load()
+                        .migrate();
+            });
+        };
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ * RateLimitConfig.java
+ *
+ * Creates the per-client rate limiter.
+ */
+package com.okta.scim.server.example.configs;
+
+import com.okta.scim.server.example.interceptors.RateLimitInterceptor;
+import com.okta.scim.server.example.ratelimit.ClientRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Budgets every client with {@code scim.ratelimit.read.*} and {@code scim.ratelimit.write.*}
+ * (sustained requests per second and burst). Disable with
+ * {@code scim.ratelimit.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "scim.ratelimit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    public ClientRateLimiter clientRateLimiter(
+            @Value("${scim.ratelimit.read.rate:200}") double readRate,
+            @Value("${scim.ratelimit.read.burst:400}") int readBurst,
+            @Value("${scim.ratelimit.write.rate:50}") double writeRate,
+            @Value("${scim.ratelimit.write.burst:100}") int writeBurst,
+            MeterRegistry meterRegistry) {
+        return new ClientRateLimiter(new ClientRateLimiter.Budget(readRate, readBurst),
+                new ClientRateLimiter.Budget(writeRate, writeBurst), meterRegistry);
+    }
+
+    @Bean
+    public RateLimitInterceptor rateLimitInterceptor(ClientRateLimiter clientRateLimiter) {
+        return new RateLimitInterceptor(clientRateLimiter);
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * ReadReplicaConfig.java
+ *
+ * Routes read-only transactions to read replicas.
+ */
+package com.okta.scim.server.example.configs;
+
+import com.okta.scim.server.example.datasource.ReplicaSet;
+import com.okta.scim.server.example.interceptors.ReadYourWritesInterceptor;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Active when {@code scim.datasource.replicas[0].jdbc-url} is set. Each entry of
+ * {@code scim.datasource.replicas} is bound onto a Hikari pool exactly like
+ * {@code spring.datasource.hikari.*} (jdbc-url, username, password, maximum-pool-size,
+ * ...); driver and credentials default to the primary's.
+ * <p>
+ * The application's DataSource becomes a {@link LazyConnectionDataSourceProxy} over the
+ * primary pool. It borrows a physical connection only at the first statement, after
+ * {@code @Transactional(readOnly = true)} has marked the connection read-only, and takes
+ * read-only connections from {@link ReplicaSet}. So {@code UserService.writeUsers},
+ * {@code getByScimId} and the group reads go to a healthy replica, and everything else,
+ * Flyway included, goes to the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "scim.datasource.replicas[0].jdbc-url")
+public class ReadReplicaConfig {
+
+    /**
+     * The primary pool, configured by {@code spring.datasource.*} as without replicas.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadYourWritesInterceptor readYourWritesInterceptor(
+            @Value("${scim.datasource.replica.sticky-window:5s}") Duration window,
+            @Value("${scim.datasource.replica.sticky-clients:10000}") long maxClients) {
+        return new ReadYourWritesInterceptor(window, maxClients);
+    }
+
+    @Bean
+    public ReplicaSet replicaSet(HikariDataSource primaryDataSource, DataSourceProperties properties,
+            ReadYourWritesInterceptor readYourWrites, Environment environment, MeterRegistry meterRegistry,
+            @Value("${scim.datasource.replica.check-interval:1s}") Duration checkInterval,
+            @Value("${scim.datasource.replica.max-lag:5s}") Duration maxLag) {
+        List<HikariConfig> configs = Binder.get(environment)
+                .bind("scim.datasource.replicas", Bindable.listOf(HikariConfig.class))
+                .orElse(List.of());
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < configs.size(); i++) {
+            HikariConfig config = configs.get(i);
+            if (config.getPoolName() == null)
+                config.setPoolName("replica-" + (i + 1));
+            if (config.getDriverClassName() == null)
+                config.setDriverClassName(properties.determineDriverClassName());
+            if (config.getUsername() == null) {
+                config.setUsername(properties.determineUsername());
+                config.setPassword(properties.determinePassword());
+            }
+            config.setReadOnly(true);
+            config.setInitializationFailTimeout(-1); // an unreachable replica must not stop startup
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.put(config.getPoolName(), new HikariDataSource(config));
+        }
+        return new ReplicaSet(primaryDataSource, replicas, readYourWrites::currentRequestNeedsPrimary, checkInterval,
+                maxLag, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaSet replicaSet) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaSet.readOnlyDataSource());
+        return dataSource;
+    }
+
+    /**
+     * Starts probing the replicas once migrations have created the heartbeat table.
+     */
+    @EventListener
+    public void startReplicaChecks(ApplicationReadyEvent event) {
+        event.getApplicationContext().getBean(ReplicaSet.class).start();
+    }
+}
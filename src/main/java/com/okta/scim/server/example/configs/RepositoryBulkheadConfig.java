@@ -0,0 +1,61 @@
+/**
+ * RepositoryBulkheadConfig.java
+ *
+ * Wraps Spring Data repositories with the database bulkhead.
+ */
+package com.okta.scim.server.example.configs;
+
+import com.okta.scim.server.example.datasource.TenantRegistry;
+import com.okta.scim.server.example.repository.DbBulkhead;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.time.Duration;
+
+/**
+ * Adds {@link DbBulkhead} as the outermost advice of every repository proxy, so a
+ * permit is taken before the repository's own transaction borrows a connection.
+ * Tenants get permits matching their own pool size. Disable with
+ * {@code scim.db.bulkhead.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "scim.db.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+public class RepositoryBulkheadConfig {
+
+    @Bean
+    public DbBulkhead dbBulkhead(
+            @Value("${scim.db.bulkhead.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+            @Value("${scim.db.bulkhead.max-wait:1s}") Duration maxWait,
+            @Value("${scim.db.bulkhead.retry-after:1s}") Duration retryAfter,
+            MeterRegistry meterRegistry, ObjectProvider<TenantRegistry> tenantRegistry) {
+        DbBulkhead bulkhead = new DbBulkhead(permits, maxWait, retryAfter, meterRegistry);
+        tenantRegistry.ifAvailable(tenants -> tenants.dataSources()
+                .forEach((tenant, dataSource) -> bulkhead.addTenant(tenant, dataSource.getMaximumPoolSize())));
+        return bulkhead;
+    }
+
+    /**
+     * Registers the bulkhead through a repository factory customizer. Static, because
+     * bean post-processors are created before regular beans; the bulkhead is looked up
+     * lazily when the first repository proxy is built.
+     */
+    @Bean
+    public static BeanPostProcessor dbBulkheadRepositoryCustomizer(ObjectProvider<DbBulkhead> bulkhead) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(0, bulkhead.getObject())));
+                }
+                return bean;
+            }
+        };
+    }
+}
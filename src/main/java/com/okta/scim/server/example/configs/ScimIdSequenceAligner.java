@@ -0,0 +1,97 @@
+/**
+ * ScimIdSequenceAligner.java
+ *
+ * Moves the users_seq ID generator past IDs already handed out by the old
+ * auto-increment column.
+ */
+package com.okta.scim.server.example.configs;
+
+import com.okta.scim.server.example.datasource.TenantContext;
+import com.okta.scim.server.example.datasource.TenantRegistry;
+import com.okta.scim.server.example.entity.UserEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+
+/**
+ * The V1_1 migration seeds the pooled {@code users_seq} generator past the IDs the old
+ * auto-increment column handed out, but rows can still arrive with explicit IDs later,
+ * e.g. from a dump restored into a migrated database. On startup the generator is
+ * advanced beyond the highest existing ID (plus one allocation block) so new users
+ * never collide. In multi-tenant mode this is done for every tenant's database.
+ * <p>
+ * Runs while the context is refreshed: after Flyway (the {@link JdbcTemplate} depends on
+ * it) and before the {@code EntityManagerFactory} (see {@link DependsOn}), so before the
+ * web server accepts the first request.
+ */
+@Component
+@ConditionalOnProperty(name = "scim.users.align-id-sequence", havingValue = "true", matchIfMissing = true)
+public class ScimIdSequenceAligner implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScimIdSequenceAligner.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<TenantRegistry> tenantRegistry;
+
+    public ScimIdSequenceAligner(JdbcTemplate jdbcTemplate, ObjectProvider<TenantRegistry> tenantRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tenantRegistry = tenantRegistry;
+    }
+
+    /**
+     * Makes the {@code EntityManagerFactory} wait for the aligner, so no user is inserted
+     * with a generator that has not been aligned yet.
+     */
+    @Component
+    @ConditionalOnProperty(name = "scim.users.align-id-sequence", havingValue = "true", matchIfMissing = true)
+    static class DependsOn extends EntityManagerFactoryDependsOnPostProcessor {
+
+        DependsOn() {
+            super(ScimIdSequenceAligner.class);
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        align(TenantContext.DEFAULT, jdbcTemplate);
+        TenantRegistry tenants = tenantRegistry.getIfAvailable();
+        if (tenants != null)
+            tenants.dataSources().forEach((tenant, dataSource) -> align(tenant, new JdbcTemplate(dataSource)));
+    }
+
+    private static void align(String tenant, JdbcTemplate jdbcTemplate) {
+        // Archived users keep their IDs and may be restored, so they count as handed out.
+        long maxId = Math.max(maxScimId(jdbcTemplate, "users"), maxScimId(jdbcTemplate, "users_archive"));
+        if (maxId == 0)
+            return;
+        long next = maxId + UserEntity.ID_ALLOCATION_SIZE + 1;
+
+        String product = jdbcTemplate.execute((Connection c) -> c.getMetaData().getDatabaseProductName());
+        if ("MySQL".equalsIgnoreCase(product)) {
+            // MySQL has no sequences; Hibernate emulates users_seq with a one-row table.
+            int updated = jdbcTemplate.update("UPDATE users_seq SET next_val = ? WHERE next_val < ?", next, next);
+            if (updated > 0)
+                logger.info("Advanced users_seq of tenant {} to {} (max scim_id {})", tenant, next, maxId);
+        } else {
+            Long current = jdbcTemplate.queryForObject(
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE LOWER(SEQUENCE_NAME) = 'users_seq'",
+                    Long.class);
+            if (current != null && current < next) {
+                jdbcTemplate.execute("ALTER SEQUENCE users_seq RESTART WITH " + next);
+                logger.info("Advanced users_seq of tenant {} to {} (max scim_id {})", tenant, next, maxId);
+            }
+        }
+    }
+
+    private static long maxScimId(JdbcTemplate jdbcTemplate, String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(scim_id), 0) FROM " + table, Long.class);
+        return max != null ? max : 0;
+    }
+}
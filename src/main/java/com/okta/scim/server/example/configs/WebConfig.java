@@ -5,18 +5,33 @@
  */
 package com.okta.scim.server.example.configs;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import com.okta.scim.server.example.interceptors.AuthInterceptor;
+import com.okta.scim.server.example.interceptors.RateLimitInterceptor;
+import com.okta.scim.server.example.interceptors.ReadYourWritesInterceptor;
 
 /**
- * Registers the {@link AuthInterceptor} for request handling.
+ * Registers the {@link AuthInterceptor} for request handling, followed by the
+ * {@link RateLimitInterceptor} when rate limiting is enabled and the
+ * {@link ReadYourWritesInterceptor} when read replicas are configured.
  */
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
+    @Autowired
+    private AuthInterceptor authInterceptor;
+
+    @Autowired
+    private ObjectProvider<RateLimitInterceptor> rateLimitInterceptor;
+
+    @Autowired
+    private ObjectProvider<ReadYourWritesInterceptor> readYourWritesInterceptor;
+
     /**
      * Adds the authentication interceptor to all incoming requests.
      *
@@ -24,7 +39,12 @@ public class WebConfig implements WebMvcConfigurer {
      */
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        // Use the Spring-managed bean, not a new instance
-        registry.addInterceptor(new AuthInterceptor());
+        // Use the Spring-managed bean, not a new instance.
+        // Actuator (health and the Prometheus scrape) is left open for the monitoring stack.
+        registry.addInterceptor(authInterceptor).excludePathPatterns("/actuator/**");
+        rateLimitInterceptor.ifAvailable(
+                interceptor -> registry.addInterceptor(interceptor).excludePathPatterns("/actuator/**"));
+        readYourWritesInterceptor.ifAvailable(
+                interceptor -> registry.addInterceptor(interceptor).excludePathPatterns("/actuator/**"));
     }
 }
@@ -0,0 +1,126 @@
+/**
+ * BulkController.java
+ *
+ * Handles the SCIM bulk endpoint.
+ */
+package com.okta.scim.server.example.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okta.scim.server.example.audit.AuditLog;
+import com.okta.scim.server.example.auth.ScimClient;
+import com.okta.scim.server.example.dto.BulkRequestDTO;
+import com.okta.scim.server.example.exception.ScimException;
+import com.okta.scim.server.example.ratelimit.ClientRateLimiter;
+import com.okta.scim.server.example.service.BulkService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * REST controller for SCIM bulk operations (RFC 7644 §3.7).
+ */
+@RestController
+@RequestMapping("/scim/v2/Bulk")
+public class BulkController {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkController.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private BulkService bulkService;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Autowired
+    private ObjectProvider<ClientRateLimiter> rateLimiter;
+
+    @Value("${scim.bulk.max-payload-size:1048576}")
+    private long maxPayloadSize;
+
+    /**
+     * Executes a BulkRequest. The body is read manually so that oversized payloads are
+     * rejected before being parsed. Each operation counts against the client's write
+     * budget; the request itself was already charged one.
+     *
+     * @param request incoming HTTP request
+     * @return BulkResponse
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> bulk(HttpServletRequest request) throws IOException {
+        logger.debug("POST /Bulk called");
+        if (request.getContentLengthLong() > maxPayloadSize)
+            throw payloadTooLarge();
+
+        byte[] body = IOUtils.toByteArray(new BoundedInputStream(request.getInputStream(), maxPayloadSize + 1));
+        if (body.length > maxPayloadSize)
+            throw payloadTooLarge();
+
+        BulkRequestDTO bulkRequest;
+        try {
+            bulkRequest = objectMapper.readValue(body, BulkRequestDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidSyntax", "Malformed BulkRequest");
+        }
+
+        chargeOperations(request, bulkRequest);
+        Map<String, Object> response = bulkService.processBulk(bulkRequest);
+        audit(response);
+        logger.debug("POST /Bulk end");
+        return ResponseEntity.ok(response);
+    }
+
+    private void chargeOperations(HttpServletRequest request, BulkRequestDTO bulkRequest) {
+        ClientRateLimiter limiter = rateLimiter.getIfAvailable();
+        int operations = bulkRequest.getOperations() != null ? bulkRequest.getOperations().size() : 0;
+        if (limiter != null && operations > 1
+                && request.getAttribute(ScimClient.REQUEST_ATTRIBUTE) instanceof ScimClient client)
+            limiter.acquire(client.id(), true, operations - 1);
+    }
+
+    /**
+     * Audits each operation of a BulkResponse as {@code bulk.<method>}.
+     */
+    @SuppressWarnings("unchecked")
+    private void audit(Map<String, Object> response) {
+        for (Map<String, Object> result : (List<Map<String, Object>>) response.get("Operations")) {
+            Object method = result.get("method");
+            String action = "bulk." + (method != null ? method.toString().toLowerCase(Locale.ROOT) : "unknown");
+            Object location = result.get("location");
+            Long scimId = location != null ? scimIdOf(location.toString()) : null;
+            auditLog.write(action, scimId, Integer.parseInt(result.get("status").toString()));
+        }
+    }
+
+    private static Long scimIdOf(String location) {
+        try {
+            return Long.valueOf(location.substring(location.lastIndexOf('/') + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private ScimException payloadTooLarge() {
+        return new ScimException(HttpStatus.PAYLOAD_TOO_LARGE, null,
+                "The size of the bulk operation exceeds the maxPayloadSize (" + maxPayloadSize + ")");
+    }
+}
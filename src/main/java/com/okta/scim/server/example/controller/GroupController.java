@@ -0,0 +1,212 @@
+/**
+ * GroupController.java
+ *
+ * Handles SCIM group-related API endpoints.
+ */
+package com.okta.scim.server.example.controller;
+
+import com.okta.scim.server.example.audit.AuditLog;
+import com.okta.scim.server.example.dto.GroupDTO;
+import com.okta.scim.server.example.entity.GroupEntity;
+import com.okta.scim.server.example.serializer.ETags;
+import com.okta.scim.server.example.service.GroupService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * REST controller for SCIM Group operations. Group bodies are streamed, with members read
+ * from the database as they are written; {@code excludedAttributes=members} (or an
+ * {@code attributes} list without members) skips reading them altogether.
+ */
+@RestController
+@RequestMapping("/scim/v2/Groups")
+public class GroupController {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupController.class);
+
+    private static final String GROUP_URN_PREFIX = "urn:ietf:params:scim:schemas:core:2.0:group:";
+
+    @Autowired
+    private GroupService groupService;
+
+    @Autowired
+    private AuditLog auditLog;
+
+    @Value("${scim.groups.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${scim.groups.max-page-size:1000}")
+    private int maxPageSize;
+
+    /**
+     * Creates a SCIM group.
+     *
+     * @param groupDTO group data
+     * @param response servlet response the created group is written to
+     * @throws IOException if writing the response fails
+     */
+    @PostMapping
+    public void createGroup(@RequestBody GroupDTO groupDTO, HttpServletResponse response) throws IOException {
+        logger.debug("POST /Groups called");
+        GroupEntity group = groupService.createGroup(groupDTO);
+        auditLog.write("group.create", group.getScimId(), HttpStatus.CREATED.value());
+        writeGroup(response, HttpStatus.CREATED, group, true);
+    }
+
+    /**
+     * Gets a page of groups, optionally filtered (e.g. {@code displayName eq "Sales"}).
+     *
+     * @param filter             optional SCIM filter
+     * @param startIndex         1-based index of the first result (default 1)
+     * @param count              page size
+     * @param attributes         optional attributes to return
+     * @param excludedAttributes optional attributes to omit, e.g. {@code members}
+     * @param response           servlet response the list is written to
+     * @throws IOException if writing the response fails
+     */
+    @GetMapping
+    public void getGroups(@RequestParam(required = false) String filter,
+            @RequestParam(required = false) Integer startIndex,
+            @RequestParam(required = false) Integer count,
+            @RequestParam(required = false) String attributes,
+            @RequestParam(required = false) String excludedAttributes,
+            HttpServletResponse response) throws IOException {
+        logger.debug("GET /Groups filter: {} startIndex: {} count: {}", filter, startIndex, count);
+        int start = startIndex == null || startIndex < 1 ? 1 : startIndex;
+        int size = count == null ? defaultPageSize : Math.max(0, Math.min(count, maxPageSize));
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        groupService.writeGroups(filter, start, size, includeMembers(attributes, excludedAttributes),
+                response.getOutputStream());
+    }
+
+    /**
+     * Gets a SCIM group by ID; a matching If-None-Match is answered with 304.
+     *
+     * @param scimId             SCIM group ID
+     * @param attributes         optional attributes to return
+     * @param excludedAttributes optional attributes to omit, e.g. {@code members}
+     * @param ifNoneMatch        optional ETag(s) the client already has
+     * @param response           servlet response the group is written to
+     * @throws IOException if writing the response fails
+     */
+    @GetMapping("/{scimId}")
+    public void getGroup(@PathVariable Long scimId,
+            @RequestParam(required = false) String attributes,
+            @RequestParam(required = false) String excludedAttributes,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletResponse response) throws IOException {
+        GroupEntity group = groupService.getByScimId(scimId);
+        if (group == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (ETags.matches(ifNoneMatch, group.getVersion())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, ETags.format(group.getVersion()));
+            return;
+        }
+        writeGroup(response, HttpStatus.OK, group, includeMembers(attributes, excludedAttributes));
+    }
+
+    /**
+     * Replaces a SCIM group, including its members.
+     *
+     * @param scimId             SCIM group ID
+     * @param groupDTO           new group data
+     * @param excludedAttributes optional attributes to omit from the response
+     * @param ifMatch            optional ETag the group must still have
+     * @param response           servlet response the group is written to
+     * @throws IOException if writing the response fails
+     */
+    @PutMapping("/{scimId}")
+    public void putGroup(@PathVariable Long scimId, @RequestBody GroupDTO groupDTO,
+            @RequestParam(required = false) String excludedAttributes,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            HttpServletResponse response) throws IOException {
+        logger.debug("PUT /Groups/{} called", scimId);
+        GroupEntity group = groupService.replaceGroup(scimId, groupDTO, ifMatch);
+        if (group == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        auditLog.write("group.replace", scimId, HttpStatus.OK.value());
+        writeGroup(response, HttpStatus.OK, group, includeMembers(null, excludedAttributes));
+    }
+
+    /**
+     * Applies SCIM PATCH operations to a group, e.g. to add or remove members. Answers
+     * 204 with the new ETag rather than echoing a possibly very large member list.
+     *
+     * @param scimId       SCIM group ID
+     * @param patchRequest patch operations
+     * @param ifMatch      optional ETag the group must still have
+     * @return empty response with the new ETag
+     */
+    @PatchMapping("/{scimId}")
+    public ResponseEntity<Void> patchGroup(@PathVariable Long scimId, @RequestBody Map<String, Object> patchRequest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.debug("PATCH /Groups/{} called", scimId);
+        GroupEntity group = groupService.patchGroup(scimId, patchRequest, ifMatch);
+        if (group == null)
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        auditLog.write("group.patch", scimId, HttpStatus.NO_CONTENT.value());
+        return ResponseEntity.noContent().eTag(ETags.format(group.getVersion())).build();
+    }
+
+    /**
+     * Deletes a SCIM group.
+     *
+     * @param scimId SCIM group ID
+     * @return 204, or 404 if the group does not exist
+     */
+    @DeleteMapping("/{scimId}")
+    public ResponseEntity<Void> deleteGroup(@PathVariable Long scimId) {
+        if (!groupService.deleteGroup(scimId))
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        auditLog.write("group.delete", scimId, HttpStatus.NO_CONTENT.value());
+        return ResponseEntity.noContent().build();
+    }
+
+    private void writeGroup(HttpServletResponse response, HttpStatus status, GroupEntity group,
+            boolean includeMembers) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setHeader(HttpHeaders.ETAG, ETags.format(group.getVersion()));
+        groupService.writeGroup(group, includeMembers, response.getOutputStream());
+    }
+
+    /**
+     * Applies RFC 7644 §3.4.2.5 to the only attribute worth skipping: {@code members}.
+     */
+    private static boolean includeMembers(String attributes, String excludedAttributes) {
+        if (attributes != null && !attributes.isBlank())
+            return listsMembers(attributes);
+        return !listsMembers(excludedAttributes);
+    }
+
+    private static boolean listsMembers(String list) {
+        if (list == null)
+            return false;
+        for (String attribute : list.split(",")) {
+            String a = attribute.trim().toLowerCase(Locale.ROOT);
+            if (a.startsWith(GROUP_URN_PREFIX))
+                a = a.substring(GROUP_URN_PREFIX.length());
+            if (a.equals("members") || a.startsWith("members."))
+                return true;
+        }
+        return false;
+    }
+}
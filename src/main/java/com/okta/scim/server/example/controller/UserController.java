@@ -5,17 +5,23 @@
  */
 package com.okta.scim.server.example.controller;
 
+import com.okta.scim.server.example.audit.AuditLog;
+import com.okta.scim.server.example.cache.UserResponseCache.RenderedUser;
 import com.okta.scim.server.example.dto.UserDTO;
 import com.okta.scim.server.example.entity.UserEntity;
+import com.okta.scim.server.example.repository.UserProjection;
+import com.okta.scim.server.example.repository.UserUpsertResult;
+import com.okta.scim.server.example.serializer.ETags;
 import com.okta.scim.server.example.service.UserService;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -29,11 +35,17 @@ public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
     @Autowired
-    private ObjectMapper objectMapper;
+    private AuditLog auditLog;
 
     @Autowired
     private UserService userService;
 
+    @Value("${scim.users.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${scim.users.max-page-size:1000}")
+    private int maxPageSize;
+
     /**
      * Creates or reactivates a SCIM user.
      *
@@ -42,15 +54,15 @@ public class UserController {
      */
     @PostMapping
     public ResponseEntity<Map<String, Object>> createUser(@RequestBody UserDTO userDTO) {
-        logger.info("POST /Users called");
-        logAsJson("Incoming userDTO", userDTO);
+        logger.debug("POST /Users called");
+        UserUpsertResult result = userService.createOrReactivateUser(userDTO);
+        UserEntity savedEntity = result.user();
+        HttpStatus status = result.created() ? HttpStatus.CREATED : HttpStatus.OK;
+        auditLog.write(result.created() ? "user.create" : "user.reactivate", savedEntity, status.value());
 
-        UserEntity savedEntity = userService.createOrReactivateUser(userDTO);
-        boolean isNew = savedEntity.getScimId() == null;
-
-        logAsJson("Saved to DB", savedEntity);
-        logger.info("POST /Users end");
-        return ResponseEntity.status(isNew ? HttpStatus.CREATED : HttpStatus.OK)
+        logger.debug("POST /Users end");
+        return ResponseEntity.status(status)
+                .eTag(ETags.format(savedEntity.getVersion()))
                 .body(userService.buildSCIMResponse(savedEntity));
     }
 
@@ -59,71 +71,115 @@ public class UserController {
      *
      * @param scimId  SCIM user ID
      * @param userDTO updated user data
+     * @param ifMatch optional ETag the user must still have
      * @return updated SCIM user response
      */
     @PutMapping("/{scimId}")
-    public ResponseEntity<Map<String, Object>> putUser(@PathVariable Long scimId, @RequestBody UserDTO userDTO) {
-        logger.info("PUT /Users/{} called", scimId);
-        UserEntity updated = userService.updateUser(scimId, userDTO);
-        logger.info("PUT /Users end");
-        return ResponseEntity.ok(userService.buildSCIMResponse(updated));
+    public ResponseEntity<Map<String, Object>> putUser(@PathVariable Long scimId, @RequestBody UserDTO userDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.debug("PUT /Users/{} called", scimId);
+        UserEntity updated = userService.updateUser(scimId, userDTO, ifMatch);
+        auditLog.write("user.replace", updated, HttpStatus.OK.value());
+        logger.debug("PUT /Users end");
+        return ResponseEntity.ok().eTag(ETags.format(updated.getVersion())).body(userService.buildSCIMResponse(updated));
     }
 
     /**
-     * Gets all users or filters by query parameter.
+     * Gets a page of users, optionally filtered by query parameter. The ListResponse is
+     * streamed to the client as rows are read from the database; with
+     * {@code attributes} or {@code excludedAttributes} only those columns are read.
      *
-     * @param filter optional filter (e.g., userName eq "john")
-     * @return list of matching users
+     * @param filter             optional filter (e.g., userName eq "john")
+     * @param startIndex         1-based index of the first result (default 1)
+     * @param count              page size (default and upper bound are configurable)
+     * @param attributes         optional attributes to return, e.g. {@code userName,active}
+     * @param excludedAttributes optional attributes to omit
+     * @param response           servlet response the list is written to
+     * @throws IOException if writing the response fails
      */
     @GetMapping
-    public ResponseEntity<Map<String, Object>> getUsers(@RequestParam(required = false) String filter) {
-        logger.info("GET /Users filter: {}", filter);
-        Map<String, Object> response = userService.getUsers(filter);
-        logger.info("GET /Users end");
-        return ResponseEntity.ok(response);
+    public void getUsers(@RequestParam(required = false) String filter,
+            @RequestParam(required = false) Integer startIndex,
+            @RequestParam(required = false) Integer count,
+            @RequestParam(required = false) String attributes,
+            @RequestParam(required = false) String excludedAttributes,
+            HttpServletResponse response) throws IOException {
+        logger.debug("GET /Users filter: {} startIndex: {} count: {}", filter, startIndex, count);
+        int start = startIndex == null || startIndex < 1 ? 1 : startIndex;
+        int size = count == null ? defaultPageSize : Math.max(0, Math.min(count, maxPageSize));
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        userService.writeUsers(filter, start, size, UserProjection.of(attributes, excludedAttributes),
+                response.getOutputStream());
+        logger.debug("GET /Users end");
     }
 
     /**
-     * Gets a SCIM user by ID.
+     * Gets a SCIM user by ID. The body is served from pre-rendered bytes, gzipped when
+     * the client accepts it; a matching If-None-Match is answered with 304 and no body.
      *
-     * @param scimId SCIM user ID
+     * @param scimId             SCIM user ID
+     * @param attributes         optional attributes to return
+     * @param excludedAttributes optional attributes to omit
+     * @param ifNoneMatch        optional ETag(s) the client already has
+     * @param acceptEncoding     client's Accept-Encoding header
      * @return user details if found
      */
     @GetMapping("/{scimId}")
-    public ResponseEntity<Map<String, Object>> getUser(@PathVariable Long scimId) {
-        UserEntity user = userService.getByScimId(scimId);
-        if (user == null)
+    public ResponseEntity<byte[]> getUser(@PathVariable Long scimId,
+            @RequestParam(required = false) String attributes,
+            @RequestParam(required = false) String excludedAttributes,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        UserEntity entity = userService.getByScimId(scimId);
+        if (entity == null)
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        return ResponseEntity.ok(userService.buildSCIMResponse(user));
+        String eTag = ETags.format(entity.getVersion());
+        if (ETags.matches(ifNoneMatch, entity.getVersion())) {
+            auditLog.read("user.read", entity, HttpStatus.NOT_MODIFIED.value());
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        auditLog.read("user.read", entity, HttpStatus.OK.value());
+
+        RenderedUser user = userService.render(entity, UserProjection.of(attributes, excludedAttributes));
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (user.gzipped() != null && acceptsGzip(acceptEncoding))
+            return ok.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(user.gzipped());
+        return ok.body(user.json());
     }
 
     /**
-     * Soft deletes (deactivates) a user.
+     * Applies SCIM PATCH operations to a user, e.g. to deactivate it.
      *
      * @param scimId       SCIM user ID
      * @param patchRequest patch operations
+     * @param ifMatch      optional ETag the user must still have
      * @return patched user response
      */
     @PatchMapping("/{scimId}")
     public ResponseEntity<Map<String, Object>> patchUser(@PathVariable Long scimId,
-            @RequestBody Map<String, Object> patchRequest) {
-        logger.info("PATCH /Users/{} payload: {}", scimId, patchRequest);
-        UserEntity patched = userService.patchUser(scimId, patchRequest);
+            @RequestBody Map<String, Object> patchRequest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.debug("PATCH /Users/{} called", scimId);
+        UserEntity patched = userService.patchUser(scimId, patchRequest, ifMatch);
         if (patched == null)
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
-        logger.info("PATCH /Users end");
-        return ResponseEntity.ok(userService.buildSCIMResponse(patched));
+        auditLog.write("user.patch", patched, HttpStatus.OK.value());
+        logger.debug("PATCH /Users end");
+        return ResponseEntity.ok().eTag(ETags.format(patched.getVersion())).body(userService.buildSCIMResponse(patched));
     }
 
-    /**
-     * Logs object as JSON for debugging.
-     */
-    private void logAsJson(String prefix, Object obj) {
-        try {
-            logger.info("{}: {}", prefix, objectMapper.writeValueAsString(obj));
-        } catch (JsonProcessingException e) {
-            logger.warn("{}: [could not serialize]", prefix);
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip"))
+                return parts.length < 2 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
         }
+        return false;
     }
-
 }
@@ -0,0 +1,89 @@
+/**
+ * UserTransferController.java
+ *
+ * Admin endpoints for exporting and importing the users directory as NDJSON.
+ */
+package com.okta.scim.server.example.controller;
+
+import com.okta.scim.server.example.auth.ScimClient;
+import com.okta.scim.server.example.exception.ScimException;
+import com.okta.scim.server.example.service.UserTransferService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streams the whole users table out as NDJSON (one SCIM User per line) and creates users
+ * from the same format. Both run in constant memory, so they suit directories far larger
+ * than a SCIM list page or BulkRequest. Only clients listed in {@code scim.admin.clients}
+ * may call them.
+ */
+@RestController
+@RequestMapping("/admin/users")
+public class UserTransferController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserTransferController.class);
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private UserTransferService userTransferService;
+
+    @Value("${scim.admin.clients:okta}")
+    private Set<String> adminClients;
+
+    /**
+     * Writes every user, in SCIM ID order, one JSON object per line.
+     *
+     * @param request  incoming HTTP request
+     * @param response HTTP response the export is streamed to
+     * @throws IOException if writing fails
+     */
+    @GetMapping("/export")
+    public void exportUsers(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String client = requireAdmin(request);
+        logger.debug("GET /admin/users/export called");
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(NDJSON);
+        long exported = userTransferService.exportUsers(response.getOutputStream());
+        logger.info("Client {} exported {} users", client, exported);
+    }
+
+    /**
+     * Creates users from an {@code application/x-ndjson} body. Lines whose userName or externalId already exists
+     * are skipped; malformed lines are reported in the summary and do not stop the import.
+     *
+     * @param request incoming HTTP request carrying the NDJSON body
+     * @return summary with imported, skipped and failed counts
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping(path = "/import", consumes = NDJSON)
+    public ResponseEntity<Map<String, Object>> importUsers(HttpServletRequest request) throws IOException {
+        String client = requireAdmin(request);
+        logger.debug("POST /admin/users/import called");
+        Map<String, Object> summary = userTransferService.importUsers(request.getInputStream());
+        logger.info("Client {} imported users: {}", client, summary.entrySet().stream()
+                .filter(e -> !"errors".equals(e.getKey())).toList());
+        return ResponseEntity.ok(summary);
+    }
+
+    private String requireAdmin(HttpServletRequest request) {
+        if (request.getAttribute(ScimClient.REQUEST_ATTRIBUTE) instanceof ScimClient client
+                && adminClients.contains(client.id()))
+            return client.id();
+        throw new ScimException(HttpStatus.FORBIDDEN, null, "Client is not allowed to export or import users");
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * ReplicaSet.java
+ *
+ * Read replicas, their health and lag, and the DataSource read-only work is routed to.
+ */
+package com.okta.scim.server.example.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Chooses where a read-only connection comes from. A replica is used only while its last
+ * probe succeeded and its lag was within {@code maxLag}; replicas take turns. The primary
+ * serves the read instead when the caller must see its own recent writes, when no replica
+ * is usable, or when the chosen replica fails to hand out a connection.
+ * <p>
+ * Lag is measured with a heartbeat row ({@code scim_heartbeat}): every check writes the
+ * current time on the primary and reads the replicated value back from each replica.
+ */
+public class ReplicaSet implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaSet.class);
+
+    private static final String WRITE_BEAT = "UPDATE scim_heartbeat SET beat_millis = ? WHERE id = 1";
+    private static final String READ_BEAT = "SELECT beat_millis FROM scim_heartbeat WHERE id = 1";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final BooleanSupplier readYourWrites;
+    private final Duration checkInterval;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checker;
+    private final DataSource readOnlyDataSource = new ReadOnlyDataSource();
+
+    private final Counter replicaReads;
+    private final Counter stickyReads;
+    private final Counter fallbackReads;
+
+    /**
+     * @param primary        primary DataSource
+     * @param replicas       replica pools by name; closed with this set
+     * @param readYourWrites true while the current caller must read from the primary
+     * @param checkInterval  time between health and lag probes
+     * @param maxLag         largest lag at which a replica still serves reads
+     * @param meterRegistry  registry for routing and lag metrics
+     */
+    public ReplicaSet(DataSource primary, Map<String, DataSource> replicas, BooleanSupplier readYourWrites,
+            Duration checkInterval, Duration maxLag, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.readYourWrites = readYourWrites;
+        this.checkInterval = checkInterval;
+        this.maxLagMillis = maxLag.toMillis();
+        replicas.forEach((name, dataSource) -> {
+            Replica replica = new Replica(name, dataSource);
+            this.replicas.add(replica);
+            Gauge.builder("scim.db.replica.usable", replica, r -> r.usable ? 1 : 0)
+                    .description("Whether the replica currently serves reads")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+            Gauge.builder("scim.db.replica.lag", replica, r -> r.lagMillis / 1000.0)
+                    .description("Replica lag measured by the last heartbeat probe; -1 when the probe failed")
+                    .tag("replica", name)
+                    .baseUnit("seconds")
+                    .register(meterRegistry);
+        });
+        this.replicaReads = readCounter(meterRegistry, "replica", "replica");
+        this.stickyReads = readCounter(meterRegistry, "primary", "read-your-writes");
+        this.fallbackReads = readCounter(meterRegistry, "primary", "no-usable-replica");
+        this.checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "scim-replica-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static Counter readCounter(MeterRegistry registry, String target, String reason) {
+        return Counter.builder("scim.db.reads")
+                .description("Read-only connections by where they were routed and why")
+                .tag("target", target)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /**
+     * Starts the periodic probes. Until the first probe succeeds every read goes to the
+     * primary.
+     */
+    public void start() {
+        checker.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return DataSource for read-only transactions, routing as described above
+     */
+    public DataSource readOnlyDataSource() {
+        return readOnlyDataSource;
+    }
+
+    /**
+     * Returns whether the current transaction may be served by a replica, i.e. its rows
+     * may be stale. Callers use it to keep such rows out of shared caches.
+     *
+     * @return true for a read-only transaction of a caller without recent writes
+     */
+    public boolean mayReadStale() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !readYourWrites.getAsBoolean();
+    }
+
+    private Connection readOnlyConnection(String username, String password) throws SQLException {
+        if (readYourWrites.getAsBoolean()) {
+            stickyReads.increment();
+            return connect(primary, username, password);
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.usable)
+                continue;
+            try {
+                Connection connection = connect(replica.dataSource, username, password);
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.markUnusable("connection failed: " + e.getMessage());
+            }
+        }
+        fallbackReads.increment();
+        return connect(primary, username, password);
+    }
+
+    private static Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+    private void check() {
+        long beat = System.currentTimeMillis();
+        try (Connection connection = primary.getConnection();
+                PreparedStatement statement = connection.prepareStatement(WRITE_BEAT)) {
+            statement.setLong(1, beat);
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            logger.warn("Could not write the replica heartbeat on the primary: {}", e.getMessage());
+        }
+        for (Replica replica : replicas) {
+            try {
+                replica.check(beat);
+            } catch (RuntimeException e) { // an escaping exception would cancel the schedule
+                replica.lagMillis = -1000;
+                replica.markUnusable("probe failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * Stops the probes and closes the replica pools.
+     */
+    @Override
+    public void close() {
+        checker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    logger.warn("Could not close replica pool {}", replica.name, e);
+                }
+            }
+        }
+    }
+
+    private final class Replica {
+
+        final String name;
+        final DataSource dataSource;
+        volatile boolean usable;
+        volatile long lagMillis = -1000;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void check(long beat) {
+            long replicated;
+            try (Connection connection = dataSource.getConnection();
+                    PreparedStatement statement = connection.prepareStatement(READ_BEAT)) {
+                statement.setQueryTimeout((int) Math.max(1, checkInterval.toSeconds()));
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (!rs.next()) {
+                        lagMillis = -1000;
+                        markUnusable("no heartbeat row");
+                        return;
+                    }
+                    replicated = rs.getLong(1);
+                }
+            } catch (SQLException e) {
+                lagMillis = -1000;
+                markUnusable("probe failed: " + e.getMessage());
+                return;
+            }
+            lagMillis = Math.max(0, beat - replicated);
+            if (lagMillis > maxLagMillis) {
+                markUnusable("lag " + lagMillis + " ms exceeds " + maxLagMillis + " ms");
+            } else if (!usable) {
+                usable = true;
+                logger.info("Replica {} is serving reads (lag {} ms)", name, lagMillis);
+            }
+        }
+
+        void markUnusable(String reason) {
+            if (usable)
+                logger.warn("Replica {} stopped serving reads: {}", name, reason);
+            else
+                logger.debug("Replica {} is still not serving reads: {}", name, reason);
+            usable = false;
+        }
+    }
+
+    /**
+     * The DataSource handed to {@code LazyConnectionDataSourceProxy} for connections that
+     * are marked read-only before their first statement.
+     */
+    private final class ReadOnlyDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return readOnlyConnection(null, null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return readOnlyConnection(username, password);
+        }
+    }
+}
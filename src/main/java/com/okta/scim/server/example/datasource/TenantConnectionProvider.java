@@ -0,0 +1,51 @@
+/**
+ * TenantConnectionProvider.java
+ *
+ * Hibernate's view of the tenants: which one a session belongs to and where its
+ * connections come from.
+ */
+package com.okta.scim.server.example.datasource;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.hibernate.engine.jdbc.connections.spi.AbstractDataSourceBasedMultiTenantConnectionProviderImpl;
+
+import javax.sql.DataSource;
+
+/**
+ * Makes Hibernate multi-tenant. Each session is opened for {@link TenantContext#current()}
+ * and takes its connections from that tenant's pool. Hibernate then also qualifies its
+ * second-level entity and natural-id cache keys with the tenant, so tenants share the
+ * cache regions without seeing each other's rows.
+ */
+public class TenantConnectionProvider extends AbstractDataSourceBasedMultiTenantConnectionProviderImpl<String>
+        implements CurrentTenantIdentifierResolver<String> {
+
+    private final transient TenantRoutingDataSource dataSource;
+
+    /**
+     * @param dataSource routing DataSource holding the tenant pools
+     */
+    public TenantConnectionProvider(TenantRoutingDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    protected DataSource selectAnyDataSource() {
+        return dataSource.defaultDataSource();
+    }
+
+    @Override
+    protected DataSource selectDataSource(String tenant) {
+        return dataSource.dataSourceFor(tenant);
+    }
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        return TenantContext.current();
+    }
+
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return true;
+    }
+}
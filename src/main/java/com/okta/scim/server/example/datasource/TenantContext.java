@@ -0,0 +1,68 @@
+/**
+ * TenantContext.java
+ *
+ * The tenant whose database and cache entries the current thread works with.
+ */
+package com.okta.scim.server.example.datasource;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.function.Supplier;
+
+/**
+ * Resolves the current tenant. A SCIM request carries the tenant that
+ * {@code AuthInterceptor} resolved from its bearer token under {@link #REQUEST_ATTRIBUTE};
+ * background work (the archive job, startup checks) selects one explicitly with
+ * {@link #callAs}. Everything else, and every request in single-tenant mode, belongs to
+ * {@link #DEFAULT}, whose data lives in {@code spring.datasource}.
+ */
+public final class TenantContext {
+
+    /** Tenant of {@code spring.datasource}, and of clients not mapped to another tenant. */
+    public static final String DEFAULT = "default";
+
+    /** Request attribute holding the tenant ID of an authenticated request. */
+    public static final String REQUEST_ATTRIBUTE = TenantContext.class.getName();
+
+    private static final ThreadLocal<String> SELECTED = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    /**
+     * @return the tenant selected on this thread, else the current request's, else
+     *         {@link #DEFAULT}
+     */
+    public static String current() {
+        String selected = SELECTED.get();
+        if (selected != null)
+            return selected;
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof String tenant)
+            return tenant;
+        return DEFAULT;
+    }
+
+    /**
+     * Runs work on behalf of a tenant, e.g. from a background thread.
+     *
+     * @param tenant tenant ID
+     * @param work   work to run
+     * @param <T>    result type
+     * @return the work's result
+     */
+    public static <T> T callAs(String tenant, Supplier<T> work) {
+        String previous = SELECTED.get();
+        SELECTED.set(tenant);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null)
+                SELECTED.set(previous);
+            else
+                SELECTED.remove();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+/**
+ * TenantKey.java
+ *
+ * Cache key qualified by tenant.
+ */
+package com.okta.scim.server.example.datasource;
+
+/**
+ * Key of an in-memory cache shared by all tenants. SCIM IDs and externalIds are only
+ * unique within a tenant, so every such cache keys its entries with the tenant as well.
+ *
+ * @param tenant tenant ID
+ * @param key    key within the tenant
+ * @param <K>    key type
+ */
+public record TenantKey<K>(String tenant, K key) {
+
+    /**
+     * @param key key within the current tenant
+     * @param <K> key type
+     * @return the key qualified by {@link TenantContext#current()}
+     */
+    public static <K> TenantKey<K> of(K key) {
+        return new TenantKey<>(TenantContext.current(), key);
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * TenantRegistry.java
+ *
+ * The tenants of a multi-tenant deployment, their clients and their connection pools.
+ */
+package com.okta.scim.server.example.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Each tenant other than {@link TenantContext#DEFAULT} has its own database (or schema)
+ * and its own bounded pool, so one org's load cannot take connections from another.
+ * Clients are mapped to tenants by client ID; a client without a mapping belongs to the
+ * default tenant.
+ */
+public class TenantRegistry implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TenantRegistry.class);
+
+    private final Map<String, HikariDataSource> dataSources;
+    private final Map<String, String> tenantByClient;
+
+    /**
+     * @param dataSources    pool per tenant, excluding the default tenant; closed with the registry
+     * @param tenantByClient tenant ID per client ID
+     */
+    public TenantRegistry(Map<String, HikariDataSource> dataSources, Map<String, String> tenantByClient) {
+        this.dataSources = dataSources;
+        this.tenantByClient = tenantByClient;
+    }
+
+    /**
+     * @param clientId authenticated client
+     * @return the client's tenant
+     */
+    public String tenantOf(String clientId) {
+        return tenantByClient.getOrDefault(clientId, TenantContext.DEFAULT);
+    }
+
+    /**
+     * @param tenant tenant ID
+     * @return the tenant's pool, or null for the default tenant and unknown tenants
+     */
+    public HikariDataSource dataSource(String tenant) {
+        return dataSources.get(tenant);
+    }
+
+    /**
+     * @return pools of the tenants other than the default one, by tenant ID
+     */
+    public Map<String, HikariDataSource> dataSources() {
+        return Collections.unmodifiableMap(dataSources);
+    }
+
+    /**
+     * @return every tenant ID, the default tenant first
+     */
+    public List<String> tenants() {
+        List<String> tenants = new ArrayList<>(dataSources.size() + 1);
+        tenants.add(TenantContext.DEFAULT);
+        tenants.addAll(dataSources.keySet());
+        return tenants;
+    }
+
+    /**
+     * Closes the tenant pools.
+     */
+    @Override
+    public void close() {
+        dataSources.forEach((tenant, dataSource) -> {
+            try {
+                dataSource.close();
+            } catch (RuntimeException e) {
+                logger.warn("Could not close the pool of tenant {}", tenant, e);
+            }
+        });
+    }
+}
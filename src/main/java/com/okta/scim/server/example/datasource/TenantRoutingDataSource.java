@@ -0,0 +1,79 @@
+/**
+ * TenantRoutingDataSource.java
+ *
+ * Hands out connections to the current tenant's database.
+ */
+package com.okta.scim.server.example.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Routes each connection request to the pool of {@link TenantContext#current()}. The
+ * default tenant keeps the application's original DataSource, so with read replicas
+ * configured its read-only transactions are still routed to them. An unknown tenant
+ * is an error rather than a fallback, so a misrouted request can never read another
+ * tenant's data.
+ * <p>
+ * {@code unwrap} reaches the default DataSource, so pool metrics and health checks see
+ * the same pool as without tenants.
+ */
+public class TenantRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource defaultDataSource;
+    private final Supplier<TenantRegistry> registry;
+
+    /**
+     * @param defaultDataSource DataSource of the default tenant
+     * @param registry          tenant pools, looked up on first use
+     */
+    public TenantRoutingDataSource(DataSource defaultDataSource, Supplier<TenantRegistry> registry) {
+        this.defaultDataSource = defaultDataSource;
+        this.registry = registry;
+    }
+
+    /**
+     * @param tenant tenant ID
+     * @return the tenant's DataSource
+     * @throws IllegalStateException if the tenant is not configured
+     */
+    public DataSource dataSourceFor(String tenant) {
+        if (TenantContext.DEFAULT.equals(tenant))
+            return defaultDataSource;
+        DataSource dataSource = registry.get().dataSource(tenant);
+        if (dataSource == null)
+            throw new IllegalStateException("No database configured for tenant " + tenant);
+        return dataSource;
+    }
+
+    /**
+     * @return DataSource of the default tenant
+     */
+    public DataSource defaultDataSource() {
+        return defaultDataSource;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return dataSourceFor(TenantContext.current()).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return dataSourceFor(TenantContext.current()).getConnection(username, password);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || defaultDataSource.isWrapperFor(iface);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : defaultDataSource.unwrap(iface);
+    }
+}
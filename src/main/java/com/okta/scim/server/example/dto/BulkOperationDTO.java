@@ -0,0 +1,66 @@
+
+/**
+ * BulkOperationDTO.java
+ *
+ * Data Transfer Object for a single operation inside a SCIM bulk request.
+ */
+package com.okta.scim.server.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.Map;
+
+/**
+ * Represents one entry of a BulkRequest's {@code Operations} array.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkOperationDTO {
+
+    private String method;
+    private String bulkId;
+    private String version;
+    private String path;
+    private Map<String, Object> data;
+
+    // ------------------ Getters & Setters ------------------ //
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getBulkId() {
+        return bulkId;
+    }
+
+    public void setBulkId(String bulkId) {
+        this.bulkId = bulkId;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Map<String, Object> getData() {
+        return data;
+    }
+
+    public void setData(Map<String, Object> data) {
+        this.data = data;
+    }
+}
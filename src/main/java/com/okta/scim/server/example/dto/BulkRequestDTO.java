@@ -0,0 +1,51 @@
+
+/**
+ * BulkRequestDTO.java
+ *
+ * Data Transfer Object for SCIM bulk requests (RFC 7644 §3.7).
+ */
+package com.okta.scim.server.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Represents a SCIM BulkRequest message.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkRequestDTO {
+
+    private List<String> schemas;
+    private Integer failOnErrors;
+
+    @JsonProperty("Operations")
+    private List<BulkOperationDTO> operations;
+
+    // ------------------ Getters & Setters ------------------ //
+
+    public List<String> getSchemas() {
+        return schemas;
+    }
+
+    public void setSchemas(List<String> schemas) {
+        this.schemas = schemas;
+    }
+
+    public Integer getFailOnErrors() {
+        return failOnErrors;
+    }
+
+    public void setFailOnErrors(Integer failOnErrors) {
+        this.failOnErrors = failOnErrors;
+    }
+
+    public List<BulkOperationDTO> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(List<BulkOperationDTO> operations) {
+        this.operations = operations;
+    }
+}
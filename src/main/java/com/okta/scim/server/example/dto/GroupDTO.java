@@ -0,0 +1,57 @@
+/**
+ * GroupDTO.java
+ *
+ * Data Transfer Object for SCIM group data.
+ * Used to transfer group information between API and service layers.
+ */
+package com.okta.scim.server.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * Represents a SCIM group in create and replace requests.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GroupDTO {
+
+    private String id;
+    private String displayName;
+    private String externalId;
+    private List<GroupMemberDTO> members;
+
+    // ------------------ Getters & Setters ------------------ //
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getExternalId() {
+        return externalId;
+    }
+
+    public void setExternalId(String externalId) {
+        this.externalId = externalId;
+    }
+
+    public List<GroupMemberDTO> getMembers() {
+        return members;
+    }
+
+    public void setMembers(List<GroupMemberDTO> members) {
+        this.members = members;
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * GroupMemberDTO.java
+ *
+ * Data Transfer Object for one member of a SCIM group.
+ */
+package com.okta.scim.server.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * A member reference as sent in {@code members}; only the {@code value} (the user's SCIM
+ * ID) is used, {@code display} is informational.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class GroupMemberDTO {
+
+    private String value;
+    private String display;
+
+    // ------------------ Getters & Setters ------------------ //
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public String getDisplay() {
+        return display;
+    }
+
+    public void setDisplay(String display) {
+        this.display = display;
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * GroupEntity.java
+ *
+ * Description:
+ *  Represents a SCIM group in the "scim_groups" table. Members are stored in the
+ *  "group_members" join table and are managed through GroupRepository, not mapped here.
+ *
+ * Project: Okta SCIM Server Example
+ */
+
+package com.okta.scim.server.example.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+
+/**
+ * The {@code GroupEntity} class defines the schema for the "scim_groups" table.
+ * <p>
+ * There is deliberately no member collection: a group may have tens of thousands of
+ * members, and a mapped collection would be loaded (or at least initialised) to change
+ * one of them. Membership rows are read and written with set-based statements instead.
+ */
+@Entity
+@Table(name = "scim_groups")
+@DynamicUpdate
+public class GroupEntity {
+
+    /** Number of SCIM IDs reserved per round trip to {@code groups_seq}. */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "groups_seq")
+    @SequenceGenerator(name = "groups_seq", sequenceName = "groups_seq", allocationSize = GroupEntity.ID_ALLOCATION_SIZE)
+    @Column(name = "scim_id", nullable = false, unique = true)
+    private Long scimId;
+
+    @Column(nullable = false)
+    private String displayName;
+
+    @Column(name = "external_id", unique = true)
+    private String externalId;
+
+    /**
+     * Optimistic-locking version, exposed as the ETag. Membership changes bump it too.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    // Getters and Setters
+    public Long getScimId() { return scimId; }
+    public void setScimId(Long scimId) { this.scimId = scimId; }
+
+    public String getDisplayName() { return displayName; }
+    public void setDisplayName(String displayName) { this.displayName = displayName; }
+
+    public String getExternalId() { return externalId; }
+    public void setExternalId(String externalId) { this.externalId = externalId; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+}
@@ -13,25 +13,57 @@
 package com.okta.scim.server.example.entity;
 
 import jakarta.persistence.*;
-import java.util.UUID;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 /**
  * The {@code UserEntity} class defines the schema for the "users" table.
  * It serves as the persistence model for SCIM user objects and contains
  * identifying information such as SCIM ID, external (Okta) ID, name, and email.
+ * <p>
+ * Rows and {@code userName} natural-id resolutions are kept in the second-level cache
+ * (regions configured in {@code hibernate-cache.conf}). Updates only write the columns
+ * that changed.
  */
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = UserEntity.CACHE_REGION)
+@NaturalIdCache(region = UserEntity.NATURAL_ID_CACHE_REGION)
+@DynamicUpdate
 public class UserEntity {
 
+    /** Second-level cache region for user rows, keyed by SCIM ID. */
+    public static final String CACHE_REGION = "users";
+
+    /** Second-level cache region resolving userName to SCIM ID. */
+    public static final String NATURAL_ID_CACHE_REGION = "users-natural-id";
+
+    /** Number of SCIM IDs reserved per round trip to {@code users_seq}. */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    /**
+     * Allocated from the pooled {@code users_seq} generator (a sequence, or a one-row table
+     * on MySQL) in blocks of {@link #ID_ALLOCATION_SIZE}, so IDs are known before INSERT and
+     * Hibernate can batch inserts. IDENTITY columns would force one round trip per row.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Auto-increment by database
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = UserEntity.ID_ALLOCATION_SIZE)
     @Column(name = "scim_id", nullable = false, unique = true)
-    private Long scimId; // 👈 change to Long or Integer for auto-increment
+    private Long scimId;
 
     @Column(name = "external_id", unique = true)
     private String externalId;
 
+    @NaturalId(mutable = true)
     @Column(nullable = false, unique = true)
     private String userName;
 
@@ -47,6 +79,28 @@ public class UserEntity {
     @Column(nullable = false)
     private Boolean active = true;
 
+    /**
+     * Optimistic-locking version, bumped on every update and exposed as the ETag and
+     * {@code meta.version}. Concurrent writers are detected by the versioned UPDATE
+     * instead of holding row locks.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    /** When the user was created; exposed as {@code meta.created}. */
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private Instant created;
+
+    /**
+     * When any attribute last changed; exposed as {@code meta.lastModified} and indexed
+     * together with the SCIM ID for {@code meta.lastModified gt} change queries.
+     */
+    @UpdateTimestamp
+    @Column(name = "last_modified", nullable = false)
+    private Instant lastModified;
+
     public UserEntity() {
         this.active = true;
         // ❌ Do NOT assign scimId here anymore — database will handle it.
@@ -73,14 +127,13 @@ public class UserEntity {
 
     public Boolean getActive() { return active; }
     public void setActive(Boolean active) { this.active = active; }
-}
-
-
-
-
-
-
-
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 
+    public Instant getCreated() { return created; }
+    public void setCreated(Instant created) { this.created = created; }
 
+    public Instant getLastModified() { return lastModified; }
+    public void setLastModified(Instant lastModified) { this.lastModified = lastModified; }
+}
@@ -0,0 +1,37 @@
+/**
+ * ScimException.java
+ *
+ * Runtime exception carrying the HTTP status and SCIM error type to report.
+ */
+package com.okta.scim.server.example.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Signals a SCIM protocol error (RFC 7644 §3.12). Rendered as a SCIM Error response by
+ * {@link ScimExceptionHandler}.
+ */
+public class ScimException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final String scimType;
+
+    /**
+     * @param status   HTTP status to return
+     * @param scimType SCIM error type (e.g. "invalidFilter"), may be null
+     * @param detail   human-readable detail
+     */
+    public ScimException(HttpStatus status, String scimType, String detail) {
+        super(detail);
+        this.status = status;
+        this.scimType = scimType;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getScimType() {
+        return scimType;
+    }
+}
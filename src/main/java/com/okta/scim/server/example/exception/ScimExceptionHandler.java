@@ -0,0 +1,88 @@
+/**
+ * ScimExceptionHandler.java
+ *
+ * Translates exceptions raised by SCIM endpoints into SCIM Error responses.
+ */
+package com.okta.scim.server.example.exception;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders {@link ScimException} as an RFC 7644 §3.12 error body.
+ */
+@RestControllerAdvice
+public class ScimExceptionHandler {
+
+    public static final String ERROR_SCHEMA = "urn:ietf:params:scim:api:messages:2.0:Error";
+
+    /**
+     * Builds the SCIM error response for a {@link ScimException}.
+     *
+     * @param ex exception raised by a controller or service
+     * @return SCIM error response
+     */
+    @ExceptionHandler(ScimException.class)
+    public ResponseEntity<Map<String, Object>> handleScimException(ScimException ex) {
+        return ResponseEntity.status(ex.getStatus())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorBody(ex.getStatus().value(), ex.getScimType(), ex.getMessage()));
+    }
+
+    /**
+     * Builds the SCIM 429 response, including {@code Retry-After}.
+     *
+     * @param ex load-shedding rejection
+     * @return SCIM error response
+     */
+    @ExceptionHandler(ScimTooManyRequestsException.class)
+    public ResponseEntity<Map<String, Object>> handleTooManyRequests(ScimTooManyRequestsException ex) {
+        return ResponseEntity.status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorBody(ex.getStatus().value(), ex.getScimType(), ex.getMessage()));
+    }
+
+    /**
+     * Reports a write that lost an optimistic-locking race as 412, so clients re-read
+     * the resource and retry with its new ETag.
+     *
+     * @param ex optimistic-locking failure from the persistence layer
+     * @return SCIM error response
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, Object>> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorBody(HttpStatus.PRECONDITION_FAILED.value(), null,
+                        "The resource was modified concurrently"));
+    }
+
+    /**
+     * Builds a SCIM error body.
+     *
+     * @param status   HTTP status code
+     * @param scimType SCIM error type, omitted when null
+     * @param detail   human-readable detail, omitted when null
+     * @return map representing the SCIM error
+     */
+    public static Map<String, Object> errorBody(int status, String scimType, String detail) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("schemas", List.of(ERROR_SCHEMA));
+        body.put("status", String.valueOf(status));
+        if (scimType != null)
+            body.put("scimType", scimType);
+        if (detail != null)
+            body.put("detail", detail);
+        return body;
+    }
+}
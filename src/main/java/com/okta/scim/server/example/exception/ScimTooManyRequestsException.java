@@ -0,0 +1,30 @@
+/**
+ * ScimTooManyRequestsException.java
+ *
+ * 429 response telling the client when to retry.
+ */
+package com.okta.scim.server.example.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Signals that the server is shedding load. Rendered as a SCIM Error with status 429 and
+ * a {@code Retry-After} header, which Okta honours before retrying.
+ */
+public class ScimTooManyRequestsException extends ScimException {
+
+    private final long retryAfterSeconds;
+
+    /**
+     * @param detail            human-readable detail
+     * @param retryAfterSeconds seconds the client should wait before retrying
+     */
+    public ScimTooManyRequestsException(String detail, long retryAfterSeconds) {
+        super(HttpStatus.TOO_MANY_REQUESTS, null, detail);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
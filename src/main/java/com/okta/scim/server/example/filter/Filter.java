@@ -0,0 +1,113 @@
+/**
+ * Filter.java
+ *
+ * Abstract syntax tree for SCIM filter expressions (RFC 7644 §3.4.2.2).
+ */
+package com.okta.scim.server.example.filter;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A parsed SCIM filter. Instances are immutable and safe to share between requests.
+ */
+public sealed interface Filter {
+
+    /**
+     * Collects the (lower-cased) attribute paths referenced by this filter.
+     *
+     * @param into set receiving the attribute paths
+     */
+    void collectAttributes(Set<String> into);
+
+    /**
+     * Returns the filter with its comparison values removed, e.g.
+     * {@code (username eq and active eq)}; used to group metrics by filter shape.
+     *
+     * @return value-free rendering of the filter
+     */
+    String shape();
+
+    /**
+     * {@code attrPath op value}, e.g. {@code userName eq "bjensen"}.
+     *
+     * @param attribute lower-cased attribute path, e.g. "name.givenname"
+     * @param operator  comparison operator (never {@link FilterOperator#PR})
+     * @param value     String, Boolean, Number or null
+     */
+    record Comparison(String attribute, FilterOperator operator, Object value) implements Filter {
+        @Override
+        public void collectAttributes(Set<String> into) {
+            into.add(attribute);
+        }
+
+        @Override
+        public String shape() {
+            return attribute + " " + operator.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * {@code attrPath pr}.
+     *
+     * @param attribute lower-cased attribute path
+     */
+    record Present(String attribute) implements Filter {
+        @Override
+        public void collectAttributes(Set<String> into) {
+            into.add(attribute);
+        }
+
+        @Override
+        public String shape() {
+            return attribute + " pr";
+        }
+    }
+
+    /**
+     * {@code left and right}.
+     */
+    record And(Filter left, Filter right) implements Filter {
+        @Override
+        public void collectAttributes(Set<String> into) {
+            left.collectAttributes(into);
+            right.collectAttributes(into);
+        }
+
+        @Override
+        public String shape() {
+            return "(" + left.shape() + " and " + right.shape() + ")";
+        }
+    }
+
+    /**
+     * {@code left or right}.
+     */
+    record Or(Filter left, Filter right) implements Filter {
+        @Override
+        public void collectAttributes(Set<String> into) {
+            left.collectAttributes(into);
+            right.collectAttributes(into);
+        }
+
+        @Override
+        public String shape() {
+            return "(" + left.shape() + " or " + right.shape() + ")";
+        }
+    }
+
+    /**
+     * {@code not (inner)}.
+     */
+    record Not(Filter inner) implements Filter {
+        @Override
+        public void collectAttributes(Set<String> into) {
+            inner.collectAttributes(into);
+        }
+
+        @Override
+        public String shape() {
+            return "not (" + inner.shape() + ")";
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * FilterCache.java
+ *
+ * Bounded cache of parsed SCIM filters.
+ */
+package com.okta.scim.server.example.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches {@link Filter} trees by their exact filter string. Okta sends a handful of
+ * filter shapes over and over, so most requests skip tokenizing and parsing entirely.
+ * Hit ratio and parse time are published as {@code cache.*{cache="scim.filters"}} and
+ * {@code scim.filter.parse}.
+ */
+@Component
+public class FilterCache {
+
+    private final Cache<String, Filter> filters;
+    private final Timer parseTimer;
+
+    /**
+     * @param maxEntries    maximum number of cached filter strings
+     * @param meterRegistry registry the cache and parse metrics are bound to
+     */
+    public FilterCache(@Value("${scim.filter.cache-size:1024}") int maxEntries, MeterRegistry meterRegistry) {
+        this.filters = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .recordStats()
+                .build();
+        this.parseTimer = Timer.builder("scim.filter.parse")
+                .description("Time to parse a SCIM filter not found in the cache")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, filters, "scim.filters");
+    }
+
+    /**
+     * Returns the parsed filter, parsing and caching it on first use.
+     *
+     * @param filter SCIM filter string
+     * @return parsed filter tree
+     */
+    public Filter get(String filter) {
+        return filters.get(filter, f -> parseTimer.record(() -> FilterParser.parse(f)));
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * FilterOperator.java
+ *
+ * SCIM filter attribute operators.
+ */
+package com.okta.scim.server.example.filter;
+
+import java.util.Locale;
+
+/**
+ * Attribute operators defined by RFC 7644 §3.4.2.2.
+ */
+public enum FilterOperator {
+    EQ, NE, CO, SW, EW, GT, GE, LT, LE, PR;
+
+    /**
+     * Resolves an operator token, case-insensitively.
+     *
+     * @param token operator as written in the filter
+     * @return operator, or null if the token is not an operator
+     */
+    public static FilterOperator fromToken(String token) {
+        try {
+            return valueOf(token.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/**
+ * FilterParser.java
+ *
+ * Recursive-descent parser for SCIM filter expressions.
+ */
+package com.okta.scim.server.example.filter;
+
+import com.okta.scim.server.example.exception.ScimException;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Parses RFC 7644 §3.4.2.2 filters into a {@link Filter} tree.
+ * <p>
+ * Supported: all attribute operators, {@code and}/{@code or}/{@code not}, grouping
+ * parentheses, value paths such as {@code emails[type eq "work"]} (flattened to
+ * {@code emails.type eq "work"}), and schema-qualified attribute names. Groups, {@code not}
+ * and value paths nest at most {@value #MAX_DEPTH} levels deep, and a filter joins at most
+ * {@value #MAX_OPERATORS} terms with {@code and}/{@code or}. A chain of terms becomes a
+ * left-deep tree, so together the two limits bound the recursion here and in everything
+ * that walks the tree.
+ * Malformed input raises a {@link ScimException} with {@code scimType=invalidFilter}.
+ */
+public final class FilterParser {
+
+    /** Deepest nesting of parentheses, {@code not} and value paths accepted. */
+    public static final int MAX_DEPTH = 32;
+
+    /** Most {@code and}/{@code or} operators accepted in one filter. */
+    public static final int MAX_OPERATORS = 100;
+
+    private static final String SCHEMA_PREFIX = "urn:";
+
+    private final List<String> tokens;
+    private int pos;
+    private int depth;
+    private int operators;
+
+    private FilterParser(List<String> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Parses a filter string.
+     *
+     * @param filter SCIM filter, e.g. {@code userName eq "bjensen"}
+     * @return parsed filter tree
+     */
+    public static Filter parse(String filter) {
+        if (filter == null || filter.isBlank())
+            throw invalid("Filter is empty");
+        FilterParser parser = new FilterParser(tokenize(filter));
+        Filter result = parser.parseOr(null);
+        if (parser.pos < parser.tokens.size())
+            throw invalid("Unexpected token '" + parser.tokens.get(parser.pos) + "'");
+        return result;
+    }
+
+    // ------------------ Grammar ------------------ //
+
+    private Filter parseOr(String prefix) {
+        Filter left = parseAnd(prefix);
+        while (acceptKeyword("or")) {
+            countOperator();
+            left = new Filter.Or(left, parseAnd(prefix));
+        }
+        return left;
+    }
+
+    private Filter parseAnd(String prefix) {
+        Filter left = parseUnary(prefix);
+        while (acceptKeyword("and")) {
+            countOperator();
+            left = new Filter.And(left, parseUnary(prefix));
+        }
+        return left;
+    }
+
+    private void countOperator() {
+        if (++operators > MAX_OPERATORS)
+            throw invalid("Filter has more than " + MAX_OPERATORS + " and/or operators");
+    }
+
+    private Filter parseUnary(String prefix) {
+        if (acceptKeyword("not")) {
+            expect("(");
+            Filter inner = parseNested(prefix);
+            expect(")");
+            return new Filter.Not(inner);
+        }
+        if (accept("(")) {
+            Filter inner = parseNested(prefix);
+            expect(")");
+            return inner;
+        }
+        return parseAttributeExpression(prefix);
+    }
+
+    private Filter parseNested(String prefix) {
+        if (++depth > MAX_DEPTH)
+            throw invalid("Filter is nested more than " + MAX_DEPTH + " levels deep");
+        Filter inner = parseOr(prefix);
+        depth--;
+        return inner;
+    }
+
+    private Filter parseAttributeExpression(String prefix) {
+        String attribute = normalizeAttribute(next("attribute path"));
+        if (prefix != null)
+            attribute = prefix + "." + attribute;
+
+        if (accept("[")) {
+            if (prefix != null)
+                throw invalid("Nested value paths are not allowed");
+            Filter inner = parseNested(attribute);
+            expect("]");
+            return inner;
+        }
+
+        String opToken = next("operator");
+        FilterOperator operator = FilterOperator.fromToken(opToken);
+        if (operator == null)
+            throw invalid("Unknown operator '" + opToken + "'");
+        if (operator == FilterOperator.PR)
+            return new Filter.Present(attribute);
+        return new Filter.Comparison(attribute, operator, parseValue(next("comparison value")));
+    }
+
+    private static Object parseValue(String token) {
+        if (token.startsWith("\""))
+            return token.substring(1);
+        switch (token.toLowerCase(Locale.ROOT)) {
+            case "true":
+                return Boolean.TRUE;
+            case "false":
+                return Boolean.FALSE;
+            case "null":
+                return null;
+            default:
+                try {
+                    return new BigDecimal(token);
+                } catch (NumberFormatException e) {
+                    throw invalid("Invalid comparison value '" + token + "'");
+                }
+        }
+    }
+
+    /**
+     * Lower-cases an attribute path and strips a schema URN prefix such as
+     * {@code urn:ietf:params:scim:schemas:core:2.0:User:}.
+     */
+    private static String normalizeAttribute(String token) {
+        if (token.startsWith("\"") || token.length() == 1 && "()[]".contains(token))
+            throw invalid("Expected attribute path but found '" + token + "'");
+        String attribute = token.toLowerCase(Locale.ROOT);
+        if (attribute.startsWith(SCHEMA_PREFIX))
+            attribute = attribute.substring(attribute.lastIndexOf(':') + 1);
+        return attribute;
+    }
+
+    // ------------------ Token helpers ------------------ //
+
+    private boolean accept(String token) {
+        if (pos < tokens.size() && tokens.get(pos).equals(token)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        if (pos < tokens.size() && tokens.get(pos).equalsIgnoreCase(keyword)) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!accept(token))
+            throw invalid("Expected '" + token + "'");
+    }
+
+    private String next(String what) {
+        if (pos >= tokens.size())
+            throw invalid("Expected " + what + " but the filter ended");
+        return tokens.get(pos++);
+    }
+
+    /**
+     * Splits a filter into tokens. String literals are returned with a leading quote and
+     * their escapes resolved, so they cannot be confused with keywords.
+     */
+    private static List<String> tokenize(String filter) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        int len = filter.length();
+        while (i < len) {
+            char c = filter.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')' || c == '[' || c == ']') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (c == '"') {
+                StringBuilder sb = new StringBuilder("\"");
+                i++;
+                while (true) {
+                    if (i >= len)
+                        throw invalid("Unterminated string literal");
+                    char s = filter.charAt(i++);
+                    if (s == '"')
+                        break;
+                    if (s == '\\') {
+                        if (i >= len)
+                            throw invalid("Unterminated escape sequence");
+                        char e = filter.charAt(i++);
+                        switch (e) {
+                            case 'n' -> sb.append('\n');
+                            case 't' -> sb.append('\t');
+                            case 'r' -> sb.append('\r');
+                            case 'b' -> sb.append('\b');
+                            case 'f' -> sb.append('\f');
+                            case 'u' -> {
+                                try {
+                                    sb.append((char) Integer.parseInt(filter.substring(i, i + 4), 16));
+                                } catch (IndexOutOfBoundsException | NumberFormatException ex) {
+                                    throw invalid("Invalid unicode escape");
+                                }
+                                i += 4;
+                            }
+                            default -> sb.append(e);
+                        }
+                    } else {
+                        sb.append(s);
+                    }
+                }
+                tokens.add(sb.toString());
+            } else {
+                int start = i;
+                while (i < len && !Character.isWhitespace(filter.charAt(i)) && "()[]\"".indexOf(filter.charAt(i)) < 0)
+                    i++;
+                tokens.add(filter.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    private static ScimException invalid(String detail) {
+        return new ScimException(HttpStatus.BAD_REQUEST, "invalidFilter", detail);
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * FilterSpecificationBuilder.java
+ *
+ * Translates parsed SCIM filters into JPA Criteria predicates.
+ */
+package com.okta.scim.server.example.filter;
+
+import com.okta.scim.server.example.exception.ScimException;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds a {@link Specification} from a {@link Filter} so the whole filter is evaluated
+ * by the database. Each supported SCIM attribute path maps to one entity attribute;
+ * any other path is rejected with {@code invalidFilter} rather than being ignored.
+ *
+ * @param <T> entity type
+ */
+public class FilterSpecificationBuilder<T> {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private final Map<String, String> attributeFields;
+
+    /**
+     * @param attributeFields lower-cased SCIM attribute path to entity attribute name
+     */
+    public FilterSpecificationBuilder(Map<String, String> attributeFields) {
+        this.attributeFields = attributeFields;
+    }
+
+    /**
+     * Returns true if the SCIM attribute path can be used in filters.
+     *
+     * @param attribute lower-cased SCIM attribute path
+     * @return whether the path is mapped to a column
+     */
+    public boolean supports(String attribute) {
+        return attributeFields.containsKey(attribute);
+    }
+
+    /**
+     * Builds a specification for the filter.
+     *
+     * @param filter parsed filter
+     * @return specification evaluating the filter in SQL
+     */
+    public Specification<T> build(Filter filter) {
+        validate(filter);
+        return (root, query, cb) -> toPredicate(filter, root, cb);
+    }
+
+    private void validate(Filter filter) {
+        Set<String> attributes = new HashSet<>();
+        filter.collectAttributes(attributes);
+        for (String attribute : attributes) {
+            if (!supports(attribute))
+                throw new ScimException(HttpStatus.BAD_REQUEST, "invalidFilter",
+                        "Filtering on attribute '" + attribute + "' is not supported");
+        }
+    }
+
+    private Predicate toPredicate(Filter filter, Root<T> root, CriteriaBuilder cb) {
+        if (filter instanceof Filter.And and)
+            return cb.and(toPredicate(and.left(), root, cb), toPredicate(and.right(), root, cb));
+        if (filter instanceof Filter.Or or)
+            return cb.or(toPredicate(or.left(), root, cb), toPredicate(or.right(), root, cb));
+        if (filter instanceof Filter.Not not)
+            return cb.not(toPredicate(not.inner(), root, cb));
+        if (filter instanceof Filter.Present present) {
+            Path<Object> path = root.get(attributeFields.get(present.attribute()));
+            if (path.getJavaType() == String.class)
+                return cb.and(cb.isNotNull(path), cb.notEqual(path, ""));
+            return cb.isNotNull(path);
+        }
+        return comparison((Filter.Comparison) filter, root, cb);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Predicate comparison(Filter.Comparison c, Root<T> root, CriteriaBuilder cb) {
+        Path path = root.get(attributeFields.get(c.attribute()));
+        Class<?> type = path.getJavaType();
+
+        if (c.value() == null) {
+            if (c.operator() == FilterOperator.EQ)
+                return cb.isNull(path);
+            if (c.operator() == FilterOperator.NE)
+                return cb.isNotNull(path);
+            throw invalid(c, "null can only be compared with eq or ne");
+        }
+
+        Comparable value = coerce(c, type);
+        if (value == null)
+            return cb.disjunction(); // e.g. id eq "not-a-number" matches nothing
+
+        switch (c.operator()) {
+            case EQ:
+                return cb.equal(path, value);
+            case NE:
+                return cb.or(cb.notEqual(path, value), cb.isNull(path));
+            case CO:
+                return like(c, path, type, cb, "%" + escapeLike(value) + "%");
+            case SW:
+                return like(c, path, type, cb, escapeLike(value) + "%");
+            case EW:
+                return like(c, path, type, cb, "%" + escapeLike(value));
+            case GT:
+                return cb.greaterThan((Expression<Comparable>) path, value);
+            case GE:
+                return cb.greaterThanOrEqualTo((Expression<Comparable>) path, value);
+            case LT:
+                return cb.lessThan((Expression<Comparable>) path, value);
+            case LE:
+                return cb.lessThanOrEqualTo((Expression<Comparable>) path, value);
+            default:
+                throw invalid(c, "unsupported operator");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Predicate like(Filter.Comparison c, Path<?> path, Class<?> type, CriteriaBuilder cb, String pattern) {
+        if (type != String.class)
+            throw invalid(c, "operator " + c.operator().name().toLowerCase() + " requires a string attribute");
+        return cb.like((Expression<String>) path, pattern, LIKE_ESCAPE);
+    }
+
+    /**
+     * Converts the filter literal to the attribute's Java type; dateTime attributes take
+     * an RFC 3339 string with an offset. Returns null when the literal can never match (a
+     * non-numeric ID).
+     */
+    @SuppressWarnings("rawtypes")
+    private Comparable coerce(Filter.Comparison c, Class<?> type) {
+        Object value = c.value();
+        if (type == String.class) {
+            if (value instanceof String s)
+                return s;
+            throw invalid(c, "expected a string value");
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            if (value instanceof Boolean b && (c.operator() == FilterOperator.EQ || c.operator() == FilterOperator.NE))
+                return b;
+            throw invalid(c, "boolean attributes only support eq and ne with true or false");
+        }
+        if (type == Long.class || type == long.class) {
+            try {
+                return value instanceof Number n ? n.longValue() : Long.valueOf(value.toString());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        if (type == Instant.class) {
+            if (value instanceof String s) {
+                try {
+                    return OffsetDateTime.parse(s).toInstant();
+                } catch (DateTimeParseException e) {
+                    // reported below
+                }
+            }
+            throw invalid(c, "expected a dateTime value such as \"2024-01-01T00:00:00Z\"");
+        }
+        throw invalid(c, "unsupported attribute type");
+    }
+
+    private static String escapeLike(Object value) {
+        String s = value.toString();
+        StringBuilder sb = new StringBuilder(s.length() + 4);
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (ch == '%' || ch == '_' || ch == LIKE_ESCAPE)
+                sb.append(LIKE_ESCAPE);
+            sb.append(ch);
+        }
+        return sb.toString();
+    }
+
+    private static ScimException invalid(Filter.Comparison c, String detail) {
+        return new ScimException(HttpStatus.BAD_REQUEST, "invalidFilter",
+                "Invalid filter on '" + c.attribute() + "': " + detail);
+    }
+}
@@ -1,4 +1,3 @@
-
 /**
  * AuthInterceptor.java
  *
@@ -6,17 +5,42 @@
  */
 package com.okta.scim.server.example.interceptors;
 
+import com.okta.scim.server.example.auth.ScimClient;
+import com.okta.scim.server.example.auth.TokenVerifier;
+import com.okta.scim.server.example.datasource.TenantContext;
+import com.okta.scim.server.example.datasource.TenantRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import java.util.List;
+
 /**
  * Checks the "Authorization" header for a valid Bearer token.
  * Returns 401 Unauthorized if the token is missing or invalid.
+ * <p>
+ * The token is handed to each {@link TokenVerifier} in order; the first one that accepts
+ * it identifies the client, which is stored on the request as {@link ScimClient}. In
+ * multi-tenant mode the client's tenant is stored under
+ * {@link TenantContext#REQUEST_ATTRIBUTE} too, selecting the database and cache entries
+ * the rest of the request works with.
  */
+@Component
 public class AuthInterceptor implements HandlerInterceptor {
 
-    private static final String TOKEN = "00SvMqRNdFYjFRh6Cqm80A8lbDQxJdxfvZR8KGZa-J";
+    private static final String BEARER = "Bearer ";
+
+    private final List<TokenVerifier> verifiers;
+
+    private final ObjectProvider<TenantRegistry> tenantRegistry;
+
+    public AuthInterceptor(List<TokenVerifier> verifiers, ObjectProvider<TenantRegistry> tenantRegistry) {
+        this.verifiers = verifiers;
+        this.tenantRegistry = tenantRegistry;
+    }
 
     /**
      * Validates the Authorization header before controller execution.
@@ -29,12 +53,28 @@ public class AuthInterceptor implements HandlerInterceptor {
      */
     @Override
     public boolean preHandle(HttpServletRequest req, HttpServletResponse res, Object handler) throws Exception {
-        String auth = req.getHeader("Authorization");
-        if (auth == null || !auth.equals("Bearer " + TOKEN)) {
+        String auth = req.getHeader(HttpHeaders.AUTHORIZATION);
+        ScimClient client = null;
+        if (auth != null && auth.length() > BEARER.length() && auth.regionMatches(true, 0, BEARER, 0, BEARER.length()))
+            client = authenticate(auth.substring(BEARER.length()).trim());
+        if (client == null) {
             res.setStatus(401);
             res.getWriter().write("Unauthorized");
             return false;
         }
+        req.setAttribute(ScimClient.REQUEST_ATTRIBUTE, client);
+        TenantRegistry tenants = tenantRegistry.getIfAvailable();
+        if (tenants != null)
+            req.setAttribute(TenantContext.REQUEST_ATTRIBUTE, tenants.tenantOf(client.id()));
         return true;
     }
+
+    private ScimClient authenticate(String token) {
+        for (TokenVerifier verifier : verifiers) {
+            ScimClient client = verifier.verify(token);
+            if (client != null)
+                return client;
+        }
+        return null;
+    }
 }
@@ -0,0 +1,40 @@
+/**
+ * RateLimitInterceptor.java
+ *
+ * Applies the per-client request budgets.
+ */
+package com.okta.scim.server.example.interceptors;
+
+import com.okta.scim.server.example.auth.ScimClient;
+import com.okta.scim.server.example.ratelimit.ClientRateLimiter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Charges each request to its client's read budget (GET and HEAD) or write budget
+ * (everything else). A request over budget is rejected before any handler runs, with
+ * a SCIM 429 and {@code Retry-After} rendered by {@code ScimExceptionHandler}.
+ * <p>
+ * Registered after {@link AuthInterceptor}, which identifies the client.
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final ClientRateLimiter limiter;
+
+    /**
+     * @param limiter per-client budgets
+     */
+    public RateLimitInterceptor(ClientRateLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest req, HttpServletResponse res, Object handler) {
+        if (req.getAttribute(ScimClient.REQUEST_ATTRIBUTE) instanceof ScimClient client) {
+            String method = req.getMethod();
+            limiter.acquire(client.id(), !"GET".equals(method) && !"HEAD".equals(method), 1);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * ReadYourWritesInterceptor.java
+ *
+ * Remembers which clients wrote recently so their reads stay on the primary.
+ */
+package com.okta.scim.server.example.interceptors;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.okta.scim.server.example.auth.ScimClient;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Read-your-writes stickiness for replica routing. A request that is not a GET or HEAD
+ * counts as a write by its {@link ScimClient}; for {@code window} after the write starts
+ * and again after it completes, that client's reads are served by the primary, so a
+ * client never reads a replica that has not yet caught up with its own change. Reads
+ * made while handling the write itself always use the primary.
+ * <p>
+ * Registered after {@link AuthInterceptor}, which identifies the client.
+ */
+public class ReadYourWritesInterceptor implements HandlerInterceptor {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    /**
+     * @param window     how long after a write the client stays on the primary
+     * @param maxClients upper bound on remembered clients
+     */
+    public ReadYourWritesInterceptor(Duration window, long maxClients) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxClients)
+                .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest req, HttpServletResponse res, Object handler) {
+        recordWrite(req);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest req, HttpServletResponse res, Object handler, Exception ex) {
+        recordWrite(req);
+    }
+
+    private void recordWrite(HttpServletRequest req) {
+        if (isWrite(req) && req.getAttribute(ScimClient.REQUEST_ATTRIBUTE) instanceof ScimClient client)
+            recentWriters.put(client.id(), Boolean.TRUE);
+    }
+
+    /**
+     * Returns whether the request being handled on this thread must read from the
+     * primary: it is a write, or its client wrote within the window. False outside a
+     * request.
+     *
+     * @return true if the current reads must not use a replica
+     */
+    public boolean currentRequestNeedsPrimary() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servlet))
+            return false;
+        HttpServletRequest req = servlet.getRequest();
+        if (isWrite(req))
+            return true;
+        return req.getAttribute(ScimClient.REQUEST_ATTRIBUTE) instanceof ScimClient client
+                && recentWriters.getIfPresent(client.id()) != null;
+    }
+
+    private static boolean isWrite(HttpServletRequest req) {
+        String method = req.getMethod();
+        return !"GET".equals(method) && !"HEAD".equals(method);
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * GroupMapper.java
+ *
+ * Maps between {@link GroupDTO} and {@link GroupEntity}.
+ */
+package com.okta.scim.server.example.mapper;
+
+import com.okta.scim.server.example.dto.GroupDTO;
+import com.okta.scim.server.example.dto.GroupMemberDTO;
+import com.okta.scim.server.example.entity.GroupEntity;
+import com.okta.scim.server.example.exception.ScimException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Converts SCIM group DTOs to entities and member references to user IDs.
+ */
+@Component
+public class GroupMapper {
+
+    /**
+     * Converts a {@link GroupDTO} to a new {@link GroupEntity}.
+     *
+     * @param dto source DTO
+     * @return new GroupEntity
+     */
+    public GroupEntity toEntity(GroupDTO dto) {
+        GroupEntity entity = new GroupEntity();
+        updateEntityFromDTO(dto, entity);
+        return entity;
+    }
+
+    /**
+     * Updates an existing {@link GroupEntity} from a {@link GroupDTO}.
+     *
+     * @param dto    source DTO
+     * @param entity entity to update
+     */
+    public void updateEntityFromDTO(GroupDTO dto, GroupEntity entity) {
+        String displayName = dto.getDisplayName() != null ? dto.getDisplayName().trim() : "";
+        if (displayName.isEmpty())
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidValue", "displayName is required");
+        entity.setDisplayName(displayName);
+        entity.setExternalId(dto.getExternalId());
+    }
+
+    /**
+     * Returns the user IDs referenced by the DTO's members.
+     *
+     * @param dto source DTO
+     * @return distinct member user IDs, in request order
+     */
+    public Set<Long> memberIds(GroupDTO dto) {
+        Set<Long> ids = new LinkedHashSet<>();
+        if (dto.getMembers() != null) {
+            for (GroupMemberDTO member : dto.getMembers())
+                ids.add(toUserId(member != null ? member.getValue() : null));
+        }
+        return ids;
+    }
+
+    private static Long toUserId(String value) {
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NullPointerException | NumberFormatException e) {
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidValue", "Invalid member value '" + value + "'");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * ScimRequestObservationConvention.java
+ *
+ * Adds the SCIM filter shape to HTTP server request metrics.
+ */
+package com.okta.scim.server.example.metrics;
+
+import com.okta.scim.server.example.datasource.TenantContext;
+import com.okta.scim.server.example.datasource.TenantRegistry;
+import com.okta.scim.server.example.exception.ScimException;
+import com.okta.scim.server.example.filter.FilterCache;
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Extends the standard {@code http.server.requests} observation (one timer per method,
+ * URI template, status and outcome) with a {@code filter} tag holding the value-free
+ * shape of the SCIM filter, e.g. {@code username eq}. Listing latency depends far more
+ * on the filter than on the endpoint, so p50/p99 are reported per shape.
+ * <p>
+ * Shapes are low-cardinality in practice; to keep an unusual client from creating
+ * unbounded series, only the first {@value #MAX_SHAPES} distinct shapes get their own tag.
+ * <p>
+ * In multi-tenant mode a {@code tenant} tag separates each org's traffic, so one noisy
+ * tenant shows up as such rather than as a server-wide latency change.
+ */
+@Component
+public class ScimRequestObservationConvention extends DefaultServerRequestObservationConvention {
+
+    static final int MAX_SHAPES = 50;
+    private static final String FILTER_TAG = "filter";
+    private static final String TENANT_TAG = "tenant";
+    private static final String SHAPE_ATTRIBUTE = ScimRequestObservationConvention.class.getName() + ".shape";
+
+    private final FilterCache filterCache;
+    private final boolean multiTenant;
+    private final Set<String> shapes = ConcurrentHashMap.newKeySet();
+
+    public ScimRequestObservationConvention(FilterCache filterCache, ObjectProvider<TenantRegistry> tenantRegistry) {
+        this.filterCache = filterCache;
+        this.multiTenant = tenantRegistry.getIfAvailable() != null;
+    }
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        KeyValues keyValues = super.getLowCardinalityKeyValues(context).and(filterShape(context));
+        return multiTenant ? keyValues.and(tenant(context)) : keyValues;
+    }
+
+    private static KeyValue tenant(ServerRequestObservationContext context) {
+        Object tenant = context.getCarrier().getAttribute(TenantContext.REQUEST_ATTRIBUTE);
+        return KeyValue.of(TENANT_TAG, tenant != null ? tenant.toString() : "none");
+    }
+
+    private KeyValue filterShape(ServerRequestObservationContext context) {
+        // Tags are read more than once per request; resolve the shape only once.
+        HttpServletRequest request = context.getCarrier();
+        KeyValue tag = (KeyValue) request.getAttribute(SHAPE_ATTRIBUTE);
+        if (tag == null) {
+            tag = KeyValue.of(FILTER_TAG, resolveShape(request.getParameter("filter")));
+            request.setAttribute(SHAPE_ATTRIBUTE, tag);
+        }
+        return tag;
+    }
+
+    private String resolveShape(String filter) {
+        if (filter == null || filter.isBlank())
+            return "none";
+        String shape;
+        try {
+            shape = filterCache.get(filter).shape();
+        } catch (ScimException e) {
+            return "invalid";
+        }
+        if (shapes.contains(shape) || shapes.size() < MAX_SHAPES && shapes.add(shape))
+            return shape;
+        return "other";
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * PatchPath.java
+ *
+ * Parsed "path" of a SCIM PATCH operation.
+ */
+package com.okta.scim.server.example.patch;
+
+import com.okta.scim.server.example.exception.ScimException;
+import com.okta.scim.server.example.filter.Filter;
+import com.okta.scim.server.example.filter.FilterParser;
+import org.springframework.http.HttpStatus;
+
+import java.util.Locale;
+
+/**
+ * An RFC 7644 §3.5.2 path such as {@code name.givenName} or
+ * {@code emails[type eq "work"].value}.
+ *
+ * @param attribute   lower-cased attribute path, including the sub-attribute if any
+ *                    (e.g. {@code emails.value}), without a schema URN prefix
+ * @param valueFilter filter selecting values of a multi-valued attribute, or null
+ */
+public record PatchPath(String attribute, Filter valueFilter) {
+
+    private static final String SCHEMA_PREFIX = "urn:";
+
+    /**
+     * Parses a PATCH path.
+     *
+     * @param path raw path
+     * @return parsed path
+     */
+    public static PatchPath parse(String path) {
+        String s = path == null ? "" : path.trim();
+        if (s.isEmpty())
+            throw invalid("Path is empty");
+
+        int open = s.indexOf('[');
+        String head = open < 0 ? s : s.substring(0, open);
+        if (head.regionMatches(true, 0, SCHEMA_PREFIX, 0, SCHEMA_PREFIX.length()))
+            head = head.substring(head.lastIndexOf(':') + 1);
+        if (head.isEmpty() || !head.matches("[A-Za-z][\\w$-]*(\\.[A-Za-z][\\w$-]*)?"))
+            throw invalid("Invalid path '" + path + "'");
+        String attribute = head.toLowerCase(Locale.ROOT);
+        if (open < 0)
+            return new PatchPath(attribute, null);
+
+        int close = s.lastIndexOf(']');
+        if (close < open || attribute.indexOf('.') >= 0)
+            throw invalid("Invalid path '" + path + "'");
+        Filter filter = FilterParser.parse(s.substring(open + 1, close));
+        String rest = s.substring(close + 1);
+        if (!rest.isEmpty()) {
+            if (!rest.matches("\\.[A-Za-z][\\w$-]*"))
+                throw invalid("Invalid path '" + path + "'");
+            attribute = attribute + rest.toLowerCase(Locale.ROOT);
+        }
+        return new PatchPath(attribute, filter);
+    }
+
+    private static ScimException invalid(String detail) {
+        return new ScimException(HttpStatus.BAD_REQUEST, "invalidPath", detail);
+    }
+}
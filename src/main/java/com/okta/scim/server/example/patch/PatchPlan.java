@@ -0,0 +1,302 @@
+/**
+ * PatchPlan.java
+ *
+ * Compiles SCIM PATCH requests into column assignments on UserEntity.
+ */
+package com.okta.scim.server.example.patch;
+
+import com.okta.scim.server.example.entity.UserEntity;
+import com.okta.scim.server.example.exception.ScimException;
+import com.okta.scim.server.example.filter.Filter;
+import com.okta.scim.server.example.filter.FilterOperator;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A PatchOp request (RFC 7644 §3.5.2) parsed and validated once into a list of typed
+ * steps, each setting one {@link UserAttribute}. Applying the plan only touches columns
+ * whose value actually changes and reports whether anything did, so callers can skip
+ * the write for no-op requests.
+ * <p>
+ * Supported: {@code add}, {@code remove} and {@code replace}; paths such as
+ * {@code active}, {@code name.givenName}, {@code emails} and
+ * {@code emails[type eq "work"].value}; and operations without a path whose value is a
+ * map of attributes. A user stores a single, untyped email, so value filters on
+ * {@code emails} are evaluated against it with conditions on {@code type} and
+ * {@code display} treated as satisfied.
+ */
+public final class PatchPlan {
+
+    public static final String PATCH_OP_SCHEMA = "urn:ietf:params:scim:api:messages:2.0:PatchOp";
+
+    /** PATCH operation types. */
+    public enum Op {
+        ADD, REMOVE, REPLACE
+    }
+
+    /**
+     * One assignment.
+     *
+     * @param op          operation the step came from
+     * @param attribute   column to set
+     * @param value       coerced value, null to unassign
+     * @param emailFilter value filter the stored email must match, or null
+     */
+    record Step(Op op, UserAttribute attribute, Object value, Filter emailFilter) {
+    }
+
+    private final List<Step> steps;
+
+    private PatchPlan(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    /**
+     * Parses a PatchOp request body.
+     *
+     * @param request request body with an {@code Operations} array
+     * @return compiled plan
+     */
+    @SuppressWarnings("unchecked")
+    public static PatchPlan parse(Map<String, Object> request) {
+        Object operations = request != null ? request.get("Operations") : null;
+        if (!(operations instanceof List<?> list))
+            throw invalidSyntax("PATCH request must contain an Operations array");
+
+        List<Step> steps = new ArrayList<>();
+        for (Object item : list) {
+            if (!(item instanceof Map<?, ?> operation))
+                throw invalidSyntax("Each PATCH operation must be an object");
+            compile((Map<String, Object>) operation, steps);
+        }
+        return new PatchPlan(steps);
+    }
+
+    /**
+     * Applies the plan to an entity in memory. The plan is atomic: if an operation fails,
+     * the entity is restored before the exception propagates.
+     *
+     * @param user entity to modify
+     * @return whether any attribute changed
+     */
+    public boolean apply(UserEntity user) {
+        Map<UserAttribute, Object> original = new EnumMap<>(UserAttribute.class);
+        try {
+            for (Step step : steps) {
+                if (step.emailFilter() != null && !emailMatches(step.emailFilter(), user.getEmail())) {
+                    if (step.op() == Op.ADD)
+                        continue;
+                    throw new ScimException(HttpStatus.BAD_REQUEST, "noTarget",
+                            "No email matches the value filter of the operation");
+                }
+                Object before = step.attribute().get(user);
+                if (step.attribute().set(user, step.value()))
+                    original.putIfAbsent(step.attribute(), before);
+            }
+        } catch (ScimException e) {
+            original.forEach((attribute, value) -> attribute.restore(user, value));
+            throw e;
+        }
+        // A later step may have set a column back to its original value.
+        original.entrySet().removeIf(e -> Objects.equals(e.getKey().get(user), e.getValue()));
+        return !original.isEmpty();
+    }
+
+    // ------------------ Compilation ------------------ //
+
+    @SuppressWarnings("unchecked")
+    private static void compile(Map<String, Object> operation, List<Step> steps) {
+        Op op = parseOp(operation.get("op"));
+        Object rawPath = operation.get("path");
+        Object value = operation.get("value");
+
+        if (rawPath == null) {
+            if (op == Op.REMOVE)
+                throw new ScimException(HttpStatus.BAD_REQUEST, "noTarget", "remove requires a path");
+            if (!(value instanceof Map<?, ?> attributes))
+                throw new ScimException(HttpStatus.BAD_REQUEST, "invalidValue",
+                        "An operation without a path requires an object value");
+            ((Map<String, Object>) attributes).forEach((key, v) -> {
+                // Unknown attributes and schema extensions are ignored here, as in PUT.
+                if (key.regionMatches(true, 0, "urn:", 0, 4) && v instanceof Map)
+                    return;
+                PatchPath path = PatchPath.parse(key);
+                if (isKnown(path.attribute()))
+                    compilePath(op, path, v, steps);
+            });
+            return;
+        }
+
+        if (!(rawPath instanceof String s))
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidPath", "path must be a string");
+        PatchPath path = PatchPath.parse(s);
+        if (!isKnown(path.attribute()))
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidPath", "Unsupported path '" + s + "'");
+        if (op != Op.REMOVE && !operation.containsKey("value"))
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidValue", op.name().toLowerCase(Locale.ROOT)
+                    + " requires a value");
+        compilePath(op, path, value, steps);
+    }
+
+    private static void compilePath(Op op, PatchPath path, Object value, List<Step> steps) {
+        Filter filter = path.valueFilter();
+        if (filter != null && !path.attribute().startsWith("emails"))
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidPath",
+                    "Value filters are only supported on emails");
+
+        switch (path.attribute()) {
+            case "id", "meta", "schemas" ->
+                throw new ScimException(HttpStatus.BAD_REQUEST, "mutability", path.attribute() + " is read-only");
+            case "username" -> steps.add(step(op, UserAttribute.USER_NAME, value, null));
+            case "externalid" -> steps.add(step(op, UserAttribute.EXTERNAL_ID, value, null));
+            case "active" -> steps.add(step(op, UserAttribute.ACTIVE, value, null));
+            case "name.givenname" -> steps.add(step(op, UserAttribute.GIVEN_NAME, value, null));
+            case "name.familyname" -> steps.add(step(op, UserAttribute.FAMILY_NAME, value, null));
+            case "name" -> compileName(op, value, steps);
+            case "emails" -> compileEmails(op, value, filter, steps);
+            case "emails.value" -> steps.add(step(op, UserAttribute.EMAIL, value, filter));
+            default -> {
+                // emails.primary / emails.type / emails.display: not stored, accepted as no-ops
+            }
+        }
+    }
+
+    /**
+     * {@code name} is complex: add/replace set only the sub-attributes given.
+     */
+    private static void compileName(Op op, Object value, List<Step> steps) {
+        if (op == Op.REMOVE) {
+            steps.add(step(op, UserAttribute.GIVEN_NAME, null, null));
+            steps.add(step(op, UserAttribute.FAMILY_NAME, null, null));
+            return;
+        }
+        if (!(value instanceof Map<?, ?> name))
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidValue", "name must be an object");
+        name.forEach((key, v) -> {
+            String sub = String.valueOf(key).toLowerCase(Locale.ROOT);
+            if (sub.equals("givenname"))
+                steps.add(step(op, UserAttribute.GIVEN_NAME, v, null));
+            else if (sub.equals("familyname"))
+                steps.add(step(op, UserAttribute.FAMILY_NAME, v, null));
+        });
+    }
+
+    /**
+     * {@code emails} holds one value: the primary entry of the list, else the first.
+     */
+    private static void compileEmails(Op op, Object value, Filter filter, List<Step> steps) {
+        if (op == Op.REMOVE) {
+            steps.add(step(op, UserAttribute.EMAIL, null, filter));
+            return;
+        }
+        Map<?, ?> chosen = null;
+        if (value instanceof Map<?, ?> single) {
+            chosen = single;
+        } else if (value instanceof Collection<?> list && filter == null) {
+            for (Object entry : list) {
+                if (!(entry instanceof Map<?, ?> email))
+                    throw new ScimException(HttpStatus.BAD_REQUEST, "invalidValue", "emails must contain objects");
+                if (chosen == null || Boolean.TRUE.equals(email.get("primary")) && !Boolean.TRUE.equals(chosen.get("primary")))
+                    chosen = email;
+            }
+            if (chosen == null && op == Op.REPLACE) {
+                steps.add(step(op, UserAttribute.EMAIL, null, null));
+                return;
+            }
+        } else {
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidValue", "Invalid value for emails");
+        }
+        if (chosen != null && chosen.containsKey("value"))
+            steps.add(step(op, UserAttribute.EMAIL, chosen.get("value"), filter));
+    }
+
+    private static Step step(Op op, UserAttribute attribute, Object value, Filter filter) {
+        return new Step(op, attribute, attribute.coerce(op == Op.REMOVE ? null : value), filter);
+    }
+
+    private static boolean isKnown(String attribute) {
+        return switch (attribute) {
+            case "id", "meta", "schemas", "username", "externalid", "active", "name", "name.givenname",
+                    "name.familyname", "emails", "emails.value", "emails.primary", "emails.type", "emails.display" ->
+                true;
+            default -> false;
+        };
+    }
+
+    static Op parseOp(Object op) {
+        if (op instanceof String s) {
+            switch (s.toLowerCase(Locale.ROOT)) {
+                case "add":
+                    return Op.ADD;
+                case "remove":
+                    return Op.REMOVE;
+                case "replace":
+                    return Op.REPLACE;
+                default:
+                    break;
+            }
+        }
+        throw invalidSyntax("Unsupported PATCH op '" + op + "'");
+    }
+
+    // ------------------ Email value filters ------------------ //
+
+    private static boolean emailMatches(Filter filter, String email) {
+        if (email == null)
+            return false;
+        if (filter instanceof Filter.And and)
+            return emailMatches(and.left(), email) && emailMatches(and.right(), email);
+        if (filter instanceof Filter.Or or)
+            return emailMatches(or.left(), email) || emailMatches(or.right(), email);
+        if (filter instanceof Filter.Not not)
+            return !emailMatches(not.inner(), email);
+        if (filter instanceof Filter.Present present)
+            return !present.attribute().equals("value") || !email.isEmpty();
+
+        Filter.Comparison c = (Filter.Comparison) filter;
+        switch (c.attribute()) {
+            case "value": {
+                if (c.value() == null)
+                    return c.operator() == FilterOperator.NE;
+                String expected = c.value().toString().toLowerCase(Locale.ROOT);
+                String actual = email.toLowerCase(Locale.ROOT); // emails.value is caseExact=false
+                return switch (c.operator()) {
+                    case EQ -> actual.equals(expected);
+                    case NE -> !actual.equals(expected);
+                    case CO -> actual.contains(expected);
+                    case SW -> actual.startsWith(expected);
+                    case EW -> actual.endsWith(expected);
+                    case GT -> actual.compareTo(expected) > 0;
+                    case GE -> actual.compareTo(expected) >= 0;
+                    case LT -> actual.compareTo(expected) < 0;
+                    case LE -> actual.compareTo(expected) <= 0;
+                    default -> false;
+                };
+            }
+            case "primary":
+                // The stored email is always rendered as primary.
+                return switch (c.operator()) {
+                    case EQ -> Boolean.TRUE.equals(c.value());
+                    case NE -> !Boolean.TRUE.equals(c.value());
+                    default -> false;
+                };
+            case "type":
+            case "display":
+                return true;
+            default:
+                throw new ScimException(HttpStatus.BAD_REQUEST, "invalidFilter",
+                        "Unsupported emails filter attribute '" + c.attribute() + "'");
+        }
+    }
+
+    static ScimException invalidSyntax(String detail) {
+        return new ScimException(HttpStatus.BAD_REQUEST, "invalidSyntax", detail);
+    }
+}
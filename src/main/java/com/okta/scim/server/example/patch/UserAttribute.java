@@ -0,0 +1,105 @@
+/**
+ * UserAttribute.java
+ *
+ * Writable SCIM User attributes and the UserEntity columns behind them.
+ */
+package com.okta.scim.server.example.patch;
+
+import com.okta.scim.server.example.entity.UserEntity;
+import com.okta.scim.server.example.exception.ScimException;
+import org.springframework.http.HttpStatus;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * One entry per column a PATCH can change. Values are coerced when the plan is built,
+ * so applying it is only a compare-and-set per column.
+ */
+public enum UserAttribute {
+
+    USER_NAME("userName", String.class, true, UserEntity::getUserName, UserEntity::setUserName),
+    EXTERNAL_ID("externalId", String.class, false, UserEntity::getExternalId, UserEntity::setExternalId),
+    ACTIVE("active", Boolean.class, true, UserEntity::getActive, UserEntity::setActive),
+    GIVEN_NAME("name.givenName", String.class, false, UserEntity::getGivenName, UserEntity::setGivenName),
+    FAMILY_NAME("name.familyName", String.class, false, UserEntity::getFamilyName, UserEntity::setFamilyName),
+    EMAIL("emails.value", String.class, false, UserEntity::getEmail, UserEntity::setEmail);
+
+    private final String scimPath;
+    private final Class<?> type;
+    private final boolean required;
+    private final Function<UserEntity, Object> getter;
+    private final BiConsumer<UserEntity, Object> setter;
+
+    @SuppressWarnings("unchecked")
+    <V> UserAttribute(String scimPath, Class<V> type, boolean required, Function<UserEntity, V> getter,
+            BiConsumer<UserEntity, V> setter) {
+        this.scimPath = scimPath;
+        this.type = type;
+        this.required = required;
+        this.getter = (Function<UserEntity, Object>) getter;
+        this.setter = (BiConsumer<UserEntity, Object>) setter;
+    }
+
+    /**
+     * @return SCIM attribute path, for error messages
+     */
+    public String getScimPath() {
+        return scimPath;
+    }
+
+    /**
+     * @return whether the attribute can never be unassigned
+     */
+    public boolean isRequired() {
+        return required;
+    }
+
+    /**
+     * Converts a JSON value to this attribute's type. Booleans also accept the strings
+     * "true"/"false" in any case, which some clients send.
+     *
+     * @param value JSON value
+     * @return coerced value
+     */
+    public Object coerce(Object value) {
+        if (value == null) {
+            if (required)
+                throw new ScimException(HttpStatus.BAD_REQUEST, "mutability", scimPath + " cannot be removed");
+            return null;
+        }
+        if (type == Boolean.class) {
+            if (value instanceof Boolean)
+                return value;
+            if (value instanceof String s && (s.equalsIgnoreCase("true") || s.equalsIgnoreCase("false")))
+                return Boolean.valueOf(s);
+        } else if (value instanceof String s) {
+            return required ? s.trim() : s;
+        }
+        throw new ScimException(HttpStatus.BAD_REQUEST, "invalidValue",
+                "Invalid value for " + scimPath + ": expected a " + type.getSimpleName().toLowerCase());
+    }
+
+    Object get(UserEntity user) {
+        return getter.apply(user);
+    }
+
+    void restore(UserEntity user, Object value) {
+        setter.accept(user, value);
+    }
+
+    /**
+     * Sets the attribute if it differs from the current value.
+     *
+     * @param user  entity to modify
+     * @param value coerced value
+     * @return whether the entity changed
+     */
+    boolean set(UserEntity user, Object value) {
+        if (Objects.equals(getter.apply(user), value))
+            return false;
+        setter.accept(user, value);
+        return true;
+    }
+}
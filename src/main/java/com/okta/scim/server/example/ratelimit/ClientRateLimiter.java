@@ -0,0 +1,92 @@
+/**
+ * ClientRateLimiter.java
+ *
+ * Per-client request budgets, with separate buckets for reads and writes.
+ */
+package com.okta.scim.server.example.ratelimit;
+
+import com.okta.scim.server.example.exception.ScimTooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives every authenticated client its own read bucket and write bucket, so a client
+ * that exhausts its budget is throttled alone: a runaway import loop cannot take
+ * capacity from other clients, and a flood of {@code GET /Users} from one client cannot
+ * delay that client's own writes (deprovisioning arrives as PATCH/PUT/DELETE).
+ * <p>
+ * Under the limit a request costs a map lookup, a {@link System#nanoTime()} and one CAS.
+ * Buckets are created on a client's first request; the set of clients is bounded by the
+ * configured tokens and trusted issuers.
+ */
+public class ClientRateLimiter {
+
+    /**
+     * Budget of one kind of request.
+     *
+     * @param ratePerSecond sustained requests per second
+     * @param burst         requests allowed at once after an idle period
+     */
+    public record Budget(double ratePerSecond, int burst) {
+    }
+
+    private final ConcurrentMap<String, Buckets> buckets = new ConcurrentHashMap<>();
+    private final Budget readBudget;
+    private final Budget writeBudget;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param readBudget    per-client budget for GET and HEAD requests
+     * @param writeBudget   per-client budget for all other requests
+     * @param meterRegistry registry for the rejection counters
+     */
+    public ClientRateLimiter(Budget readBudget, Budget writeBudget, MeterRegistry meterRegistry) {
+        this.readBudget = readBudget;
+        this.writeBudget = writeBudget;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Takes request tokens from the client's read or write bucket.
+     *
+     * @param clientId authenticated client
+     * @param write    true to charge the write budget
+     * @param tokens   requests to charge, e.g. the operations of a bulk request
+     * @throws ScimTooManyRequestsException if the bucket does not hold enough tokens
+     */
+    public void acquire(String clientId, boolean write, int tokens) {
+        Buckets client = buckets.get(clientId);
+        if (client == null)
+            client = buckets.computeIfAbsent(clientId, this::newBuckets);
+        long wait = (write ? client.write() : client.read()).tryAcquire(tokens);
+        if (wait > 0) {
+            (write ? client.writeRejected() : client.readRejected()).increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999));
+            throw new ScimTooManyRequestsException("Too many " + (write ? "write" : "read")
+                    + " requests from this client, retry later", retryAfterSeconds);
+        }
+    }
+
+    private Buckets newBuckets(String clientId) {
+        return new Buckets(
+                new TokenBucket(readBudget.ratePerSecond(), readBudget.burst()),
+                new TokenBucket(writeBudget.ratePerSecond(), writeBudget.burst()),
+                rejectedCounter(clientId, "read"),
+                rejectedCounter(clientId, "write"));
+    }
+
+    private Counter rejectedCounter(String clientId, String kind) {
+        return Counter.builder("scim.ratelimit.rejected")
+                .description("Requests rejected with 429 because the client exceeded its budget")
+                .tag("client", clientId)
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    private record Buckets(TokenBucket read, TokenBucket write, Counter readRejected, Counter writeRejected) {
+    }
+}
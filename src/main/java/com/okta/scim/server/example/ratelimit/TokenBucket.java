@@ -0,0 +1,65 @@
+/**
+ * TokenBucket.java
+ *
+ * Lock-free token bucket for request rate limiting.
+ */
+package com.okta.scim.server.example.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket holding up to {@code burst} tokens, refilled at {@code ratePerSecond}.
+ * <p>
+ * The whole state is one {@code long}: the {@link System#nanoTime()} instant at which the
+ * bucket will be full again. The token count is derived from it (one token per
+ * {@code interval} between now and that instant is missing), so refilling needs no
+ * separate timestamp and taking tokens is a single compare-and-set, with no lock and no
+ * allocation. Under contention the loser of a CAS simply recomputes against the new
+ * state. This is the token bucket in its GCRA form.
+ */
+public final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long capacityNanos;
+    private final int burst;
+    private final AtomicLong fullAt;
+
+    /**
+     * @param ratePerSecond tokens added per second
+     * @param burst         bucket size, the most tokens that can be taken at once
+     */
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1)
+            throw new IllegalArgumentException("rate and burst must be positive");
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000d / ratePerSecond));
+        this.capacityNanos = intervalNanos * burst;
+        this.burst = burst;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes tokens if the bucket holds enough of them. A request for more than
+     * {@code burst} tokens needs a full bucket and leaves the rest as debt: the bucket
+     * stays empty until the excess has been added too, so a large request costs as much
+     * as the same number of small ones.
+     *
+     * @param tokens tokens to take
+     * @return 0 if the tokens were taken, else nanoseconds until enough have been added
+     */
+    public long tryAcquire(int tokens) {
+        long cost = intervalNanos * tokens;
+        long needed = intervalNanos * Math.min(tokens, burst);
+        while (true) {
+            // Read the clock after the state, on every attempt: a time older than the
+            // state's (e.g. read before a preemption) would under-count the refill.
+            long current = fullAt.get();
+            long now = System.nanoTime();
+            long start = current - now < 0 ? now : current;
+            long wait = start + needed - now - capacityNanos;
+            if (wait > 0)
+                return wait;
+            if (fullAt.compareAndSet(current, start + cost))
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+/**
+ * ChangeKey.java
+ *
+ * Position of a user in the change feed.
+ */
+package com.okta.scim.server.example.repository;
+
+import java.time.Instant;
+
+/**
+ * Keyset position in {@code (lastModified, scimId)} order, the order in which
+ * {@code meta.lastModified} change queries are paged.
+ *
+ * @param lastModified the user's {@code meta.lastModified}
+ * @param scimId       the user's SCIM ID, breaking ties between equal timestamps
+ */
+public record ChangeKey(Instant lastModified, Long scimId) {
+}
@@ -0,0 +1,140 @@
+/**
+ * DbBulkhead.java
+ *
+ * Limits concurrent database work to the size of the connection pool.
+ */
+package com.okta.scim.server.example.repository;
+
+import com.okta.scim.server.example.datasource.TenantContext;
+import com.okta.scim.server.example.exception.ScimTooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Semaphore bulkhead applied to every {@link UserRepository} call (registered in
+ * {@code RepositoryBulkheadConfig}). With one permit per pooled connection, requests
+ * queue here for a bounded time instead of piling up inside the pool; a request that
+ * cannot get a permit within {@code scim.db.bulkhead.max-wait} is rejected with a SCIM
+ * 429 and {@code Retry-After}. This matters most with virtual threads, where the number
+ * of concurrent requests is no longer capped by Tomcat's thread pool.
+ * <p>
+ * A thread takes at most one permit. If it is taken inside a transaction, it is held
+ * until the transaction completes, since the connection is held until then too;
+ * otherwise it is released when the repository call returns.
+ * <p>
+ * In multi-tenant mode each tenant has its own permits, sized to its own pool
+ * ({@link #addTenant}), so a tenant that saturates its database is throttled without
+ * taking permits from the others. Meters are tagged with the tenant.
+ */
+public class DbBulkhead implements MethodInterceptor {
+
+    private static final ThreadLocal<Permits> HELD = new ThreadLocal<>();
+
+    private final Map<String, Permits> tenantPermits = new ConcurrentHashMap<>();
+    private final Permits defaultPermits;
+    private final long maxWaitNanos;
+    private final long retryAfterSeconds;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param permits       concurrent repository callers, normally the pool size
+     * @param maxWait       longest time a caller waits for a permit
+     * @param retryAfter    Retry-After advertised on rejection
+     * @param meterRegistry registry for rejection and queue metrics
+     */
+    public DbBulkhead(int permits, Duration maxWait, Duration retryAfter, MeterRegistry meterRegistry) {
+        this.maxWaitNanos = maxWait.toNanos();
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        this.meterRegistry = meterRegistry;
+        this.defaultPermits = new Permits(TenantContext.DEFAULT, permits);
+    }
+
+    /**
+     * Gives a tenant its own permits.
+     *
+     * @param tenant  tenant ID
+     * @param permits concurrent repository callers for the tenant, normally its pool size
+     */
+    public void addTenant(String tenant, int permits) {
+        tenantPermits.put(tenant, new Permits(tenant, permits));
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (HELD.get() != null)
+            return invocation.proceed();
+
+        Permits permits = tenantPermits.getOrDefault(TenantContext.current(), defaultPermits);
+        permits.acquire();
+        HELD.set(permits);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    permits.release();
+                }
+            });
+            return invocation.proceed();
+        }
+        try {
+            return invocation.proceed();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * The permits of one tenant.
+     */
+    private final class Permits {
+
+        private final Semaphore semaphore;
+        private final Counter rejected;
+
+        Permits(String tenant, int permits) {
+            this.semaphore = new Semaphore(permits, true);
+            this.rejected = Counter.builder("scim.db.bulkhead.rejected")
+                    .description("Repository calls rejected with 429 because no database permit was free in time")
+                    .tag("tenant", tenant)
+                    .register(meterRegistry);
+            Gauge.builder("scim.db.bulkhead.available", semaphore, Semaphore::availablePermits)
+                    .description("Free database permits")
+                    .tag("tenant", tenant)
+                    .register(meterRegistry);
+            Gauge.builder("scim.db.bulkhead.queued", semaphore, Semaphore::getQueueLength)
+                    .description("Threads waiting for a database permit")
+                    .tag("tenant", tenant)
+                    .register(meterRegistry);
+        }
+
+        void acquire() {
+            boolean acquired;
+            try {
+                acquired = semaphore.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                acquired = false;
+            }
+            if (!acquired) {
+                rejected.increment();
+                throw new ScimTooManyRequestsException("The server is busy, retry later", retryAfterSeconds);
+            }
+        }
+
+        void release() {
+            HELD.remove();
+            semaphore.release();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * GroupMember.java
+ *
+ * One row of a group's member list.
+ */
+package com.okta.scim.server.example.repository;
+
+/**
+ * A member as rendered in a SCIM Group.
+ *
+ * @param userId  SCIM ID of the member user
+ * @param display the member's userName
+ */
+public record GroupMember(Long userId, String display) {
+}
@@ -0,0 +1,25 @@
+/**
+ * GroupRepository.java
+ *
+ * Description:
+ *  Repository interface for managing {@link com.okta.scim.server.example.entity.GroupEntity}
+ *  instances and their membership rows.
+ *
+ * Project: Okta SCIM Server Example
+ */
+
+package com.okta.scim.server.example.repository;
+
+import com.okta.scim.server.example.entity.GroupEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for managing {@link GroupEntity} instances. Membership is handled
+ * by the set-based methods of {@link GroupRepositoryCustom}.
+ */
+@Repository
+public interface GroupRepository extends JpaRepository<GroupEntity, Long>, JpaSpecificationExecutor<GroupEntity>,
+        GroupRepositoryCustom {
+}
@@ -0,0 +1,75 @@
+/**
+ * GroupRepositoryCustom.java
+ *
+ * Description:
+ *  Hand-written membership queries of {@link GroupRepository}. Every statement works on
+ *  the join table directly, so its cost depends on the members named, not the group size.
+ *
+ * Project: Okta SCIM Server Example
+ */
+
+package com.okta.scim.server.example.repository;
+
+import com.okta.scim.server.example.entity.GroupEntity;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Custom query methods mixed into {@link GroupRepository}. Must be called inside a
+ * transaction.
+ */
+public interface GroupRepositoryCustom {
+
+    /**
+     * Loads a group and locks its row until the transaction ends, serialising concurrent
+     * membership changes of the same group.
+     */
+    GroupEntity findByScimIdForUpdate(Long scimId);
+
+    /**
+     * Returns up to {@code limit} groups matching the specification, in SCIM ID order,
+     * skipping the first {@code offset}.
+     */
+    List<GroupEntity> findPage(Specification<GroupEntity> spec, int offset, int limit);
+
+    /**
+     * Bumps the group's version now although none of its columns changed, e.g.
+     * after a membership-only PATCH, so the ETag still changes.
+     */
+    void incrementVersion(GroupEntity group);
+
+    /**
+     * Counts how many of the given IDs belong to existing users.
+     */
+    long countExistingUsers(Collection<Long> userIds);
+
+    /**
+     * Adds the users as members; users that already are members are skipped.
+     *
+     * @return number of rows inserted
+     */
+    int addMembers(Long groupId, Collection<Long> userIds);
+
+    /**
+     * Removes the users from the group.
+     *
+     * @return number of rows deleted
+     */
+    int removeMembers(Long groupId, Collection<Long> userIds);
+
+    /**
+     * Removes every member of the group.
+     *
+     * @return number of rows deleted
+     */
+    int removeAllMembers(Long groupId);
+
+    /**
+     * Streams the group's members in user ID order through a forward-only cursor with the
+     * given JDBC fetch size. Must be consumed and closed inside the transaction.
+     */
+    Stream<GroupMember> streamMembers(Long groupId, int fetchSize);
+}
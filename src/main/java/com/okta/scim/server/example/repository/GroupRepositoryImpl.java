@@ -0,0 +1,143 @@
+/**
+ * GroupRepositoryImpl.java
+ *
+ * Description:
+ *  Native-SQL implementation of {@link GroupRepositoryCustom}.
+ *
+ * Project: Okta SCIM Server Example
+ */
+
+package com.okta.scim.server.example.repository;
+
+import com.okta.scim.server.example.entity.GroupEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.AvailableHints;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Implements the membership statements. IN lists are split into chunks of
+ * {@link #IN_CHUNK} IDs to stay within driver and optimizer limits.
+ */
+public class GroupRepositoryImpl implements GroupRepositoryCustom {
+
+    /** Query space of the join table, so membership writes do not invalidate cache regions. */
+    private static final String MEMBERS_QUERY_SPACE = "group_members";
+
+    private static final int IN_CHUNK = 1000;
+
+    /** Portable "insert if absent": only existing users that are not members yet. */
+    private static final String ADD_MEMBERS = """
+            INSERT INTO group_members (group_id, user_id)
+            SELECT :groupId, u.scim_id FROM users u
+            WHERE u.scim_id IN (:userIds)
+              AND NOT EXISTS (SELECT 1 FROM group_members m WHERE m.group_id = :groupId AND m.user_id = u.scim_id)
+            """;
+
+    private static final String REMOVE_MEMBERS =
+            "DELETE FROM group_members WHERE group_id = :groupId AND user_id IN (:userIds)";
+
+    private static final String STREAM_MEMBERS = """
+            SELECT m.user_id, u.user_name FROM group_members m JOIN users u ON u.scim_id = m.user_id
+            WHERE m.group_id = :groupId ORDER BY m.user_id
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public GroupEntity findByScimIdForUpdate(Long scimId) {
+        return scimId != null ? entityManager.find(GroupEntity.class, scimId, LockModeType.PESSIMISTIC_WRITE) : null;
+    }
+
+    @Override
+    public List<GroupEntity> findPage(Specification<GroupEntity> spec, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<GroupEntity> query = cb.createQuery(GroupEntity.class);
+        Root<GroupEntity> root = query.from(GroupEntity.class);
+        query.select(root).where(spec.toPredicate(root, query, cb)).orderBy(cb.asc(root.get("scimId")));
+        return entityManager.createQuery(query).setFirstResult(offset).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public void incrementVersion(GroupEntity group) {
+        entityManager.lock(group, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+    }
+
+    @Override
+    public long countExistingUsers(Collection<Long> userIds) {
+        long count = 0;
+        for (List<Long> chunk : chunks(userIds)) {
+            count += ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM users WHERE scim_id IN (:userIds)")
+                    .setParameter("userIds", chunk)
+                    .getSingleResult()).longValue();
+        }
+        return count;
+    }
+
+    @Override
+    public int addMembers(Long groupId, Collection<Long> userIds) {
+        int inserted = 0;
+        for (List<Long> chunk : chunks(userIds))
+            inserted += membersUpdate(ADD_MEMBERS).setParameter("groupId", groupId).setParameter("userIds", chunk)
+                    .executeUpdate();
+        return inserted;
+    }
+
+    @Override
+    public int removeMembers(Long groupId, Collection<Long> userIds) {
+        int deleted = 0;
+        for (List<Long> chunk : chunks(userIds))
+            deleted += membersUpdate(REMOVE_MEMBERS).setParameter("groupId", groupId).setParameter("userIds", chunk)
+                    .executeUpdate();
+        return deleted;
+    }
+
+    @Override
+    public int removeAllMembers(Long groupId) {
+        return membersUpdate("DELETE FROM group_members WHERE group_id = :groupId")
+                .setParameter("groupId", groupId)
+                .executeUpdate();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<GroupMember> streamMembers(Long groupId, int fetchSize) {
+        Stream<Object[]> rows = entityManager.createNativeQuery(STREAM_MEMBERS)
+                .setParameter("groupId", groupId)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+        return rows.map(row -> new GroupMember(((Number) row[0]).longValue(), (String) row[1]));
+    }
+
+    /**
+     * A membership write. Declaring the group entity as synchronized flushes a pending
+     * insert of the group (the foreign key target) first; the private query space keeps
+     * Hibernate from invalidating unrelated cache regions.
+     */
+    @SuppressWarnings("rawtypes")
+    private NativeQuery membersUpdate(String sql) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(GroupEntity.class)
+                .addSynchronizedQuerySpace(MEMBERS_QUERY_SPACE);
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += IN_CHUNK)
+            chunks.add(all.subList(from, Math.min(from + IN_CHUNK, all.size())));
+        return chunks;
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * UserProjection.java
+ *
+ * The subset of User attributes a request asked for, and the columns behind them.
+ */
+package com.okta.scim.server.example.repository;
+
+import com.okta.scim.server.example.entity.UserEntity;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Resolves the SCIM {@code attributes} / {@code excludedAttributes} parameters (RFC 7644
+ * §3.4.2.5) to a set of User attributes. The repository selects only their columns and
+ * the writer emits only their fields. {@code id} and {@code schemas} are always returned.
+ * Paths are matched case-insensitively, with or without the User schema URN; a parent
+ * path such as {@code name} or {@code meta} selects all of its sub-attributes, and paths
+ * this server does not have are ignored.
+ */
+public final class UserProjection {
+
+    private static final String USER_URN_PREFIX = "urn:ietf:params:scim:schemas:core:2.0:user:";
+
+    /** Every attribute: the full representation. */
+    public static final UserProjection ALL = new UserProjection(EnumSet.allOf(Attribute.class));
+
+    /**
+     * One returnable leaf of the User representation, with the entity field it is read
+     * from (null when it is derived from the SCIM ID alone).
+     */
+    public enum Attribute {
+        EXTERNAL_ID("externalid", "externalId", (u, v) -> u.setExternalId((String) v)),
+        USER_NAME("username", "userName", (u, v) -> u.setUserName((String) v)),
+        ACTIVE("active", "active", (u, v) -> u.setActive((Boolean) v)),
+        GIVEN_NAME("name.givenname", "givenName", (u, v) -> u.setGivenName((String) v)),
+        FAMILY_NAME("name.familyname", "familyName", (u, v) -> u.setFamilyName((String) v)),
+        EMAIL("emails.value", "email", (u, v) -> u.setEmail((String) v)),
+        RESOURCE_TYPE("meta.resourcetype", null, null),
+        CREATED("meta.created", "created", (u, v) -> u.setCreated((Instant) v)),
+        LAST_MODIFIED("meta.lastmodified", "lastModified", (u, v) -> u.setLastModified((Instant) v)),
+        LOCATION("meta.location", null, null),
+        VERSION("meta.version", "version", (u, v) -> u.setVersion((Long) v));
+
+        private final String path;
+        private final String field;
+        private final BiConsumer<UserEntity, Object> setter;
+
+        Attribute(String path, String field, BiConsumer<UserEntity, Object> setter) {
+            this.path = path;
+            this.field = field;
+            this.setter = setter;
+        }
+
+        /**
+         * @return UserEntity attribute holding the value, or null if no column is needed
+         */
+        public String field() {
+            return field;
+        }
+
+        /**
+         * Copies a selected column value onto a (transient) entity.
+         *
+         * @param user  entity being assembled from a projected row
+         * @param value column value
+         */
+        public void set(UserEntity user, Object value) {
+            setter.accept(user, value);
+        }
+
+        private boolean matches(String requested) {
+            if (requested.equals("emails.primary") || requested.equals("emails.type"))
+                return this == EMAIL;
+            return path.equals(requested) || path.startsWith(requested + ".");
+        }
+    }
+
+    private final Set<Attribute> attributes;
+
+    private UserProjection(Set<Attribute> attributes) {
+        this.attributes = attributes;
+    }
+
+    /**
+     * Builds the projection for a request. {@code attributes} wins when both are given.
+     *
+     * @param attributes         comma-separated attributes to return, or null
+     * @param excludedAttributes comma-separated attributes to omit, or null
+     * @return the projection; {@link #ALL} when neither parameter narrows it
+     */
+    public static UserProjection of(String attributes, String excludedAttributes) {
+        if (attributes != null && !attributes.isBlank())
+            return of(matching(attributes));
+        if (excludedAttributes != null && !excludedAttributes.isBlank())
+            return of(EnumSet.complementOf(matching(excludedAttributes)));
+        return ALL;
+    }
+
+    private static UserProjection of(EnumSet<Attribute> attributes) {
+        return attributes.size() == Attribute.values().length ? ALL : new UserProjection(attributes);
+    }
+
+    private static EnumSet<Attribute> matching(String list) {
+        EnumSet<Attribute> matched = EnumSet.noneOf(Attribute.class);
+        for (String token : list.split(",")) {
+            String requested = token.trim().toLowerCase(Locale.ROOT);
+            if (requested.startsWith(USER_URN_PREFIX))
+                requested = requested.substring(USER_URN_PREFIX.length());
+            for (Attribute attribute : Attribute.values()) {
+                if (attribute.matches(requested))
+                    matched.add(attribute);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Returns this projection plus one attribute, e.g. a keyset column the caller needs
+     * even though the client did not ask for it.
+     *
+     * @param attribute attribute to add
+     * @return projection including the attribute
+     */
+    public UserProjection with(Attribute attribute) {
+        if (attributes.contains(attribute))
+            return this;
+        EnumSet<Attribute> widened = EnumSet.copyOf(attributes);
+        widened.add(attribute);
+        return of(widened);
+    }
+
+    /**
+     * @return whether every attribute is included, so whole entities can be loaded
+     */
+    public boolean isFull() {
+        return this == ALL;
+    }
+
+    /**
+     * @param attribute attribute to test
+     * @return whether the attribute is returned
+     */
+    public boolean includes(Attribute attribute) {
+        return attributes.contains(attribute);
+    }
+
+    /**
+     * @return whether any {@code name} sub-attribute is returned
+     */
+    public boolean includesName() {
+        return includes(Attribute.GIVEN_NAME) || includes(Attribute.FAMILY_NAME);
+    }
+
+    /**
+     * @return whether any {@code meta} sub-attribute is returned
+     */
+    public boolean includesMeta() {
+        return includes(Attribute.RESOURCE_TYPE) || includes(Attribute.CREATED)
+                || includes(Attribute.LAST_MODIFIED) || includes(Attribute.LOCATION) || includes(Attribute.VERSION);
+    }
+
+    /**
+     * @return the included attributes, in representation order
+     */
+    public Set<Attribute> attributes() {
+        return Collections.unmodifiableSet(attributes);
+    }
+}
@@ -4,7 +4,7 @@
  * Description:
  *  Repository interface for managing {@link com.okta.scim.server.example.entity.UserEntity} instances.
  *  Provides database access methods for SCIM user records, including lookups by SCIM ID, username,
- *  and external (Okta) ID.
+ *  and external (Okta) ID, plus SCIM filter specifications and keyset paging.
  *
  * Project: Okta SCIM Server Example
  */
@@ -13,26 +13,15 @@ package com.okta.scim.server.example.repository;
 
 import com.okta.scim.server.example.entity.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 
 /**
- * Repository interface for managing {@link UserEntity} instances.
+ * Repository interface for managing {@link UserEntity} instances. Single-user lookups by
+ * SCIM ID, username and external ID live in {@link UserRepositoryCustom} so they can be
+ * served from the second-level cache.
  */
 @Repository
-public interface UserRepository extends JpaRepository<UserEntity, Long> {
-
-    /**
-     * Finds a user by their username.
-     */
-    UserEntity findByUserName(String userName);
-
-    /**
-     * Finds a user by their SCIM ID.
-     */
-    UserEntity findByScimId(Long scimId);
-
-    /**
-     * Finds a user by their external (Okta) ID.
-     */
-    UserEntity findByExternalId(String externalId);
+public interface UserRepository extends JpaRepository<UserEntity, Long>, JpaSpecificationExecutor<UserEntity>,
+        UserRepositoryCustom {
 }
@@ -0,0 +1,125 @@
+/**
+ * UserRepositoryCustom.java
+ *
+ * Description:
+ *  Hand-written query fragment of {@link UserRepository} for queries that derived methods
+ *  cannot express, such as keyset pages over an arbitrary SCIM filter specification.
+ *
+ * Project: Okta SCIM Server Example
+ */
+
+package com.okta.scim.server.example.repository;
+
+import com.okta.scim.server.example.entity.UserEntity;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Custom query methods mixed into {@link UserRepository}.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Finds a user by their SCIM ID, served from the second-level cache when present.
+     */
+    UserEntity findByScimId(Long scimId);
+
+    /**
+     * Finds a user by their username through the natural-id cache.
+     */
+    UserEntity findByUserName(String userName);
+
+    /**
+     * Finds a user by their external (Okta) ID. A bounded externalId-to-SCIM-ID index
+     * resolves repeat lookups to a cached entity; hits are verified against the entity so
+     * a stale index entry can never return the wrong user.
+     */
+    UserEntity findByExternalId(String externalId);
+
+    /**
+     * Streams up to {@code limit} users matching the specification whose SCIM ID is greater
+     * than {@code afterScimId}, in SCIM ID order (a keyset seek, no OFFSET). Rows are read
+     * through a forward-only cursor with the given JDBC fetch size and detached as they are
+     * consumed, so the persistence context stays empty. Must be consumed and closed inside
+     * a transaction.
+     * <p>
+     * Unless the projection is {@link UserProjection#ALL}, only the SCIM ID and the
+     * projected columns are selected, and each row arrives as a transient entity with
+     * just those attributes set; such entities must not be saved.
+     */
+    Stream<UserEntity> streamPage(Specification<UserEntity> spec, Long afterScimId, int limit, int fetchSize,
+            UserProjection projection);
+
+    /**
+     * Streams every user, active or not, in SCIM ID order through one forward-only cursor
+     * with the given JDBC fetch size, for full exports. Rows are detached as they are
+     * consumed and never stored in the second-level cache, so memory use does not grow
+     * with the table. Must be consumed and closed inside a transaction.
+     */
+    Stream<UserEntity> streamAll(int fetchSize);
+
+    /**
+     * Returns the SCIM ID at the given zero-based offset among users matching the
+     * specification, reading only the ID column; null if the offset is past the end.
+     */
+    Long findScimIdAtOffset(Specification<UserEntity> spec, long offset);
+
+    /**
+     * Streams up to {@code limit} users matching the specification that come after
+     * {@code after} in {@code (lastModified, scimId)} order, or from the start when
+     * {@code after} is null. Used for {@code meta.lastModified} change queries: the seek is
+     * a range on the {@code (last_modified, scim_id)} index, and users modified while a
+     * client pages move behind its cursor instead of shifting the pages it has yet to read.
+     * Same cursor, transaction and projection rules as {@link #streamPage}; lastModified is
+     * always selected.
+     */
+    Stream<UserEntity> streamChangedPage(Specification<UserEntity> spec, ChangeKey after, int limit, int fetchSize,
+            UserProjection projection);
+
+    /**
+     * Returns the change-feed position at the given zero-based offset among users matching
+     * the specification, reading only the key columns; null if the offset is past the end.
+     */
+    ChangeKey findChangeKeyAtOffset(Specification<UserEntity> spec, long offset);
+
+    /**
+     * Inserts the user, or reactivates and updates the existing row with the same
+     * username, in a single atomic statement ({@code INSERT ... ON DUPLICATE KEY UPDATE} on
+     * MySQL, {@code MERGE} on H2). Concurrent calls for the same username cannot race on
+     * the unique constraint. Runs in its own transaction unless one is already active.
+     *
+     * <p>
+     * An archived user with the candidate's username (or else its externalId) is first
+     * restored, so it is reactivated under its old SCIM ID rather than created again.
+     *
+     * @param candidate     values to insert; its SCIM ID is ignored and allocated here
+     * @param nameProvided  whether given/family name should overwrite an existing row
+     * @param emailProvided whether the email should overwrite an existing row
+     * @return the resulting row and whether it was created
+     */
+    UserUpsertResult upsertByUserName(UserEntity candidate, boolean nameProvided, boolean emailProvided);
+
+    /**
+     * Moves up to {@code limit} inactive users not modified since {@code cutoff} into
+     * {@code users_archive}, together with their group memberships, in one transaction.
+     * The rows are locked before they are copied, so a concurrent reactivation either
+     * completes first (and the user is no longer selected) or waits and then restores it.
+     *
+     * @param cutoff last_modified before which an inactive user is archived
+     * @param limit  maximum number of users to move
+     * @return SCIM IDs of the archived users; fewer than {@code limit} when none are left
+     */
+    List<Long> archiveInactive(Instant cutoff, int limit);
+
+    /**
+     * Moves an archived user, and its group memberships, back into {@code users}. Nothing
+     * is restored when a current user already has its username or externalId.
+     *
+     * @param scimId SCIM ID of the archived user
+     * @return whether the user was restored
+     */
+    boolean restoreArchived(Long scimId);
+}
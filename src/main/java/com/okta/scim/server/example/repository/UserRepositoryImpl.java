@@ -0,0 +1,549 @@
+/**
+ * UserRepositoryImpl.java
+ *
+ * Description:
+ *  Criteria-based implementation of {@link UserRepositoryCustom}.
+ *
+ * Project: Okta SCIM Server Example
+ */
+
+package com.okta.scim.server.example.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.okta.scim.server.example.datasource.ReplicaSet;
+import com.okta.scim.server.example.datasource.TenantKey;
+import com.okta.scim.server.example.entity.UserEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.access.EntityDataAccess;
+import org.hibernate.cache.spi.access.NaturalIdDataAccess;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.jpa.AvailableHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * Implements the custom {@link UserRepository} queries with the JPA Criteria API.
+ */
+public class UserRepositoryImpl implements UserRepositoryCustom {
+
+    /** Query space declared by the upsert so Hibernate does not invalidate whole regions. */
+    private static final String UPSERT_QUERY_SPACE = "users_upsert";
+
+    /**
+     * MySQL upsert. Every assignment is guarded by {@code user_name = VALUES(user_name)} so
+     * that a duplicate on another unique key (external_id) leaves that other row untouched;
+     * the caller then sees no row for its username and reports a conflict.
+     */
+    private static final String MYSQL_UPSERT = """
+            INSERT INTO users (scim_id, user_name, external_id, given_name, family_name, email, active, version,
+                               created, last_modified)
+            VALUES (:scimId, :userName, :externalId, :givenName, :familyName, :email, :active, 0, :now, :now)
+            ON DUPLICATE KEY UPDATE
+              version = IF(user_name = VALUES(user_name), version + 1, version),
+              last_modified = IF(user_name = VALUES(user_name), VALUES(last_modified), last_modified),
+              external_id = IF(user_name = VALUES(user_name), VALUES(external_id), external_id),
+              given_name = IF(user_name = VALUES(user_name) AND :nameProvided, VALUES(given_name), given_name),
+              family_name = IF(user_name = VALUES(user_name) AND :nameProvided, VALUES(family_name), family_name),
+              email = IF(user_name = VALUES(user_name) AND :emailProvided, VALUES(email), email),
+              active = IF(user_name = VALUES(user_name), VALUES(active), active)
+            """;
+
+    private static final String H2_UPSERT = """
+            MERGE INTO users u
+            USING (VALUES (CAST(:scimId AS BIGINT), CAST(:userName AS VARCHAR(255)), CAST(:externalId AS VARCHAR(255)),
+                           CAST(:givenName AS VARCHAR(255)), CAST(:familyName AS VARCHAR(255)),
+                           CAST(:email AS VARCHAR(255)), CAST(:active AS BOOLEAN)))
+              AS s(scim_id, user_name, external_id, given_name, family_name, email, active)
+            ON u.user_name = s.user_name
+            WHEN MATCHED THEN UPDATE SET
+              external_id = s.external_id,
+              given_name = CASE WHEN :nameProvided THEN s.given_name ELSE u.given_name END,
+              family_name = CASE WHEN :nameProvided THEN s.family_name ELSE u.family_name END,
+              email = CASE WHEN :emailProvided THEN s.email ELSE u.email END,
+              active = s.active,
+              version = u.version + 1,
+              last_modified = CAST(:now AS TIMESTAMP(6) WITH TIME ZONE)
+            WHEN NOT MATCHED THEN INSERT (scim_id, user_name, external_id, given_name, family_name, email, active, version,
+                                          created, last_modified)
+              VALUES (s.scim_id, s.user_name, s.external_id, s.given_name, s.family_name, s.email, s.active, 0,
+                      CAST(:now AS TIMESTAMP(6) WITH TIME ZONE), CAST(:now AS TIMESTAMP(6) WITH TIME ZONE))
+            """;
+
+    /** Query space of the archive statements, so they do not invalidate whole regions either. */
+    private static final String ARCHIVE_QUERY_SPACE = "users_archive";
+
+    /** Archived memberships no longer appear in their groups, so those groups change version. */
+    private static final String BUMP_GROUPS_OF_USERS = """
+            UPDATE scim_groups SET version = version + 1
+            WHERE scim_id IN (SELECT group_id FROM group_members WHERE user_id IN (:ids))
+            """;
+
+    private static final String ARCHIVE_USERS = """
+            INSERT INTO users_archive (scim_id, user_name, external_id, given_name, family_name, email, active, version,
+                                       created, last_modified, archived)
+            SELECT scim_id, user_name, external_id, given_name, family_name, email, active, version,
+                   created, last_modified, :now
+            FROM users WHERE scim_id IN (:ids)
+            """;
+
+    private static final String ARCHIVE_MEMBERS = """
+            INSERT INTO group_members_archive (group_id, user_id)
+            SELECT group_id, user_id FROM group_members WHERE user_id IN (:ids)
+            """;
+
+    /** Deleting the users also deletes their group_members rows (ON DELETE CASCADE). */
+    private static final String DELETE_USERS = "DELETE FROM users WHERE scim_id IN (:ids)";
+
+    private static final String RESTORE_USER = """
+            INSERT INTO users (scim_id, user_name, external_id, given_name, family_name, email, active, version,
+                               created, last_modified)
+            SELECT a.scim_id, a.user_name, a.external_id, a.given_name, a.family_name, a.email, a.active, a.version,
+                   a.created, a.last_modified
+            FROM users_archive a
+            WHERE a.scim_id = :scimId
+              AND NOT EXISTS (SELECT 1 FROM users u WHERE u.user_name = a.user_name OR u.external_id = a.external_id)
+            """;
+
+    private static final String BUMP_GROUPS_OF_ARCHIVED_USER = """
+            UPDATE scim_groups SET version = version + 1
+            WHERE scim_id IN (SELECT group_id FROM group_members_archive WHERE user_id = :scimId)
+            """;
+
+    private static final String RESTORE_MEMBERS = """
+            INSERT INTO group_members (group_id, user_id)
+            SELECT group_id, user_id FROM group_members_archive WHERE user_id = :scimId
+            """;
+
+    /** Deleting the archived user also deletes its group_members_archive rows. */
+    private static final String DELETE_ARCHIVED_USER = "DELETE FROM users_archive WHERE scim_id = :scimId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Cache<TenantKey<String>, Long> externalIdIndex;
+
+    private final ObjectProvider<ReplicaSet> replicaSet;
+
+    public UserRepositoryImpl(@Value("${scim.cache.external-id-index-size:100000}") long externalIdIndexSize,
+            @Value("${scim.cache.external-id-index-ttl:10m}") Duration externalIdIndexTtl,
+            MeterRegistry meterRegistry, ObjectProvider<ReplicaSet> replicaSet) {
+        this.replicaSet = replicaSet;
+        this.externalIdIndex = Caffeine.newBuilder()
+                .maximumSize(externalIdIndexSize)
+                .expireAfterWrite(externalIdIndexTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, externalIdIndex, "scim.external-id-index");
+    }
+
+    @Override
+    public UserEntity findByScimId(Long scimId) {
+        if (scimId == null)
+            return null;
+        return mayReadStale()
+                ? entityManager.find(UserEntity.class, scimId, Map.of(AvailableHints.HINT_SPEC_CACHE_STORE_MODE,
+                        CacheStoreMode.BYPASS))
+                : entityManager.find(UserEntity.class, scimId);
+    }
+
+    /**
+     * Whether the current read may be served by a lagging replica. Such rows are read
+     * through the second-level cache but never stored in it, where they could replace a
+     * newer version and fail the next write's optimistic-locking check.
+     */
+    private boolean mayReadStale() {
+        ReplicaSet replicas = replicaSet.getIfAvailable();
+        return replicas != null && replicas.mayReadStale();
+    }
+
+    @Override
+    public UserEntity findByUserName(String userName) {
+        if (userName == null)
+            return null;
+        UserEntity user = entityManager.unwrap(Session.class).bySimpleNaturalId(UserEntity.class).load(userName);
+        // userName is case-insensitive, so a resolution cached under another spelling can
+        // outlive a rename of that user; re-check against the loaded row.
+        if (user != null && !userName.equalsIgnoreCase(user.getUserName()))
+            return selectByUserName(userName);
+        return user;
+    }
+
+    @Override
+    public UserEntity findByExternalId(String externalId) {
+        if (externalId == null)
+            return null;
+        TenantKey<String> key = TenantKey.of(externalId);
+        Long scimId = externalIdIndex.getIfPresent(key);
+        if (scimId != null) {
+            UserEntity user = findByScimId(scimId);
+            if (user != null && externalId.equals(user.getExternalId()))
+                return user;
+            externalIdIndex.invalidate(key);
+        }
+        List<UserEntity> found = entityManager
+                .createQuery("SELECT u FROM UserEntity u WHERE u.externalId = :externalId", UserEntity.class)
+                .setParameter("externalId", externalId)
+                .getResultList();
+        if (found.isEmpty())
+            return null;
+        externalIdIndex.put(key, found.get(0).getScimId());
+        return found.get(0);
+    }
+
+    @Override
+    public Stream<UserEntity> streamPage(Specification<UserEntity> spec, Long afterScimId, int limit, int fetchSize,
+            UserProjection projection) {
+        return streamOrdered(spec, projection, limit, fetchSize, (root, cb) -> {
+            Path<Long> scimId = root.get("scimId");
+            return new SeekOrder(cb.greaterThan(scimId, afterScimId), List.of(cb.asc(scimId)));
+        });
+    }
+
+    @Override
+    public Stream<UserEntity> streamAll(int fetchSize) {
+        return entityManager.createQuery("SELECT u FROM UserEntity u ORDER BY u.scimId", UserEntity.class)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .setHint(AvailableHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.BYPASS)
+                .getResultStream()
+                .peek(entityManager::detach);
+    }
+
+    @Override
+    public Long findScimIdAtOffset(Specification<UserEntity> spec, long offset) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<UserEntity> root = query.from(UserEntity.class);
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        query.select(root.get("scimId")).where(predicate).orderBy(cb.asc(root.get("scimId")));
+        List<Long> ids = entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(1)
+                .getResultList();
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    @Override
+    public Stream<UserEntity> streamChangedPage(Specification<UserEntity> spec, ChangeKey after, int limit,
+            int fetchSize, UserProjection projection) {
+        // The caller continues from the last row's lastModified, so it is always selected.
+        return streamOrdered(spec, projection.with(UserProjection.Attribute.LAST_MODIFIED), limit, fetchSize,
+                (root, cb) -> {
+                    Path<Instant> lastModified = root.get("lastModified");
+                    Path<Long> scimId = root.get("scimId");
+                    // (lastModified, scimId) > (after): the leading >= bounds the index range,
+                    // the OR only discards the rows sharing the boundary timestamp.
+                    Predicate seek = after == null ? null : cb.and(
+                            cb.greaterThanOrEqualTo(lastModified, after.lastModified()),
+                            cb.or(cb.greaterThan(lastModified, after.lastModified()),
+                                    cb.greaterThan(scimId, after.scimId())));
+                    return new SeekOrder(seek, List.of(cb.asc(lastModified), cb.asc(scimId)));
+                });
+    }
+
+    /** Keyset predicate (null on the first page) and the matching sort order of a page query. */
+    private record SeekOrder(Predicate seek, List<Order> order) {
+        Predicate where(Predicate filter, CriteriaBuilder cb) {
+            return seek == null ? filter : cb.and(filter, seek);
+        }
+    }
+
+    /**
+     * Runs a keyset page query. The full projection loads entities (detached as they are
+     * consumed); a narrower one selects only the SCIM ID and the projected columns and
+     * assembles each row into a transient entity that is never attached to the session.
+     */
+    private Stream<UserEntity> streamOrdered(Specification<UserEntity> spec, UserProjection projection, int limit,
+            int fetchSize, BiFunction<Root<UserEntity>, CriteriaBuilder, SeekOrder> page) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        if (projection.isFull()) {
+            CriteriaQuery<UserEntity> query = cb.createQuery(UserEntity.class);
+            Root<UserEntity> root = query.from(UserEntity.class);
+            SeekOrder seekOrder = page.apply(root, cb);
+            query.select(root)
+                    .where(seekOrder.where(spec.toPredicate(root, query, cb), cb))
+                    .orderBy(seekOrder.order());
+            return entityManager.createQuery(query)
+                    .setMaxResults(limit)
+                    .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                    .setHint(AvailableHints.HINT_READ_ONLY, true)
+                    .setHint(AvailableHints.HINT_SPEC_CACHE_STORE_MODE,
+                            mayReadStale() ? CacheStoreMode.BYPASS : CacheStoreMode.USE)
+                    .getResultStream()
+                    .peek(entityManager::detach);
+        }
+
+        List<UserProjection.Attribute> columns = projection.attributes().stream()
+                .filter(a -> a.field() != null)
+                .toList();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<UserEntity> root = query.from(UserEntity.class);
+        SeekOrder seekOrder = page.apply(root, cb);
+        List<Selection<?>> select = new ArrayList<>(columns.size() + 1);
+        select.add(root.get("scimId"));
+        columns.forEach(a -> select.add(root.get(a.field())));
+        query.multiselect(select)
+                .where(seekOrder.where(spec.toPredicate(root, query, cb), cb))
+                .orderBy(seekOrder.order());
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream()
+                .map(row -> {
+                    UserEntity user = new UserEntity();
+                    user.setScimId((Long) row[0]);
+                    for (int i = 0; i < columns.size(); i++)
+                        columns.get(i).set(user, row[i + 1]);
+                    return user;
+                });
+    }
+
+    @Override
+    public ChangeKey findChangeKeyAtOffset(Specification<UserEntity> spec, long offset) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ChangeKey> query = cb.createQuery(ChangeKey.class);
+        Root<UserEntity> root = query.from(UserEntity.class);
+        Path<Instant> lastModified = root.get("lastModified");
+        Path<Long> scimId = root.get("scimId");
+        query.select(cb.construct(ChangeKey.class, lastModified, scimId))
+                .where(spec.toPredicate(root, query, cb))
+                .orderBy(cb.asc(lastModified), cb.asc(scimId));
+        List<ChangeKey> keys = entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(1)
+                .getResultList();
+        return keys.isEmpty() ? null : keys.get(0);
+    }
+
+    @Override
+    @Transactional
+    public UserUpsertResult upsertByUserName(UserEntity candidate, boolean nameProvided, boolean emailProvided) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        Dialect dialect = session.getJdbcServices().getDialect();
+        String sql = dialect instanceof MySQLDialect ? MYSQL_UPSERT : dialect instanceof H2Dialect ? H2_UPSERT : null;
+        if (sql == null)
+            return findThenSave(candidate, nameProvided, emailProvided);
+
+        // Reserve the ID up front from the pooled generator; on update it is simply unused.
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(UserEntity.class);
+        Long scimId = (Long) persister.getIdentifierGenerator().generate(session, candidate);
+        restoreArchived(candidate.getUserName(), candidate.getExternalId());
+        // The statement bypasses @CreationTimestamp/@UpdateTimestamp, so stamp it here at the
+        // columns' microsecond precision.
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+
+        entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                // A native write without query spaces would invalidate every cache region;
+                // declare a private space instead and evict just the affected row below.
+                .addSynchronizedQuerySpace(UPSERT_QUERY_SPACE)
+                .setParameter("scimId", scimId)
+                .setParameter("userName", candidate.getUserName())
+                .setParameter("externalId", candidate.getExternalId())
+                .setParameter("givenName", candidate.getGivenName())
+                .setParameter("familyName", candidate.getFamilyName())
+                .setParameter("email", candidate.getEmail())
+                .setParameter("active", candidate.getActive())
+                .setParameter("nameProvided", nameProvided)
+                .setParameter("emailProvided", emailProvided)
+                .setParameter("now", now)
+                .executeUpdate();
+
+        UserEntity user = selectByUserName(candidate.getUserName());
+        if (user == null)
+            throw new DataIntegrityViolationException("externalId " + candidate.getExternalId() + " belongs to another user");
+        evictAfterCommit(user.getScimId());
+        return new UserUpsertResult(user, scimId.equals(user.getScimId()));
+    }
+
+    /**
+     * Non-atomic fallback for databases without a supported upsert statement.
+     */
+    private UserUpsertResult findThenSave(UserEntity candidate, boolean nameProvided, boolean emailProvided) {
+        restoreArchived(candidate.getUserName(), candidate.getExternalId());
+        UserEntity existing = selectByUserName(candidate.getUserName());
+        if (existing == null) {
+            entityManager.persist(candidate);
+            return new UserUpsertResult(candidate, true);
+        }
+        existing.setExternalId(candidate.getExternalId());
+        if (nameProvided) {
+            existing.setGivenName(candidate.getGivenName());
+            existing.setFamilyName(candidate.getFamilyName());
+        }
+        if (emailProvided)
+            existing.setEmail(candidate.getEmail());
+        existing.setActive(candidate.getActive());
+        return new UserUpsertResult(existing, false);
+    }
+
+    @Override
+    @Transactional
+    public List<Long> archiveInactive(Instant cutoff, int limit) {
+        List<Object[]> rows = entityManager.createQuery("""
+                SELECT u.scimId, u.userName FROM UserEntity u
+                WHERE u.active = false AND u.lastModified < :cutoff
+                ORDER BY u.scimId""", Object[].class)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(limit)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .getResultList();
+        if (rows.isEmpty())
+            return List.of();
+
+        List<Long> scimIds = new ArrayList<>(rows.size());
+        for (Object[] row : rows)
+            scimIds.add((Long) row[0]);
+        archiveStatement(BUMP_GROUPS_OF_USERS).setParameter("ids", scimIds).executeUpdate();
+        archiveStatement(ARCHIVE_USERS).setParameter("ids", scimIds)
+                .setParameter("now", Instant.now().truncatedTo(ChronoUnit.MICROS))
+                .executeUpdate();
+        archiveStatement(ARCHIVE_MEMBERS).setParameter("ids", scimIds).executeUpdate();
+        archiveStatement(DELETE_USERS).setParameter("ids", scimIds).executeUpdate();
+
+        for (Object[] row : rows) {
+            evictAfterCommit((Long) row[0]);
+            evictNaturalId((String) row[1]);
+        }
+        return scimIds;
+    }
+
+    @Override
+    @Transactional
+    public boolean restoreArchived(Long scimId) {
+        if (scimId == null || archiveStatement(RESTORE_USER).setParameter("scimId", scimId).executeUpdate() == 0)
+            return false;
+        archiveStatement(BUMP_GROUPS_OF_ARCHIVED_USER).setParameter("scimId", scimId).executeUpdate();
+        archiveStatement(RESTORE_MEMBERS).setParameter("scimId", scimId).executeUpdate();
+        archiveStatement(DELETE_ARCHIVED_USER).setParameter("scimId", scimId).executeUpdate();
+        evictAfterCommit(scimId);
+        return true;
+    }
+
+    /**
+     * Restores the archived user with this username, or else with this externalId. One
+     * indexed lookup on the archive when there is nothing to restore.
+     * <p>
+     * The live rows with this username and externalId are locked first, in the order
+     * {@link #archiveInactive} takes its locks (users, then users_archive): an archive job
+     * that already holds them has committed by the time the lock is granted, and one that
+     * has not reached them cannot move them until this transaction ends. Without this, a
+     * user archived between the lookup and the upsert would be re-created with a new ID
+     * while its old identity stayed in the archive. The archive reads are locking reads
+     * too, so they see rows archived after this transaction's snapshot was taken.
+     */
+    private void restoreArchived(String userName, String externalId) {
+        entityManager.createNativeQuery("SELECT scim_id FROM users WHERE user_name = :userName FOR UPDATE")
+                .setParameter("userName", userName)
+                .getResultList();
+        if (externalId != null)
+            entityManager.createNativeQuery("SELECT scim_id FROM users WHERE external_id = :externalId FOR UPDATE")
+                    .setParameter("externalId", externalId)
+                    .getResultList();
+
+        // LIMIT in the statement: MySQL requires it before FOR UPDATE.
+        List<?> found = entityManager.createNativeQuery("""
+                SELECT scim_id FROM users_archive WHERE user_name = :userName
+                ORDER BY archived DESC LIMIT 1 FOR UPDATE""")
+                .setParameter("userName", userName)
+                .getResultList();
+        if (found.isEmpty() && externalId != null)
+            found = entityManager.createNativeQuery("""
+                    SELECT scim_id FROM users_archive WHERE external_id = :externalId
+                    ORDER BY archived DESC LIMIT 1 FOR UPDATE""")
+                    .setParameter("externalId", externalId)
+                    .getResultList();
+        if (!found.isEmpty())
+            restoreArchived(((Number) found.get(0)).longValue());
+    }
+
+    @SuppressWarnings("rawtypes")
+    private NativeQuery archiveStatement(String sql) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(ARCHIVE_QUERY_SPACE);
+    }
+
+    /**
+     * Drops the cached username-to-ID resolution of a user that left the table, so a
+     * user created later under that username is not resolved to the archived ID.
+     */
+    private void evictNaturalId(String userName) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(UserEntity.class);
+        if (!persister.hasNaturalIdCache())
+            return;
+        NaturalIdDataAccess access = persister.getNaturalIdCacheAccessStrategy();
+        access.evict(access.generateCacheKey(userName, persister, session));
+    }
+
+    /**
+     * Evicts a user row from the second-level cache now and again once the surrounding
+     * transaction commits, so a concurrent reader cannot re-cache the pre-commit state.
+     */
+    private void evictAfterCommit(Long scimId) {
+        // Built from the session rather than through jakarta.persistence.Cache#evict, whose
+        // key carries no tenant and so misses every entry when Hibernate is multi-tenant.
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        EntityPersister persister = session.getFactory().getMappingMetamodel().getEntityDescriptor(UserEntity.class);
+        EntityDataAccess access = persister.getCacheAccessStrategy();
+        if (access == null)
+            return;
+        Object key = access.generateCacheKey(scimId, persister, session.getFactory(), session.getTenantIdentifier());
+        access.evict(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    access.evict(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reads a user by username straight from the database, bypassing the caches.
+     */
+    private UserEntity selectByUserName(String userName) {
+        List<UserEntity> found = entityManager
+                .createQuery("SELECT u FROM UserEntity u WHERE u.userName = :userName", UserEntity.class)
+                .setParameter("userName", userName)
+                .getResultList();
+        return found.isEmpty() ? null : found.get(0);
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * UserUpsertResult.java
+ *
+ * Description:
+ *  Outcome of an atomic create-or-reactivate upsert on the "users" table.
+ *
+ * Project: Okta SCIM Server Example
+ */
+
+package com.okta.scim.server.example.repository;
+
+import com.okta.scim.server.example.entity.UserEntity;
+
+/**
+ * The row produced by an upsert and whether it was newly inserted.
+ *
+ * @param user    the resulting user row
+ * @param created true if the row was inserted, false if an existing row was updated
+ */
+public record UserUpsertResult(UserEntity user, boolean created) {
+}
@@ -0,0 +1,54 @@
+/**
+ * ETags.java
+ *
+ * Formats and matches entity tags derived from entity versions.
+ */
+package com.okta.scim.server.example.serializer;
+
+/**
+ * SCIM resources carry weak entity tags ({@code W/"<version>"}) built from the
+ * optimistic-locking version column. The same string is used for the {@code ETag}
+ * header, {@code meta.version} and bulk operation {@code version} values.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Formats a version as a weak entity tag.
+     *
+     * @param version entity version
+     * @return entity tag, e.g. {@code W/"3"}
+     */
+    public static String format(Long version) {
+        return "W/\"" + (version != null ? version : 0L) + "\"";
+    }
+
+    /**
+     * Checks an {@code If-Match}/{@code If-None-Match} value against a version. The value
+     * may be {@code *} or a comma-separated list of strong or weak tags; tags are compared
+     * weakly, as RFC 7232 requires for If-None-Match and SCIM allows for If-Match.
+     *
+     * @param header  header value
+     * @param version current entity version
+     * @return whether any listed tag matches
+     */
+    public static boolean matches(String header, Long version) {
+        if (header == null)
+            return false;
+        String current = String.valueOf(version != null ? version : 0L);
+        for (String tag : header.split(",")) {
+            String t = tag.trim();
+            if (t.equals("*"))
+                return true;
+            if (t.startsWith("W/"))
+                t = t.substring(2);
+            if (t.length() >= 2 && t.startsWith("\"") && t.endsWith("\""))
+                t = t.substring(1, t.length() - 1);
+            if (t.equals(current))
+                return true;
+        }
+        return false;
+    }
+}
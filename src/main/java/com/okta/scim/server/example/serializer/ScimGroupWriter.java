@@ -0,0 +1,118 @@
+/**
+ * ScimGroupWriter.java
+ *
+ * Streams SCIM group representations with a Jackson JsonGenerator.
+ */
+package com.okta.scim.server.example.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.okta.scim.server.example.entity.GroupEntity;
+import com.okta.scim.server.example.repository.GroupMember;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes SCIM Group resources and ListResponses token by token. Members are pulled from a
+ * database cursor while they are written, so a group with tens of thousands of members
+ * is never held in memory; with {@code excludedAttributes=members} they are not read at
+ * all.
+ */
+@Component
+public class ScimGroupWriter {
+
+    public static final String GROUP_SCHEMA = "urn:ietf:params:scim:schemas:core:2.0:Group";
+    private static final String LOCATION_PREFIX = "/scim/v2/Groups/";
+    private static final String USER_LOCATION_PREFIX = "/scim/v2/Users/";
+
+    private final ScimUserWriter scimUserWriter;
+
+    public ScimGroupWriter(ScimUserWriter scimUserWriter) {
+        this.scimUserWriter = scimUserWriter;
+    }
+
+    /**
+     * Writes one SCIM Group document.
+     *
+     * @param out     target stream
+     * @param group   group to write
+     * @param members the group's members, or null to omit the attribute
+     * @throws IOException if writing fails
+     */
+    public void writeGroup(OutputStream out, GroupEntity group, Iterator<GroupMember> members) throws IOException {
+        try (JsonGenerator gen = scimUserWriter.createGenerator(out)) {
+            writeGroup(gen, group, members);
+        }
+    }
+
+    /**
+     * Writes a ListResponse of groups.
+     *
+     * @param out          target stream
+     * @param totalResults total number of matches
+     * @param startIndex   1-based index of the first result
+     * @param groups       groups of this page
+     * @param members      opens the member stream of a group (closed after writing it), or
+     *                     null to omit members
+     * @throws IOException if writing fails
+     */
+    public void writeListResponse(OutputStream out, long totalResults, int startIndex, List<GroupEntity> groups,
+            Function<GroupEntity, Stream<GroupMember>> members) throws IOException {
+        try (JsonGenerator gen = scimUserWriter.createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("schemas");
+            gen.writeString(ScimUserWriter.LIST_RESPONSE_SCHEMA);
+            gen.writeEndArray();
+            gen.writeNumberField("totalResults", totalResults);
+            gen.writeNumberField("startIndex", startIndex);
+            gen.writeArrayFieldStart("Resources");
+            for (GroupEntity group : groups) {
+                if (members == null) {
+                    writeGroup(gen, group, null);
+                } else {
+                    try (Stream<GroupMember> stream = members.apply(group)) {
+                        writeGroup(gen, group, stream.iterator());
+                    }
+                }
+            }
+            gen.writeEndArray();
+            gen.writeNumberField("itemsPerPage", groups.size());
+            gen.writeEndObject();
+        }
+    }
+
+    private void writeGroup(JsonGenerator gen, GroupEntity group, Iterator<GroupMember> members) throws IOException {
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("schemas");
+        gen.writeString(GROUP_SCHEMA);
+        gen.writeEndArray();
+        gen.writeStringField("id", String.valueOf(group.getScimId()));
+        gen.writeStringField("externalId", group.getExternalId());
+        gen.writeStringField("displayName", group.getDisplayName());
+
+        if (members != null) {
+            gen.writeArrayFieldStart("members");
+            while (members.hasNext()) {
+                GroupMember member = members.next();
+                gen.writeStartObject();
+                gen.writeStringField("value", String.valueOf(member.userId()));
+                gen.writeStringField("display", member.display());
+                gen.writeStringField("$ref", USER_LOCATION_PREFIX + member.userId());
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        }
+
+        gen.writeObjectFieldStart("meta");
+        gen.writeStringField("resourceType", "Group");
+        gen.writeStringField("location", LOCATION_PREFIX + group.getScimId());
+        gen.writeStringField("version", ETags.format(group.getVersion()));
+        gen.writeEndObject();
+        gen.writeEndObject();
+    }
+}
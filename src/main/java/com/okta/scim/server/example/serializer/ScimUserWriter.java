@@ -0,0 +1,190 @@
+/**
+ * ScimUserWriter.java
+ *
+ * Streams SCIM user representations straight from entities with a Jackson JsonGenerator.
+ */
+package com.okta.scim.server.example.serializer;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okta.scim.server.example.entity.UserEntity;
+import com.okta.scim.server.example.repository.UserProjection;
+import com.okta.scim.server.example.repository.UserProjection.Attribute;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+/**
+ * Writes SCIM User resources and ListResponses token by token. Produces the same JSON as
+ * {@code UserService.buildSCIMResponse} without building an intermediate map per user,
+ * so list responses are never materialised in memory. A {@link UserProjection} limits
+ * the output to the attributes a request asked for.
+ */
+@Component
+public class ScimUserWriter {
+
+    public static final String USER_SCHEMA = "urn:ietf:params:scim:schemas:core:2.0:User";
+    public static final String LIST_RESPONSE_SCHEMA = "urn:ietf:params:scim:api:messages:2.0:ListResponse";
+    private static final String LOCATION_PREFIX = "/scim/v2/Users/";
+
+    private final ObjectMapper objectMapper;
+
+    public ScimUserWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Opens a UTF-8 generator on the output stream.
+     *
+     * @param out target stream (not closed by the generator)
+     * @return JSON generator
+     * @throws IOException if the generator cannot be created
+     */
+    public JsonGenerator createGenerator(OutputStream out) throws IOException {
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return gen;
+    }
+
+    /**
+     * Renders one SCIM User object to UTF-8 JSON bytes.
+     *
+     * @param user user to render
+     * @return JSON document
+     */
+    public byte[] renderUser(UserEntity user) {
+        return renderUser(user, UserProjection.ALL);
+    }
+
+    /**
+     * Renders the projected attributes of one SCIM User object to UTF-8 JSON bytes.
+     *
+     * @param user       user to render
+     * @param projection attributes to include
+     * @return JSON document
+     */
+    public byte[] renderUser(UserEntity user, UserProjection projection) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        try (JsonGenerator gen = createGenerator(out)) {
+            writeUser(gen, user, projection);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // in-memory stream
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes a ListResponse, pulling users from the iterator one at a time.
+     *
+     * @param out          target stream
+     * @param totalResults total number of matches
+     * @param startIndex   1-based index of the first result
+     * @param users        users of this page, typically backed by a database cursor
+     * @param projection   attributes to include in each user
+     * @param onWritten    called after each user is written (may be null)
+     * @return number of users written
+     * @throws IOException if writing fails
+     */
+    public int writeListResponse(OutputStream out, long totalResults, int startIndex,
+            Iterator<UserEntity> users, UserProjection projection, Consumer<UserEntity> onWritten) throws IOException {
+        int written = 0;
+        try (JsonGenerator gen = createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("schemas");
+            gen.writeString(LIST_RESPONSE_SCHEMA);
+            gen.writeEndArray();
+            gen.writeNumberField("totalResults", totalResults);
+            gen.writeNumberField("startIndex", startIndex);
+            gen.writeArrayFieldStart("Resources");
+            while (users.hasNext()) {
+                UserEntity user = users.next();
+                writeUser(gen, user, projection);
+                written++;
+                if (onWritten != null)
+                    onWritten.accept(user);
+            }
+            gen.writeEndArray();
+            gen.writeNumberField("itemsPerPage", written);
+            gen.writeEndObject();
+        }
+        return written;
+    }
+
+    /**
+     * Writes one SCIM User object.
+     *
+     * @param gen  generator positioned where a value is expected
+     * @param user user to write
+     * @throws IOException if writing fails
+     */
+    public void writeUser(JsonGenerator gen, UserEntity user) throws IOException {
+        writeUser(gen, user, UserProjection.ALL);
+    }
+
+    /**
+     * Writes the projected attributes of one SCIM User object; {@code schemas} and
+     * {@code id} are always written.
+     *
+     * @param gen        generator positioned where a value is expected
+     * @param user       user to write, possibly populated with only the projected columns
+     * @param projection attributes to include
+     * @throws IOException if writing fails
+     */
+    public void writeUser(JsonGenerator gen, UserEntity user, UserProjection projection) throws IOException {
+        gen.writeStartObject();
+        gen.writeArrayFieldStart("schemas");
+        gen.writeString(USER_SCHEMA);
+        gen.writeEndArray();
+        gen.writeStringField("id", String.valueOf(user.getScimId()));
+        if (projection.includes(Attribute.EXTERNAL_ID))
+            gen.writeStringField("externalId", user.getExternalId());
+        if (projection.includes(Attribute.USER_NAME))
+            gen.writeStringField("userName", user.getUserName());
+        if (projection.includes(Attribute.ACTIVE)) {
+            if (user.getActive() != null)
+                gen.writeBooleanField("active", user.getActive());
+            else
+                gen.writeNullField("active");
+        }
+
+        if (projection.includesName()) {
+            gen.writeObjectFieldStart("name");
+            if (projection.includes(Attribute.GIVEN_NAME))
+                gen.writeStringField("givenName", user.getGivenName());
+            if (projection.includes(Attribute.FAMILY_NAME))
+                gen.writeStringField("familyName", user.getFamilyName());
+            gen.writeEndObject();
+        }
+
+        if (projection.includes(Attribute.EMAIL) && user.getEmail() != null) {
+            gen.writeArrayFieldStart("emails");
+            gen.writeStartObject();
+            gen.writeStringField("value", user.getEmail());
+            gen.writeBooleanField("primary", true);
+            gen.writeEndObject();
+            gen.writeEndArray();
+        }
+
+        if (projection.includesMeta()) {
+            gen.writeObjectFieldStart("meta");
+            if (projection.includes(Attribute.RESOURCE_TYPE))
+                gen.writeStringField("resourceType", "User");
+            if (projection.includes(Attribute.CREATED) && user.getCreated() != null)
+                gen.writeStringField("created", user.getCreated().toString());
+            if (projection.includes(Attribute.LAST_MODIFIED) && user.getLastModified() != null)
+                gen.writeStringField("lastModified", user.getLastModified().toString());
+            if (projection.includes(Attribute.LOCATION))
+                gen.writeStringField("location", LOCATION_PREFIX + user.getScimId());
+            if (projection.includes(Attribute.VERSION))
+                gen.writeStringField("version", ETags.format(user.getVersion()));
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,386 @@
+/**
+ * BulkService.java
+ *
+ * Executes SCIM bulk requests in chunked, JDBC-batched transactions.
+ */
+package com.okta.scim.server.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okta.scim.server.example.cache.UserResponseCache;
+import com.okta.scim.server.example.dto.BulkOperationDTO;
+import com.okta.scim.server.example.dto.BulkRequestDTO;
+import com.okta.scim.server.example.dto.UserDTO;
+import com.okta.scim.server.example.entity.UserEntity;
+import com.okta.scim.server.example.exception.ScimException;
+import com.okta.scim.server.example.exception.ScimExceptionHandler;
+import com.okta.scim.server.example.exception.ScimTooManyRequestsException;
+import com.okta.scim.server.example.mapper.UserMapper;
+import com.okta.scim.server.example.repository.UserRepository;
+import com.okta.scim.server.example.repository.UserUpsertResult;
+import com.okta.scim.server.example.serializer.ETags;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Handles {@code POST /scim/v2/Bulk} (RFC 7644 §3.7).
+ * <p>
+ * Operations run in order, in chunks of {@code scim.bulk.chunk-size}. Each chunk is one
+ * transaction: the users its PUT and PATCH operations touch are prefetched with one
+ * set-based query, changes are applied in memory, and a single flush sends them as JDBC
+ * batches. A POST goes through the same atomic upsert as a single {@code POST /Users}, so
+ * concurrent creates of one userName reactivate the user instead of conflicting. If a
+ * chunk fails at flush time (e.g. a unique constraint), it is replayed one operation per
+ * transaction so only the offending operations report an error.
+ */
+@Service
+public class BulkService {
+
+    public static final String BULK_RESPONSE_SCHEMA = "urn:ietf:params:scim:api:messages:2.0:BulkResponse";
+    private static final String BULK_ID_PREFIX = "bulkId:";
+    private static final String USERS_PATH = "/Users";
+    private static final String LOCATION_PREFIX = "/scim/v2/Users/";
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${scim.bulk.max-operations:1000}")
+    private int maxOperations;
+
+    @Value("${scim.bulk.chunk-size:100}")
+    private int chunkSize;
+
+    public BulkService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Executes a bulk request.
+     *
+     * @param request parsed BulkRequest
+     * @return BulkResponse message
+     */
+    public Map<String, Object> processBulk(BulkRequestDTO request) {
+        List<BulkOperationDTO> operations = request.getOperations();
+        if (operations == null)
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidSyntax", "Operations are required");
+        if (operations.size() > maxOperations)
+            throw new ScimException(HttpStatus.PAYLOAD_TOO_LARGE, null,
+                    "The number of operations exceeds maxOperations (" + maxOperations + ")");
+
+        int failOnErrors = request.getFailOnErrors() != null && request.getFailOnErrors() > 0
+                ? request.getFailOnErrors()
+                : Integer.MAX_VALUE;
+        Map<String, Long> bulkIds = new HashMap<>();
+        List<Map<String, Object>> results = new ArrayList<>(operations.size());
+        int errors = 0;
+
+        for (int from = 0; from < operations.size() && errors < failOnErrors; from += chunkSize) {
+            List<BulkOperationDTO> chunk = operations.subList(from, Math.min(from + chunkSize, operations.size()));
+            ChunkResult chunkResult;
+            try {
+                chunkResult = runChunkWithFallback(chunk, bulkIds, failOnErrors - errors);
+            } catch (ScimTooManyRequestsException e) {
+                if (results.isEmpty())
+                    throw e; // nothing applied yet: reject the whole request with 429
+                // Earlier chunks are committed; report this chunk as shed and stop.
+                ChunkResult shed = new ChunkResult();
+                chunk.forEach(op -> shed.addError(op, e));
+                results.addAll(shed.results);
+                break;
+            }
+            bulkIds.putAll(chunkResult.bulkIds);
+            results.addAll(chunkResult.results);
+            errors += chunkResult.errors;
+        }
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("schemas", List.of(BULK_RESPONSE_SCHEMA));
+        response.put("Operations", results);
+        return response;
+    }
+
+    /**
+     * Runs a chunk as one batched transaction; on a flush-time failure, replays it one
+     * operation per transaction.
+     */
+    private ChunkResult runChunkWithFallback(List<BulkOperationDTO> chunk, Map<String, Long> bulkIds, int errorBudget) {
+        try {
+            return transactionTemplate.execute(status -> runChunk(chunk, bulkIds, errorBudget));
+        } catch (DataAccessException e) {
+            logger.debug("Bulk chunk failed at flush, replaying operations individually: {}", e.getMessage());
+            entityManager.clear();
+        }
+
+        ChunkResult combined = new ChunkResult();
+        Map<String, Long> knownBulkIds = new HashMap<>(bulkIds);
+        for (BulkOperationDTO op : chunk) {
+            if (combined.errors >= errorBudget)
+                break;
+            ChunkResult single;
+            try {
+                single = transactionTemplate.execute(status -> runChunk(List.of(op), knownBulkIds, 1));
+            } catch (DataAccessException e) {
+                entityManager.clear();
+                single = new ChunkResult();
+                single.addError(op, e instanceof DataIntegrityViolationException
+                        ? new ScimException(HttpStatus.CONFLICT, "uniqueness", "A user with the same unique attribute already exists")
+                        : new ScimException(HttpStatus.INTERNAL_SERVER_ERROR, null, "Operation failed"));
+            }
+            knownBulkIds.putAll(single.bulkIds);
+            combined.merge(single);
+        }
+        return combined;
+    }
+
+    /**
+     * Applies a chunk of operations inside the current transaction and flushes once.
+     */
+    private ChunkResult runChunk(List<BulkOperationDTO> chunk, Map<String, Long> bulkIds, int errorBudget) {
+        ChunkResult result = new ChunkResult();
+        Map<Long, UserEntity> byScimId = new HashMap<>();
+        prefetch(chunk, bulkIds, byScimId);
+
+        for (BulkOperationDTO op : chunk) {
+            if (result.errors >= errorBudget)
+                break;
+            try {
+                result.results.add(apply(op, bulkIds, result.bulkIds, byScimId));
+            } catch (ScimException e) {
+                result.addError(op, e);
+            } catch (IllegalArgumentException e) {
+                result.addError(op, new ScimException(HttpStatus.BAD_REQUEST, "invalidSyntax", e.getMessage()));
+            }
+        }
+
+        userRepository.flush(); // through the repository proxy, so failures arrive translated
+        byScimId.keySet().forEach(userResponseCache::evict);
+        entityManager.clear();
+        return result;
+    }
+
+    /**
+     * Loads every user the chunk's PUT and PATCH operations refer to with one set-based
+     * query. Archived users among them are restored first, like a single PUT or PATCH does,
+     * so they keep their ID instead of being created again or reported missing.
+     */
+    private void prefetch(List<BulkOperationDTO> chunk, Map<String, Long> bulkIds, Map<Long, UserEntity> byScimId) {
+        Set<Long> scimIds = new HashSet<>();
+        for (BulkOperationDTO op : chunk) {
+            String method = op.getMethod() != null ? op.getMethod().toUpperCase(Locale.ROOT) : "";
+            if ("PUT".equals(method) || "PATCH".equals(method)) {
+                Long id = resolveIdQuietly(op.getPath(), bulkIds);
+                if (id != null)
+                    scimIds.add(id);
+            }
+        }
+        if (scimIds.isEmpty())
+            return;
+        userRepository.findAllById(scimIds).forEach(u -> byScimId.put(u.getScimId(), u));
+        List<Long> restored = new ArrayList<>();
+        for (Long id : scimIds) {
+            if (!byScimId.containsKey(id) && userRepository.restoreArchived(id))
+                restored.add(id);
+        }
+        if (!restored.isEmpty())
+            userRepository.findAllById(restored).forEach(u -> byScimId.put(u.getScimId(), u));
+    }
+
+    private Map<String, Object> apply(BulkOperationDTO op, Map<String, Long> bulkIds, Map<String, Long> chunkBulkIds,
+            Map<Long, UserEntity> byScimId) {
+        String method = op.getMethod() != null ? op.getMethod().toUpperCase(Locale.ROOT) : null;
+        if (method == null)
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidSyntax", "Operation method is required");
+
+        switch (method) {
+            case "POST": {
+                if (!USERS_PATH.equals(op.getPath()))
+                    throw new ScimException(HttpStatus.BAD_REQUEST, "invalidPath", "Unsupported path " + op.getPath());
+                if (op.getBulkId() == null)
+                    throw new ScimException(HttpStatus.BAD_REQUEST, "invalidSyntax", "bulkId is required for POST");
+                UserDTO dto = toUserDTO(op, bulkIds, chunkBulkIds);
+                String username = dto.getUserName() != null ? dto.getUserName().trim() : null;
+                if (username == null || username.isEmpty())
+                    throw new ScimException(HttpStatus.BAD_REQUEST, "invalidValue", "Username is required");
+
+                UserEntity candidate = userMapper.toEntity(dto);
+                candidate.setUserName(username);
+                UserUpsertResult upserted = userRepository.upsertByUserName(candidate, dto.getName() != null,
+                        candidate.getEmail() != null);
+                UserEntity user = upserted.user();
+                // The upsert writes around the persistence context: a copy an earlier
+                // operation of this chunk loaded is stale now.
+                if (byScimId.put(user.getScimId(), user) != null)
+                    entityManager.refresh(user);
+                chunkBulkIds.put(op.getBulkId(), user.getScimId());
+                return success(op, user, upserted.created() ? HttpStatus.CREATED : HttpStatus.OK);
+            }
+            case "PUT": {
+                Long scimId = resolveId(op.getPath(), bulkIds, chunkBulkIds);
+                UserDTO dto = toUserDTO(op, bulkIds, chunkBulkIds);
+                UserEntity found = byScimId.get(scimId);
+                checkVersion(op, found);
+                if (found == null) {
+                    found = userRepository.save(userMapper.toEntity(dto));
+                    byScimId.put(found.getScimId(), found);
+                } else {
+                    userMapper.updateEntityFromDTO(dto, found);
+                }
+                return success(op, found, HttpStatus.OK);
+            }
+            case "PATCH": {
+                Long scimId = resolveId(op.getPath(), bulkIds, chunkBulkIds);
+                UserEntity found = byScimId.get(scimId);
+                if (found == null)
+                    throw new ScimException(HttpStatus.NOT_FOUND, null, "User " + scimId + " not found");
+                checkVersion(op, found);
+                userService.applyPatch(found, resolveReferences(op.getData(), bulkIds, chunkBulkIds));
+                return success(op, found, HttpStatus.OK);
+            }
+            default:
+                throw new ScimException(HttpStatus.METHOD_NOT_ALLOWED, null, "Unsupported bulk method " + method);
+        }
+    }
+
+    /**
+     * Enforces the operation's {@code version} (an ETag) like an If-Match header.
+     */
+    private static void checkVersion(BulkOperationDTO op, UserEntity found) {
+        if (op.getVersion() != null && (found == null || !ETags.matches(op.getVersion(), found.getVersion())))
+            throw new ScimException(HttpStatus.PRECONDITION_FAILED, null, "The resource version does not match");
+    }
+
+    private UserDTO toUserDTO(BulkOperationDTO op, Map<String, Long> bulkIds, Map<String, Long> chunkBulkIds) {
+        if (op.getData() == null)
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidSyntax", "Operation data is required");
+        return objectMapper.convertValue(resolveReferences(op.getData(), bulkIds, chunkBulkIds), UserDTO.class);
+    }
+
+    /**
+     * Parses {@code /Users/{id}} where the ID may be a {@code bulkId:} reference.
+     */
+    private Long resolveId(String path, Map<String, Long> bulkIds, Map<String, Long> chunkBulkIds) {
+        if (path == null || !path.startsWith(USERS_PATH + "/"))
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidPath", "Unsupported path " + path);
+        String id = path.substring(USERS_PATH.length() + 1);
+        if (id.startsWith(BULK_ID_PREFIX))
+            return lookupBulkId(id.substring(BULK_ID_PREFIX.length()), bulkIds, chunkBulkIds);
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            throw new ScimException(HttpStatus.NOT_FOUND, null, "User " + id + " not found");
+        }
+    }
+
+    private Long resolveIdQuietly(String path, Map<String, Long> bulkIds) {
+        try {
+            return resolveId(path, bulkIds, Map.of());
+        } catch (ScimException e) {
+            return null;
+        }
+    }
+
+    private static Long lookupBulkId(String bulkId, Map<String, Long> bulkIds, Map<String, Long> chunkBulkIds) {
+        Long id = chunkBulkIds.get(bulkId);
+        if (id == null)
+            id = bulkIds.get(bulkId);
+        if (id == null)
+            throw new ScimException(HttpStatus.CONFLICT, "invalidValue", "Unresolved reference bulkId:" + bulkId);
+        return id;
+    }
+
+    /**
+     * Replaces {@code "bulkId:<id>"} string values anywhere in the data with the SCIM ID
+     * created for that bulk ID.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> resolveReferences(Map<String, Object> data, Map<String, Long> bulkIds,
+            Map<String, Long> chunkBulkIds) {
+        if (data == null)
+            return null;
+        Map<String, Object> resolved = new LinkedHashMap<>(data.size());
+        data.forEach((k, v) -> resolved.put(k, resolveValue(v, bulkIds, chunkBulkIds)));
+        return resolved;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object resolveValue(Object value, Map<String, Long> bulkIds, Map<String, Long> chunkBulkIds) {
+        if (value instanceof String s && s.startsWith(BULK_ID_PREFIX))
+            return String.valueOf(lookupBulkId(s.substring(BULK_ID_PREFIX.length()), bulkIds, chunkBulkIds));
+        if (value instanceof Map<?, ?> map)
+            return resolveReferences((Map<String, Object>) map, bulkIds, chunkBulkIds);
+        if (value instanceof List<?> list) {
+            List<Object> resolved = new ArrayList<>(list.size());
+            list.forEach(v -> resolved.add(resolveValue(v, bulkIds, chunkBulkIds)));
+            return resolved;
+        }
+        return value;
+    }
+
+    private static Map<String, Object> success(BulkOperationDTO op, UserEntity user, HttpStatus status) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("location", LOCATION_PREFIX + user.getScimId());
+        result.put("method", op.getMethod().toUpperCase(Locale.ROOT));
+        if (op.getBulkId() != null)
+            result.put("bulkId", op.getBulkId());
+        result.put("status", String.valueOf(status.value()));
+        return result;
+    }
+
+    /**
+     * Results, errors and newly assigned bulk IDs of one committed chunk.
+     */
+    private static final class ChunkResult {
+        private final List<Map<String, Object>> results = new ArrayList<>();
+        private final Map<String, Long> bulkIds = new HashMap<>();
+        private int errors;
+
+        private void addError(BulkOperationDTO op, ScimException e) {
+            Map<String, Object> result = new LinkedHashMap<>();
+            if (op.getMethod() != null)
+                result.put("method", op.getMethod().toUpperCase(Locale.ROOT));
+            if (op.getBulkId() != null)
+                result.put("bulkId", op.getBulkId());
+            result.put("status", String.valueOf(e.getStatus().value()));
+            result.put("response", ScimExceptionHandler.errorBody(e.getStatus().value(), e.getScimType(), e.getMessage()));
+            results.add(result);
+            errors++;
+        }
+
+        private void merge(ChunkResult other) {
+            results.addAll(other.results);
+            bulkIds.putAll(other.bulkIds);
+            errors += other.errors;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/**
+ * GroupService.java
+ *
+ * Provides CRUD and SCIM operations for groups.
+ */
+package com.okta.scim.server.example.service;
+
+import com.okta.scim.server.example.dto.GroupDTO;
+import com.okta.scim.server.example.entity.GroupEntity;
+import com.okta.scim.server.example.exception.ScimException;
+import com.okta.scim.server.example.filter.FilterCache;
+import com.okta.scim.server.example.filter.FilterSpecificationBuilder;
+import com.okta.scim.server.example.mapper.GroupMapper;
+import com.okta.scim.server.example.patch.GroupPatchPlan;
+import com.okta.scim.server.example.repository.GroupMember;
+import com.okta.scim.server.example.repository.GroupRepository;
+import com.okta.scim.server.example.serializer.ETags;
+import com.okta.scim.server.example.serializer.ScimGroupWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Handles group creation, replacement, patching, retrieval and deletion. Membership is
+ * only ever changed with set-based statements on the join table; no method loads a
+ * group's full member list except to render it.
+ */
+@Service
+public class GroupService {
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private GroupMapper groupMapper;
+
+    @Autowired
+    private FilterCache filterCache;
+
+    @Autowired
+    private ScimGroupWriter scimGroupWriter;
+
+    /** SCIM attribute paths that can be filtered on, and the GroupEntity field behind each. */
+    private static final FilterSpecificationBuilder<GroupEntity> GROUP_FILTERS = new FilterSpecificationBuilder<>(Map.of(
+            "id", "scimId",
+            "displayname", "displayName",
+            "externalid", "externalId"));
+
+    @Value("${scim.groups.member-fetch-size:1000}")
+    private int memberFetchSize;
+
+    /**
+     * Creates a group with its initial members.
+     *
+     * @param groupDTO input group data
+     * @return saved group
+     */
+    @Transactional
+    public GroupEntity createGroup(GroupDTO groupDTO) {
+        GroupEntity group = groupMapper.toEntity(groupDTO);
+        Set<Long> memberIds = groupMapper.memberIds(groupDTO);
+        requireUsers(memberIds);
+        try {
+            group = groupRepository.saveAndFlush(group);
+        } catch (DataIntegrityViolationException e) {
+            throw new ScimException(HttpStatus.CONFLICT, "uniqueness", "A group with the same externalId already exists");
+        }
+        groupRepository.addMembers(group.getScimId(), memberIds);
+        return group;
+    }
+
+    /**
+     * Replaces a group's attributes and members (PUT).
+     *
+     * @param scimId   SCIM group ID
+     * @param groupDTO new group data
+     * @param ifMatch  If-Match header value, or null for an unconditional update
+     * @return updated group, or null if not found
+     */
+    @Transactional
+    public GroupEntity replaceGroup(Long scimId, GroupDTO groupDTO, String ifMatch) {
+        GroupEntity group = groupRepository.findByScimIdForUpdate(scimId);
+        if (group == null)
+            return null;
+        checkPrecondition(group, ifMatch);
+
+        String displayName = group.getDisplayName();
+        String externalId = group.getExternalId();
+        groupMapper.updateEntityFromDTO(groupDTO, group);
+        Set<Long> memberIds = groupMapper.memberIds(groupDTO);
+        requireUsers(memberIds);
+        groupRepository.removeAllMembers(scimId);
+        groupRepository.addMembers(scimId, memberIds);
+        if (Objects.equals(displayName, group.getDisplayName()) && Objects.equals(externalId, group.getExternalId()))
+            groupRepository.incrementVersion(group);
+        return group;
+    }
+
+    /**
+     * Applies PATCH operations to a group. The group row is locked for the duration, so
+     * concurrent member changes of one group are applied one after the other.
+     *
+     * @param scimId       SCIM group ID
+     * @param patchRequest map of operations
+     * @param ifMatch      If-Match header value, or null for an unconditional update
+     * @return patched group, or null if not found
+     */
+    @Transactional
+    public GroupEntity patchGroup(Long scimId, Map<String, Object> patchRequest, String ifMatch) {
+        GroupPatchPlan plan = GroupPatchPlan.parse(patchRequest);
+        GroupEntity group = groupRepository.findByScimIdForUpdate(scimId);
+        if (group == null)
+            return null;
+        checkPrecondition(group, ifMatch);
+
+        GroupPatchPlan.Outcome outcome = plan.apply(group, groupRepository);
+        if (outcome.membersChanged() && !outcome.attributesChanged())
+            groupRepository.incrementVersion(group); // changed columns bump the version themselves
+        return group;
+    }
+
+    /**
+     * Deletes a group and, through the foreign key, its membership rows.
+     *
+     * @param scimId SCIM group ID
+     * @return whether the group existed
+     */
+    @Transactional
+    public boolean deleteGroup(Long scimId) {
+        if (!groupRepository.existsById(scimId))
+            return false;
+        groupRepository.deleteById(scimId);
+        return true;
+    }
+
+    /**
+     * Retrieves a group by SCIM ID, without its members.
+     *
+     * @param scimId SCIM group ID
+     * @return GroupEntity or null
+     */
+    public GroupEntity getByScimId(Long scimId) {
+        return groupRepository.findById(scimId).orElse(null);
+    }
+
+    /**
+     * Writes one group, streaming its members from the database unless excluded.
+     *
+     * @param group          group to write
+     * @param includeMembers whether to include {@code members}
+     * @param out            stream receiving the JSON response
+     * @throws IOException if writing the response fails
+     */
+    @Transactional(readOnly = true)
+    public void writeGroup(GroupEntity group, boolean includeMembers, OutputStream out) throws IOException {
+        if (!includeMembers) {
+            scimGroupWriter.writeGroup(out, group, null);
+            return;
+        }
+        try (Stream<GroupMember> members = groupRepository.streamMembers(group.getScimId(), memberFetchSize)) {
+            scimGroupWriter.writeGroup(out, group, members.iterator());
+        }
+    }
+
+    /**
+     * Writes one page of groups matching an optional SCIM filter as a ListResponse.
+     *
+     * @param filter         SCIM filter string
+     * @param startIndex     1-based index of the first result
+     * @param count          maximum number of results in the page
+     * @param includeMembers whether to include {@code members}
+     * @param out            stream receiving the JSON response
+     * @throws IOException if writing the response fails
+     */
+    @Transactional(readOnly = true)
+    public void writeGroups(String filter, int startIndex, int count, boolean includeMembers, OutputStream out)
+            throws IOException {
+        Specification<GroupEntity> spec = filter == null || filter.isBlank()
+                ? (root, query, cb) -> cb.conjunction()
+                : GROUP_FILTERS.build(filterCache.get(filter));
+        long totalResults = groupRepository.count(spec);
+        List<GroupEntity> page = count <= 0 || startIndex > totalResults
+                ? List.of()
+                : groupRepository.findPage(spec, startIndex - 1, count);
+        scimGroupWriter.writeListResponse(out, totalResults, startIndex, page,
+                includeMembers ? g -> groupRepository.streamMembers(g.getScimId(), memberFetchSize) : null);
+    }
+
+    private void requireUsers(Set<Long> userIds) {
+        if (!userIds.isEmpty() && groupRepository.countExistingUsers(userIds) < userIds.size())
+            throw new ScimException(HttpStatus.BAD_REQUEST, "invalidValue", "members refers to a user that does not exist");
+    }
+
+    /**
+     * Rejects a conditional write whose If-Match does not name the current version.
+     */
+    private static void checkPrecondition(GroupEntity current, String ifMatch) {
+        if (ifMatch != null && !ETags.matches(ifMatch, current.getVersion()))
+            throw new ScimException(HttpStatus.PRECONDITION_FAILED, null,
+                    "The resource version does not match If-Match");
+    }
+}
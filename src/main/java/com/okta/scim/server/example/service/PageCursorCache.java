@@ -0,0 +1,83 @@
+/**
+ * PageCursorCache.java
+ *
+ * Remembers where each served list page ended so that the next SCIM page can be
+ * fetched with a keyset seek instead of an OFFSET scan.
+ */
+package com.okta.scim.server.example.service;
+
+import com.okta.scim.server.example.datasource.TenantContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU map from a page's starting position to the keyset position (the last SCIM
+ * ID, or the last change key for change queries) served before it.
+ * <p>
+ * SCIM clients page with {@code startIndex}/{@code count}; Okta walks pages strictly in
+ * order, so after serving {@code startIndex=1,count=100} the cursor for
+ * {@code startIndex=101} is recorded and the following request seeks directly past it.
+ * Entries expire after a short time to bound drift when the directory changes. Keys
+ * include the current tenant.
+ *
+ * @param <K> keyset position type
+ */
+public class PageCursorCache<K> {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, Cursor<K>> cursors;
+
+    /**
+     * @param maxEntries maximum number of remembered page boundaries
+     * @param ttlMillis  how long a boundary stays usable
+     */
+    public PageCursorCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.cursors = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cursor<K>> eldest) {
+                return size() > PageCursorCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the position to seek after for the given query and start index, or null.
+     *
+     * @param query      query shape the page belongs to (e.g. the filter string)
+     * @param startIndex 1-based SCIM start index
+     * @return last position preceding the page, or null if unknown or expired
+     */
+    public synchronized K get(String query, int startIndex) {
+        String key = key(query, startIndex);
+        Cursor<K> cursor = cursors.get(key);
+        if (cursor == null)
+            return null;
+        if (System.currentTimeMillis() - cursor.createdAt() > ttlMillis) {
+            cursors.remove(key);
+            return null;
+        }
+        return cursor.after();
+    }
+
+    /**
+     * Records the position that precedes the page starting at {@code startIndex}.
+     *
+     * @param query      query shape the page belongs to
+     * @param startIndex 1-based SCIM start index of the next page
+     * @param after      last position served before that page
+     */
+    public synchronized void put(String query, int startIndex, K after) {
+        cursors.put(key(query, startIndex), new Cursor<>(after, System.currentTimeMillis()));
+    }
+
+    private static String key(String query, int startIndex) {
+        return TenantContext.current() + "|" + startIndex + "|" + (query != null ? query : "");
+    }
+
+    private record Cursor<K>(K after, long createdAt) {
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * UserArchiveJob.java
+ *
+ * Periodically moves long-inactive users out of the users table.
+ */
+package com.okta.scim.server.example.service;
+
+import com.okta.scim.server.example.cache.UserResponseCache;
+import com.okta.scim.server.example.datasource.TenantContext;
+import com.okta.scim.server.example.datasource.TenantRegistry;
+import com.okta.scim.server.example.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every {@code scim.archive.interval}, archives the users that have been inactive for at
+ * least {@code scim.archive.inactive-for} (by {@code meta.lastModified}). Each batch of
+ * {@code scim.archive.batch-size} users is its own short transaction, and the job pauses
+ * {@code scim.archive.pause} between batches so a large backlog is drained without
+ * holding locks or saturating the primary. A run stops at the first failed batch; the
+ * next run picks up where it left off. In multi-tenant mode each run covers every tenant
+ * in turn.
+ * <p>
+ * Archived users disappear from lists, change queries and GET by ID. Creating the user
+ * again, or a PUT or PATCH to its ID, restores it with its ID, version and group
+ * memberships.
+ */
+@Component
+@ConditionalOnProperty(name = "scim.archive.enabled", havingValue = "true")
+public class UserArchiveJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserArchiveJob.class);
+
+    private final UserRepository userRepository;
+    private final UserResponseCache userResponseCache;
+    private final ObjectProvider<TenantRegistry> tenantRegistry;
+    private final Duration inactiveFor;
+    private final Duration interval;
+    private final int batchSize;
+    private final Duration pause;
+    private final Counter archived;
+    private final ScheduledExecutorService scheduler;
+
+    public UserArchiveJob(UserRepository userRepository, UserResponseCache userResponseCache,
+            ObjectProvider<TenantRegistry> tenantRegistry,
+            @Value("${scim.archive.inactive-for:90d}") Duration inactiveFor,
+            @Value("${scim.archive.interval:1h}") Duration interval,
+            @Value("${scim.archive.batch-size:500}") int batchSize,
+            @Value("${scim.archive.pause:200ms}") Duration pause,
+            MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.userResponseCache = userResponseCache;
+        this.tenantRegistry = tenantRegistry;
+        this.inactiveFor = inactiveFor;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.archived = Counter.builder("scim.users.archived")
+                .description("Inactive users moved to users_archive")
+                .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "scim-user-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Schedules the runs once the application, and its migrations, are up.
+     */
+    @EventListener
+    public void start(ApplicationReadyEvent event) {
+        scheduler.scheduleWithFixedDelay(this::run, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Archives every user that is due, batch by batch, in every tenant.
+     *
+     * @return number of users archived
+     */
+    public long run() {
+        TenantRegistry tenants = tenantRegistry.getIfAvailable();
+        if (tenants == null)
+            return runTenant();
+        long total = 0;
+        for (String tenant : tenants.tenants())
+            total += TenantContext.callAs(tenant, this::runTenant);
+        return total;
+    }
+
+    private long runTenant() {
+        Instant cutoff = Instant.now().minus(inactiveFor);
+        long total = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                List<Long> scimIds = userRepository.archiveInactive(cutoff, batchSize);
+                scimIds.forEach(userResponseCache::evict);
+                archived.increment(scimIds.size());
+                total += scimIds.size();
+                if (scimIds.size() < batchSize)
+                    break;
+                Thread.sleep(pause.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) { // an escaping exception would cancel the schedule
+            logger.warn("Archiving inactive users of tenant {} stopped after {} users: {}", TenantContext.current(),
+                    total, e.getMessage());
+        }
+        if (total > 0)
+            logger.info("Archived {} users of tenant {} inactive since before {}", total, TenantContext.current(),
+                    cutoff);
+        return total;
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -5,15 +5,37 @@
  */
 package com.okta.scim.server.example.service;
 
+import com.okta.scim.server.example.cache.UserResponseCache;
+import com.okta.scim.server.example.cache.UserResponseCache.RenderedUser;
 import com.okta.scim.server.example.dto.UserDTO;
 import com.okta.scim.server.example.entity.UserEntity;
+import com.okta.scim.server.example.filter.Filter;
+import com.okta.scim.server.example.filter.FilterCache;
+import com.okta.scim.server.example.filter.FilterSpecificationBuilder;
 import com.okta.scim.server.example.mapper.UserMapper;
+import com.okta.scim.server.example.patch.PatchPlan;
+import com.okta.scim.server.example.exception.ScimException;
+import com.okta.scim.server.example.repository.ChangeKey;
+import com.okta.scim.server.example.repository.UserProjection;
 import com.okta.scim.server.example.repository.UserRepository;
+import com.okta.scim.server.example.repository.UserUpsertResult;
+import com.okta.scim.server.example.serializer.ETags;
+import com.okta.scim.server.example.serializer.ScimUserWriter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Handles user creation, update, retrieval, patch, and soft deletion.
@@ -21,33 +43,78 @@ import java.util.stream.Collectors;
 @Service
 public class UserService {
 
+    private static final int UPSERT_ATTEMPTS = 3;
+    private static final int UNCONDITIONAL_WRITE_ATTEMPTS = 10;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private FilterCache filterCache;
+
+    /** Filter attribute that turns a list into a change query. */
+    private static final String LAST_MODIFIED = "meta.lastmodified";
+
+    /** SCIM attribute paths that can be filtered on, and the UserEntity field behind each. */
+    private static final FilterSpecificationBuilder<UserEntity> USER_FILTERS = new FilterSpecificationBuilder<>(Map.of(
+            "id", "scimId",
+            "externalid", "externalId",
+            "username", "userName",
+            "name.givenname", "givenName",
+            "name.familyname", "familyName",
+            "emails", "email",
+            "emails.value", "email",
+            "active", "active",
+            "meta.created", "created",
+            LAST_MODIFIED, "lastModified"));
+
+    @Autowired
+    private ScimUserWriter scimUserWriter;
+
+    @Autowired
+    private UserResponseCache userResponseCache;
+
+    @Value("${scim.users.stream-fetch-size:500}")
+    private int streamFetchSize;
+
+    private final PageCursorCache<Long> pageCursors = new PageCursorCache<>(1024, 60_000);
+
+    private final PageCursorCache<ChangeKey> changeCursors = new PageCursorCache<>(1024, 60_000);
+
     /**
-     * Creates a new user or reactivates an existing one.
+     * Creates a new user or reactivates an existing one with a single atomic upsert, so
+     * concurrent retries for the same username cannot collide.
      *
      * @param userDTO input user data
-     * @return saved UserEntity
+     * @return saved user and whether it was newly created
      */
-    public UserEntity createOrReactivateUser(UserDTO userDTO) {
+    public UserUpsertResult createOrReactivateUser(UserDTO userDTO) {
         String username = userDTO.getUserName() != null ? userDTO.getUserName().trim() : null;
         if (username == null)
             throw new IllegalArgumentException("Username is required");
 
-        UserEntity existing = userRepository.findByUserName(username);
-        if (existing != null) {
-            existing.setActive(true);
-            userMapper.updateEntityFromDTO(userDTO, existing);
-            return userRepository.save(existing);
-        }
+        UserEntity candidate = userMapper.toEntity(userDTO);
+        candidate.setUserName(username);
+        boolean nameProvided = userDTO.getName() != null;
+        boolean emailProvided = candidate.getEmail() != null;
 
-        UserEntity newEntity = userMapper.toEntity(userDTO);
-        // ✅ Remove UUID assignment; DB will auto-generate scimId
-        return userRepository.save(newEntity);
+        // Each attempt is its own transaction. MERGE on H2 can lose a race against a
+        // concurrent insert or update of the same username; once that commits, a retry
+        // takes the update branch. MySQL's ON DUPLICATE KEY UPDATE waits instead.
+        for (int attempt = 1;; attempt++) {
+            try {
+                UserUpsertResult result = userRepository.upsertByUserName(candidate, nameProvided, emailProvided);
+                userResponseCache.evict(result.user().getScimId());
+                return result;
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                if (attempt >= UPSERT_ATTEMPTS)
+                    throw new ScimException(HttpStatus.CONFLICT, "uniqueness",
+                            "A user with the same unique attribute already exists");
+            }
+        }
     }
 
     /**
@@ -55,92 +122,246 @@ public class UserService {
      *
      * @param scimId  SCIM user ID
      * @param userDTO input user data
+     * @param ifMatch If-Match header value, or null for an unconditional update
      * @return updated or newly created UserEntity
      */
-    public UserEntity updateUser(Long scimId, UserDTO userDTO) {
-        UserEntity found = userRepository.findByScimId(scimId);
-        if (found == null) {
-            UserEntity newEntity = userMapper.toEntity(userDTO);
-            return userRepository.save(newEntity);
-        } else {
-            userMapper.updateEntityFromDTO(userDTO, found);
-            return userRepository.save(found);
-        }
+    public UserEntity updateUser(Long scimId, UserDTO userDTO, String ifMatch) {
+        return withVersionRetry(ifMatch, () -> {
+            UserEntity found = findOrRestore(scimId);
+            checkPrecondition(found, ifMatch);
+            if (found == null) {
+                UserEntity newEntity = userMapper.toEntity(userDTO);
+                return userRepository.save(newEntity);
+            } else {
+                userMapper.updateEntityFromDTO(userDTO, found);
+                UserEntity saved = userRepository.save(found);
+                userResponseCache.evict(scimId);
+                return saved;
+            }
+        });
     }
 
     /**
-     * Retrieves users based on optional filter or all active users.
+     * Streams one page of users matching an optional SCIM filter as a SCIM ListResponse.
+     * The filter is evaluated entirely in the database; without a filter all active users
+     * are listed. Rows are read through a cursor and written as they arrive, so memory use
+     * does not depend on the page size.
+     * <p>
+     * A filter on {@code meta.lastModified} is a change query: it includes deactivated
+     * users (a deactivation is a change) and pages in {@code (lastModified, id)} order, so
+     * a delta sync reads only the changed rows through the lastModified index.
+     * <p>
+     * Only the columns of the projected attributes are selected.
      *
-     * @param filter SCIM filter string
-     * @return map containing SCIM user list
-     */
-    public Map<String, Object> getUsers(String filter) {
-        List<Map<String, Object>> resources = new ArrayList<>();
-
-        if (filter != null && filter.contains("externalId eq")) {
-            String externalId = filter.split("eq")[1].trim().replace("\"", "");
-            UserEntity user = userRepository.findByExternalId(externalId);
-            if (user != null && Boolean.TRUE.equals(user.getActive()))
-                resources.add(buildSCIMResponse(user));
-        } else if (filter != null && filter.contains("userName eq")) {
-            String userName = filter.split("eq")[1].trim().replace("\"", "");
-            UserEntity user = userRepository.findByUserName(userName);
-            if (user != null && Boolean.TRUE.equals(user.getActive()))
-                resources.add(buildSCIMResponse(user));
-        } else {
-            List<UserEntity> activeUsers = userRepository.findAll()
-                    .stream()
-                    .filter(u -> Boolean.TRUE.equals(u.getActive()))
-                    .collect(Collectors.toList());
-            resources = activeUsers.stream().map(this::buildSCIMResponse).toList();
+     * @param filter     SCIM filter string
+     * @param startIndex 1-based index of the first result
+     * @param count      maximum number of results in the page
+     * @param projection attributes to return
+     * @param out        stream receiving the JSON response
+     * @throws IOException if writing the response fails
+     */
+    @Transactional(readOnly = true)
+    public void writeUsers(String filter, int startIndex, int count, UserProjection projection, OutputStream out)
+            throws IOException {
+        Set<String> attributes = filterAttributes(filter);
+        Specification<UserEntity> spec = toSpecification(filter, attributes);
+        long totalResults = userRepository.count(spec);
+
+        if (count <= 0 || startIndex > totalResults) {
+            scimUserWriter.writeListResponse(out, totalResults, startIndex, Collections.emptyIterator(), projection,
+                    null);
+            return;
         }
+        if (attributes.contains(LAST_MODIFIED)) {
+            writeChanges(filter, spec, totalResults, startIndex, count, projection, out);
+            return;
+        }
+
+        long[] lastScimId = { 0L };
+        try (Stream<UserEntity> page = userRepository.streamPage(spec, seekPosition(filter, spec, startIndex), count,
+                streamFetchSize, projection)) {
+            int written = scimUserWriter.writeListResponse(out, totalResults, startIndex, page.iterator(), projection,
+                    u -> lastScimId[0] = u.getScimId());
+            if (written > 0)
+                pageCursors.put(filter, startIndex + written, lastScimId[0]);
+        }
+    }
+
+    /**
+     * Writes a page of a change query, seeking past the {@code (lastModified, id)} position
+     * that ended the previous page.
+     */
+    private void writeChanges(String filter, Specification<UserEntity> spec, long totalResults, int startIndex,
+            int count, UserProjection projection, OutputStream out) throws IOException {
+        ChangeKey after = null;
+        if (startIndex > 1) {
+            after = changeCursors.get(filter, startIndex);
+            if (after == null)
+                after = userRepository.findChangeKeyAtOffset(spec, startIndex - 2L);
+            if (after == null) { // the result shrank since it was counted
+                scimUserWriter.writeListResponse(out, totalResults, startIndex, Collections.emptyIterator(),
+                        projection, null);
+                return;
+            }
+        }
+
+        ChangeKey[] last = { null };
+        try (Stream<UserEntity> page = userRepository.streamChangedPage(spec, after, count, streamFetchSize,
+                projection)) {
+            int written = scimUserWriter.writeListResponse(out, totalResults, startIndex, page.iterator(), projection,
+                    u -> last[0] = new ChangeKey(u.getLastModified(), u.getScimId()));
+            if (written > 0)
+                changeCursors.put(filter, startIndex + written, last[0]);
+        }
+    }
+
+    /**
+     * Returns the lower-cased attribute paths a list filter refers to.
+     */
+    private Set<String> filterAttributes(String filter) {
+        Set<String> attributes = new HashSet<>();
+        if (filter != null && !filter.isBlank())
+            filterCache.get(filter).collectAttributes(attributes);
+        return attributes;
+    }
+
+    /**
+     * Builds the database predicate for a list request. Unless the filter constrains
+     * {@code active} itself, or is a change query, only active users are returned, as
+     * before.
+     */
+    private Specification<UserEntity> toSpecification(String filter, Set<String> attributes) {
+        Specification<UserEntity> activeOnly = (root, query, cb) -> cb.isTrue(root.get("active"));
+        if (filter == null || filter.isBlank())
+            return activeOnly;
+
+        Specification<UserEntity> spec = USER_FILTERS.build(filterCache.get(filter));
+        return attributes.contains("active") || attributes.contains(LAST_MODIFIED) ? spec : spec.and(activeOnly);
+    }
 
-        Map<String, Object> response = new LinkedHashMap<>();
-        response.put("schemas", List.of("urn:ietf:params:scim:api:messages:2.0:ListResponse"));
-        response.put("totalResults", resources.size());
-        response.put("Resources", resources);
-        return response;
+    /**
+     * Resolves the SCIM ID to seek after for a page starting at {@code startIndex}: the
+     * boundary remembered from the previous page when available, otherwise the ID at the
+     * preceding offset (an ID-only scan).
+     */
+    private Long seekPosition(String filter, Specification<UserEntity> spec, int startIndex) {
+        if (startIndex <= 1)
+            return 0L;
+        Long cached = pageCursors.get(filter, startIndex);
+        if (cached != null)
+            return cached;
+        Long after = userRepository.findScimIdAtOffset(spec, startIndex - 2L);
+        return after != null ? after : Long.MAX_VALUE;
     }
 
     /**
-     * Retrieves a user by SCIM ID.
+     * Retrieves a user by SCIM ID. Read-only, so with replicas configured a cache miss is
+     * served by a replica.
      *
      * @param scimId SCIM user ID
      * @return UserEntity or null
      */
+    @Transactional(readOnly = true)
     public UserEntity getByScimId(Long scimId) {
         return userRepository.findByScimId(scimId);
     }
 
     /**
-     * Applies PATCH operations to a user (currently supports "active" field).
+     * Returns the user rendered as SCIM JSON, from the response cache when possible.
+     *
+     * @param user user to render
+     * @return rendered user
+     */
+    public RenderedUser render(UserEntity user) {
+        return userResponseCache.get(user);
+    }
+
+    /**
+     * Returns the projected attributes of the user rendered as SCIM JSON. The full
+     * representation comes from the response cache; narrower ones are rendered per call.
+     *
+     * @param user       user to render
+     * @param projection attributes to include
+     * @return rendered user, never gzipped when projected
+     */
+    public RenderedUser render(UserEntity user, UserProjection projection) {
+        if (projection.isFull())
+            return render(user);
+        return new RenderedUser(user.getVersion() != null ? user.getVersion() : 0L,
+                scimUserWriter.renderUser(user, projection), null);
+    }
+
+    /**
+     * Finds a user for a write, first moving it back from the archive if it was archived,
+     * so a reactivation by ID works like one by username.
+     */
+    private UserEntity findOrRestore(Long scimId) {
+        UserEntity user = userRepository.findByScimId(scimId);
+        if (user == null && userRepository.restoreArchived(scimId))
+            user = userRepository.findByScimId(scimId);
+        return user;
+    }
+
+    /**
+     * Runs a read-modify-write. A conditional write that loses an optimistic-locking race
+     * fails (412); an unconditional one is re-read and reapplied, keeping the
+     * last-writer-wins behaviour clients without If-Match expect.
+     */
+    private UserEntity withVersionRetry(String ifMatch, Supplier<UserEntity> write) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return write.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (ifMatch != null || attempt >= UNCONDITIONAL_WRITE_ATTEMPTS)
+                    throw e;
+            }
+        }
+    }
+
+    /**
+     * Rejects a conditional write whose If-Match does not name the current version. The
+     * entity keeps the version it was read with, so a write that races past this check
+     * still fails with an optimistic-locking error when the versioned UPDATE runs.
+     */
+    private static void checkPrecondition(UserEntity current, String ifMatch) {
+        if (ifMatch != null && (current == null || !ETags.matches(ifMatch, current.getVersion())))
+            throw new ScimException(HttpStatus.PRECONDITION_FAILED, null,
+                    "The resource version does not match If-Match");
+    }
+
+    /**
+     * Applies PATCH operations to a user. A request that changes nothing is not written.
      *
      * @param scimId       SCIM user ID
      * @param patchRequest map of operations
+     * @param ifMatch      If-Match header value, or null for an unconditional update
      * @return updated UserEntity or null if not found
      */
-    public UserEntity patchUser(Long scimId, Map<String, Object> patchRequest) {
-        UserEntity existing = userRepository.findByScimId(scimId);
-        if (existing == null)
-            return null;
-
-        if (patchRequest.containsKey("Operations")) {
-            List<Map<String, Object>> operations = (List<Map<String, Object>>) patchRequest.get("Operations");
-            for (Map<String, Object> op : operations) {
-                String opType = ((String) op.get("op")).toLowerCase();
-                Object value = op.get("value");
-
-                if ("replace".equals(opType) && value instanceof Map) {
-                    Map<String, Object> valueMap = (Map<String, Object>) value;
-                    if (valueMap.containsKey("active")) {
-                        Object activeVal = valueMap.get("active");
-                        existing.setActive(Boolean.valueOf(activeVal.toString()));
-                    }
-                }
-            }
-        }
+    public UserEntity patchUser(Long scimId, Map<String, Object> patchRequest, String ifMatch) {
+        PatchPlan plan = PatchPlan.parse(patchRequest);
+        return withVersionRetry(ifMatch, () -> {
+            UserEntity existing = findOrRestore(scimId);
+            if (existing == null)
+                return null;
+            checkPrecondition(existing, ifMatch);
+
+            if (!plan.apply(existing))
+                return existing; // nothing changed: no UPDATE, no version bump
+            UserEntity saved = userRepository.save(existing);
+            userResponseCache.evict(scimId);
+            return saved;
+        });
+    }
 
-        return userRepository.save(existing);
+    /**
+     * Applies PATCH operations to an entity in memory without saving it.
+     *
+     * @param entity       entity to modify
+     * @param patchRequest map of operations
+     * @return whether any attribute changed
+     */
+    public boolean applyPatch(UserEntity entity, Map<String, Object> patchRequest) {
+        return PatchPlan.parse(patchRequest).apply(entity);
     }
 
     /**
@@ -158,16 +379,24 @@ public class UserService {
         resp.put("userName", user.getUserName());
         resp.put("active", user.getActive());
 
-        Map<String, Object> nameMap = Map.of(
-                "givenName", user.getGivenName(),
-                "familyName", user.getFamilyName());
+        Map<String, Object> nameMap = new LinkedHashMap<>();
+        nameMap.put("givenName", user.getGivenName());
+        nameMap.put("familyName", user.getFamilyName());
         resp.put("name", nameMap);
 
         if (user.getEmail() != null) {
             resp.put("emails", List.of(Map.of("value", user.getEmail(), "primary", true)));
         }
 
-        resp.put("meta", Map.of("resourceType", "User", "location", "/scim/v2/Users/" + user.getScimId()));
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("resourceType", "User");
+        if (user.getCreated() != null)
+            meta.put("created", user.getCreated().toString());
+        if (user.getLastModified() != null)
+            meta.put("lastModified", user.getLastModified().toString());
+        meta.put("location", "/scim/v2/Users/" + user.getScimId());
+        meta.put("version", ETags.format(user.getVersion()));
+        resp.put("meta", meta);
         return resp;
     }
 }
@@ -0,0 +1,250 @@
+/**
+ * UserTransferService.java
+ *
+ * Streams the users directory out and in as NDJSON, for migrations and seeding.
+ */
+package com.okta.scim.server.example.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.okta.scim.server.example.dto.UserDTO;
+import com.okta.scim.server.example.entity.UserEntity;
+import com.okta.scim.server.example.mapper.UserMapper;
+import com.okta.scim.server.example.repository.UserRepository;
+import com.okta.scim.server.example.serializer.ScimUserWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Export writes one SCIM User object per line, in SCIM ID order, from a single
+ * forward-only cursor. Import reads the same format line by line, maps each line with
+ * {@link UserMapper} and inserts in batches of {@code scim.admin.import.batch-size}. Each
+ * batch is one transaction. It checks conflicts with one query, persists the batch (sent
+ * as JDBC batches), then flushes and clears the persistence context. Neither direction
+ * holds more than one batch in memory.
+ * <p>
+ * Import only creates users: a line whose userName or externalId already exists is
+ * skipped, and {@code id} and {@code meta} in the input are ignored. Archived users count
+ * as existing, so an import never takes over the identity a later create restores.
+ */
+@Service
+public class UserTransferService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserTransferService.class);
+
+    /** Number of line errors reported back in an import summary. */
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private ScimUserWriter scimUserWriter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${scim.admin.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    @Value("${scim.admin.import.batch-size:1000}")
+    private int importBatchSize;
+
+    public UserTransferService(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Writes every user as NDJSON.
+     *
+     * @param out stream receiving the export
+     * @return number of users written
+     * @throws IOException if writing fails
+     */
+    @Transactional(readOnly = true)
+    public long exportUsers(OutputStream out) throws IOException {
+        long written = 0;
+        try (Stream<UserEntity> users = userRepository.streamAll(exportFetchSize);
+                JsonGenerator gen = scimUserWriter.createGenerator(out)) {
+            gen.setRootValueSeparator(new SerializedString("\n"));
+            for (Iterator<UserEntity> it = users.iterator(); it.hasNext();) {
+                scimUserWriter.writeUser(gen, it.next());
+                written++;
+            }
+            if (written > 0)
+                gen.writeRaw('\n');
+        }
+        logger.info("Exported {} users", written);
+        return written;
+    }
+
+    /**
+     * Creates users from NDJSON, one SCIM User object per line.
+     *
+     * @param in NDJSON input
+     * @return summary with imported, skipped and failed counts and the first line errors
+     * @throws IOException if reading fails
+     */
+    public Map<String, Object> importUsers(InputStream in) throws IOException {
+        ImportSummary summary = new ImportSummary();
+        List<Pending> batch = new ArrayList<>(importBatchSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        long lineNumber = 0;
+        for (String line; (line = reader.readLine()) != null;) {
+            lineNumber++;
+            if (line.isBlank())
+                continue;
+            UserEntity user;
+            try {
+                UserDTO dto = objectMapper.readValue(line, UserDTO.class);
+                if (dto.getUserName() == null || dto.getUserName().isBlank()) {
+                    summary.fail(lineNumber, "userName is required");
+                    continue;
+                }
+                dto.setUserName(dto.getUserName().trim());
+                user = userMapper.toEntity(dto);
+            } catch (JsonProcessingException e) {
+                summary.fail(lineNumber, "invalid JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            batch.add(new Pending(lineNumber, user));
+            if (batch.size() >= importBatchSize) {
+                insertBatch(batch, summary);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty())
+            insertBatch(batch, summary);
+        logger.info("Imported {} users ({} skipped, {} failed)", summary.imported, summary.skipped, summary.failed);
+        return summary.toMap();
+    }
+
+    /**
+     * Inserts one batch in its own transaction. If the flush fails (a conflicting write
+     * raced the check), the batch is rolled back and its lines reported as failed.
+     */
+    private void insertBatch(List<Pending> batch, ImportSummary summary) {
+        try {
+            int[] counts = transactionTemplate.execute(status -> {
+                // A bulk load must not churn the entity and natural-id caches.
+                entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+                Set<String> takenUserNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+                Set<String> takenExternalIds = new HashSet<>();
+                loadConflicts(batch, takenUserNames, takenExternalIds);
+
+                int inserted = 0;
+                int skipped = 0;
+                for (Pending pending : batch) {
+                    UserEntity user = pending.user();
+                    if (!takenUserNames.add(user.getUserName())
+                            || user.getExternalId() != null && !takenExternalIds.add(user.getExternalId())) {
+                        skipped++;
+                        continue;
+                    }
+                    entityManager.persist(user);
+                    inserted++;
+                }
+                userRepository.flush(); // through the repository proxy, so failures arrive translated
+                entityManager.clear();
+                return new int[] { inserted, skipped };
+            });
+            summary.imported += counts[0];
+            summary.skipped += counts[1];
+        } catch (DataAccessException e) {
+            entityManager.clear();
+            String detail = "batch rolled back: " + e.getMostSpecificCause().getMessage();
+            for (Pending pending : batch)
+                summary.fail(pending.line(), detail);
+        }
+    }
+
+    /**
+     * Collects the batch's userNames and externalIds that already exist, with one query on
+     * the users and one on the archive. The users are read first: a user archived in
+     * between is then seen by the second query.
+     */
+    private void loadConflicts(List<Pending> batch, Set<String> userNames, Set<String> externalIds) {
+        Set<String> names = new HashSet<>();
+        Set<String> ids = new HashSet<>();
+        for (Pending pending : batch) {
+            names.add(pending.user().getUserName());
+            if (pending.user().getExternalId() != null)
+                ids.add(pending.user().getExternalId());
+        }
+        String jpql = "SELECT u.userName, u.externalId FROM UserEntity u WHERE u.userName IN :names"
+                + (ids.isEmpty() ? "" : " OR u.externalId IN :ids");
+        var query = entityManager.createQuery(jpql, Object[].class).setParameter("names", names);
+        if (!ids.isEmpty())
+            query.setParameter("ids", ids);
+        List<Object[]> rows = new ArrayList<>(query.getResultList());
+
+        String sql = "SELECT user_name, external_id FROM users_archive WHERE user_name IN (:names)"
+                + (ids.isEmpty() ? "" : " OR external_id IN (:ids)");
+        var archived = entityManager.createNativeQuery(sql, Object[].class).setParameter("names", names);
+        if (!ids.isEmpty())
+            archived.setParameter("ids", ids);
+        rows.addAll(archived.getResultList());
+
+        for (Object[] row : rows) {
+            userNames.add((String) row[0]);
+            if (row[1] != null)
+                externalIds.add((String) row[1]);
+        }
+    }
+
+    private record Pending(long line, UserEntity user) {
+    }
+
+    private static final class ImportSummary {
+
+        long imported;
+        long skipped;
+        long failed;
+        final List<Map<String, Object>> errors = new ArrayList<>();
+
+        void fail(long line, String detail) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS)
+                errors.add(Map.of("line", line, "detail", detail));
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("imported", imported);
+            map.put("skipped", skipped);
+            map.put("failed", failed);
+            map.put("errors", errors);
+            return map;
+        }
+    }
+}
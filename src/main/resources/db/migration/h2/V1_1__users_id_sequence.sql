@@ -0,0 +1,6 @@
+-- scim_id moves from IDENTITY to the pooled users_seq generator; see the MySQL migration.
+
+ALTER TABLE users ALTER COLUMN scim_id DROP IDENTITY;
+
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE users_seq RESTART WITH (SELECT COALESCE(MAX(scim_id) + 51, 1) FROM users);
@@ -0,0 +1,2 @@
+-- Optimistic locking (ETags) for users. Existing rows start at version 0.
+ALTER TABLE users ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
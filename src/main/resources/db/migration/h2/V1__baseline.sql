@@ -0,0 +1,20 @@
+-- Baseline: the schema previously generated by spring.jpa.hibernate.ddl-auto=update.
+
+CREATE TABLE users (
+    scim_id     BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    active      BOOLEAN      NOT NULL,
+    email       VARCHAR(255),
+    external_id VARCHAR(255),
+    family_name VARCHAR(255),
+    given_name  VARCHAR(255),
+    user_name   VARCHAR(255) NOT NULL,
+    PRIMARY KEY (scim_id),
+    CONSTRAINT uk_users_external_id UNIQUE (external_id),
+    CONSTRAINT uk_users_user_name UNIQUE (user_name)
+);
+
+CREATE TABLE test_table (
+    id   BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255),
+    PRIMARY KEY (id)
+);
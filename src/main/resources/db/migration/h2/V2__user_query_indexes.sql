@@ -0,0 +1,6 @@
+-- Indexes for the queries the SCIM endpoints actually run; see the MySQL migration.
+
+-- SCIM userName is case-insensitive: H2's equivalent of a case-insensitive collation.
+ALTER TABLE users ALTER COLUMN user_name SET DATA TYPE VARCHAR_IGNORECASE(255);
+
+CREATE INDEX ix_users_active_scim_id ON users (active, scim_id);
@@ -0,0 +1,24 @@
+-- SCIM Groups; see the MySQL migration.
+
+CREATE SEQUENCE groups_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE scim_groups (
+    scim_id      BIGINT       NOT NULL,
+    display_name VARCHAR(255) NOT NULL,
+    external_id  VARCHAR(255),
+    version      BIGINT       NOT NULL,
+    PRIMARY KEY (scim_id),
+    CONSTRAINT uk_scim_groups_external_id UNIQUE (external_id)
+);
+
+CREATE INDEX ix_scim_groups_display_name ON scim_groups (display_name);
+
+CREATE TABLE group_members (
+    group_id BIGINT NOT NULL,
+    user_id  BIGINT NOT NULL,
+    PRIMARY KEY (group_id, user_id),
+    CONSTRAINT fk_group_members_group FOREIGN KEY (group_id) REFERENCES scim_groups (scim_id) ON DELETE CASCADE,
+    CONSTRAINT fk_group_members_user FOREIGN KEY (user_id) REFERENCES users (scim_id) ON DELETE CASCADE
+);
+
+CREATE INDEX ix_group_members_user_id ON group_members (user_id);
@@ -0,0 +1,5 @@
+-- meta.created / meta.lastModified for users; see the MySQL migration.
+ALTER TABLE users ADD COLUMN created TIMESTAMP(6) WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP(6) NOT NULL;
+ALTER TABLE users ADD COLUMN last_modified TIMESTAMP(6) WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP(6) NOT NULL;
+
+CREATE INDEX ix_users_last_modified_scim_id ON users (last_modified, scim_id);
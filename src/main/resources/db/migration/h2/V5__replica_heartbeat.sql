@@ -0,0 +1,8 @@
+-- Replica lag probe; see the MySQL migration.
+CREATE TABLE scim_heartbeat (
+    id          INT    NOT NULL,
+    beat_millis BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO scim_heartbeat (id, beat_millis) VALUES (1, 0);
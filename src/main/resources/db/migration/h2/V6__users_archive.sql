@@ -0,0 +1,31 @@
+-- Archive for long-inactive users; see the MySQL migration.
+
+CREATE TABLE users_archive (
+    scim_id       BIGINT                      NOT NULL,
+    active        BOOLEAN                     NOT NULL,
+    email         VARCHAR(255),
+    external_id   VARCHAR(255),
+    family_name   VARCHAR(255),
+    given_name    VARCHAR(255),
+    user_name     VARCHAR_IGNORECASE(255)     NOT NULL,
+    version       BIGINT                      NOT NULL,
+    created       TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    last_modified TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    archived      TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (scim_id)
+);
+
+CREATE INDEX ix_users_archive_user_name ON users_archive (user_name);
+CREATE INDEX ix_users_archive_external_id ON users_archive (external_id);
+
+CREATE TABLE group_members_archive (
+    group_id BIGINT NOT NULL,
+    user_id  BIGINT NOT NULL,
+    PRIMARY KEY (user_id, group_id),
+    CONSTRAINT fk_group_members_archive_group FOREIGN KEY (group_id) REFERENCES scim_groups (scim_id)
+        ON DELETE CASCADE,
+    CONSTRAINT fk_group_members_archive_user FOREIGN KEY (user_id) REFERENCES users_archive (scim_id)
+        ON DELETE CASCADE
+);
+
+CREATE INDEX ix_group_members_archive_group_id ON group_members_archive (group_id);
@@ -0,0 +1,12 @@
+-- scim_id moves from AUTO_INCREMENT to Hibernate's pooled users_seq generator, so user
+-- inserts can be JDBC-batched and each allocation hands out 50 IDs
+-- (UserEntity.ID_ALLOCATION_SIZE).
+
+-- MySQL has no sequences; Hibernate emulates users_seq with a one-row table. It starts
+-- one allocation block past the highest ID the auto-increment column handed out.
+CREATE TABLE users_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+INSERT INTO users_seq SELECT COALESCE(MAX(scim_id) + 51, 1) FROM users;
+
+ALTER TABLE users MODIFY scim_id BIGINT NOT NULL;
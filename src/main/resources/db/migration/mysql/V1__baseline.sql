@@ -0,0 +1,23 @@
+-- Baseline: the schema previously generated by spring.jpa.hibernate.ddl-auto=update.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate)
+-- and only run the later migrations. Hibernate named their unique constraints itself
+-- (UK...); no later migration refers to constraints by name.
+
+CREATE TABLE users (
+    scim_id     BIGINT       NOT NULL AUTO_INCREMENT,
+    active      BIT          NOT NULL,
+    email       VARCHAR(255),
+    external_id VARCHAR(255),
+    family_name VARCHAR(255),
+    given_name  VARCHAR(255),
+    user_name   VARCHAR(255) NOT NULL,
+    PRIMARY KEY (scim_id),
+    CONSTRAINT uk_users_external_id UNIQUE (external_id),
+    CONSTRAINT uk_users_user_name UNIQUE (user_name)
+) ENGINE = InnoDB;
+
+CREATE TABLE test_table (
+    id   BIGINT NOT NULL AUTO_INCREMENT,
+    name VARCHAR(255),
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
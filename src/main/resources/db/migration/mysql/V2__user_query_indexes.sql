@@ -0,0 +1,15 @@
+-- Indexes for the queries the SCIM endpoints actually run.
+
+-- SCIM userName is case-insensitive (RFC 7643 section 4.1.1): compare and enforce
+-- uniqueness with a case-insensitive collation, so "userName eq" and the upsert use the
+-- unique index directly instead of LOWER(user_name). The collation is accent-sensitive
+-- (as_ci, not ai_ci), like H2's VARCHAR_IGNORECASE and the Java-side checks: "rene" and
+-- "rené" are different users. Fails if two existing users differ only by case; resolve
+-- those first.
+ALTER TABLE users MODIFY user_name VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_as_ci NOT NULL;
+
+-- List without a filter (and every filter that does not mention active) runs
+--   SELECT COUNT(*) ... WHERE active = 1
+--   SELECT ... WHERE active = 1 AND scim_id > ? ORDER BY scim_id LIMIT ?
+-- which this index answers as a covering range scan in scim_id order, without a sort.
+CREATE INDEX ix_users_active_scim_id ON users (active, scim_id);
@@ -0,0 +1,32 @@
+-- SCIM Groups. "groups" is a reserved word in MySQL 8, hence scim_groups.
+
+CREATE TABLE groups_seq (
+    next_val BIGINT
+) ENGINE = InnoDB;
+INSERT INTO groups_seq VALUES (1);
+
+CREATE TABLE scim_groups (
+    scim_id      BIGINT       NOT NULL,
+    display_name VARCHAR(255) NOT NULL,
+    external_id  VARCHAR(255),
+    version      BIGINT       NOT NULL,
+    PRIMARY KEY (scim_id),
+    CONSTRAINT uk_scim_groups_external_id UNIQUE (external_id)
+) ENGINE = InnoDB;
+
+-- Okta looks groups up with "displayName eq".
+CREATE INDEX ix_scim_groups_display_name ON scim_groups (display_name);
+
+-- Membership is a plain join table rather than a collection on the group, so adding or
+-- removing members touches only those rows. The primary key serves membership checks,
+-- deletes and member listing in user order for one group; ix_group_members_user_id
+-- serves the reverse lookup and the foreign key from users.
+CREATE TABLE group_members (
+    group_id BIGINT NOT NULL,
+    user_id  BIGINT NOT NULL,
+    PRIMARY KEY (group_id, user_id),
+    CONSTRAINT fk_group_members_group FOREIGN KEY (group_id) REFERENCES scim_groups (scim_id) ON DELETE CASCADE,
+    CONSTRAINT fk_group_members_user FOREIGN KEY (user_id) REFERENCES users (scim_id) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+CREATE INDEX ix_group_members_user_id ON group_members (user_id);
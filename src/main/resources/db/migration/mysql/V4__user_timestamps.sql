@@ -0,0 +1,14 @@
+-- meta.created / meta.lastModified for users, so clients can sync deltas with
+--   filter=meta.lastModified gt "..."
+-- Existing rows are stamped with the migration time; the defaults only cover that
+-- backfill, the application always writes both columns itself.
+ALTER TABLE users
+  ADD COLUMN created TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6),
+  ADD COLUMN last_modified TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
+
+-- A change query runs
+--   SELECT COUNT(*) ... WHERE last_modified > ?
+--   SELECT ... WHERE last_modified >= ? AND (last_modified > ? OR scim_id > ?)
+--     ORDER BY last_modified, scim_id LIMIT ?
+-- which this index answers as a range scan in keyset order, without a sort.
+CREATE INDEX ix_users_last_modified_scim_id ON users (last_modified, scim_id);
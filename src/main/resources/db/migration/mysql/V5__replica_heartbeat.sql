@@ -0,0 +1,11 @@
+-- Replica lag probe. While read replicas are configured the application writes the
+-- current time (epoch millis) here on the primary every few seconds and reads it back
+-- from each replica; the difference is that replica's lag, measured the same way on
+-- any replication setup.
+CREATE TABLE scim_heartbeat (
+    id          INT    NOT NULL,
+    beat_millis BIGINT NOT NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+INSERT INTO scim_heartbeat (id, beat_millis) VALUES (1, 0);
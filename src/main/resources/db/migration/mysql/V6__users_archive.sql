@@ -0,0 +1,38 @@
+-- Archive for long-inactive users. The archive job moves deactivated users whose
+-- last_modified is older than scim.archive.inactive-for out of users (and their group
+-- memberships out of group_members), so the hot table and its indexes hold only the
+-- users that can still be listed; creating or reactivating such a user moves it back.
+--
+-- The archive is only ever read by scim_id, user_name or external_id. Its indexes are
+-- not unique: a userName can be archived, re-created and archived again.
+CREATE TABLE users_archive (
+    scim_id       BIGINT       NOT NULL,
+    active        BIT          NOT NULL,
+    email         VARCHAR(255),
+    external_id   VARCHAR(255),
+    family_name   VARCHAR(255),
+    given_name    VARCHAR(255),
+    user_name     VARCHAR(255) CHARACTER SET utf8mb4 COLLATE utf8mb4_0900_as_ci NOT NULL,
+    version       BIGINT       NOT NULL,
+    created       TIMESTAMP(6) NOT NULL,
+    last_modified TIMESTAMP(6) NOT NULL,
+    archived      TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (scim_id)
+) ENGINE = InnoDB;
+
+CREATE INDEX ix_users_archive_user_name ON users_archive (user_name);
+CREATE INDEX ix_users_archive_external_id ON users_archive (external_id);
+
+-- Memberships of archived users, restored with them. Deleting the group, or dropping
+-- the archived user, drops these rows too.
+CREATE TABLE group_members_archive (
+    group_id BIGINT NOT NULL,
+    user_id  BIGINT NOT NULL,
+    PRIMARY KEY (user_id, group_id),
+    CONSTRAINT fk_group_members_archive_group FOREIGN KEY (group_id) REFERENCES scim_groups (scim_id)
+        ON DELETE CASCADE,
+    CONSTRAINT fk_group_members_archive_user FOREIGN KEY (user_id) REFERENCES users_archive (scim_id)
+        ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+CREATE INDEX ix_group_members_archive_group_id ON group_members_archive (group_id);
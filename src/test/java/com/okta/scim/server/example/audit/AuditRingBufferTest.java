@@ -0,0 +1,135 @@
+/**
+ * AuditRingBufferTest.java
+ *
+ * Unit tests for the audit log's MPSC ring buffer.
+ */
+package com.okta.scim.server.example.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuditRingBufferTest {
+
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertThat(new AuditRingBuffer<>(4).capacity()).isEqualTo(4);
+        assertThat(new AuditRingBuffer<>(5).capacity()).isEqualTo(8);
+        assertThat(new AuditRingBuffer<>(1024).capacity()).isEqualTo(1024);
+    }
+
+    @Test
+    void drainsInPublicationOrderUpToMax() {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(8);
+        for (int i = 0; i < 5; i++)
+            assertThat(buffer.offer(i)).isTrue();
+        assertThat(buffer.size()).isEqualTo(5);
+
+        List<Integer> batch = new ArrayList<>();
+        assertThat(buffer.drainTo(batch, 3)).isEqualTo(3);
+        assertThat(buffer.drainTo(batch, 10)).isEqualTo(2);
+        assertThat(buffer.drainTo(batch, 10)).isZero();
+        assertThat(batch).containsExactly(0, 1, 2, 3, 4);
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void rejectsOffersWhenFullUntilDrained() {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(4);
+        for (int i = 0; i < 4; i++)
+            assertThat(buffer.offer(i)).isTrue();
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        List<Integer> batch = new ArrayList<>();
+        assertThat(buffer.drainTo(batch, 1)).isEqualTo(1);
+        assertThat(buffer.offer(5)).isTrue();
+        assertThat(buffer.offer(6)).isFalse();
+
+        batch.clear();
+        buffer.drainTo(batch, 10);
+        assertThat(batch).containsExactly(1, 2, 3, 5);
+    }
+
+    @Test
+    void keepsOrderAcrossManyWraparounds() {
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(4);
+        List<Integer> drained = new ArrayList<>();
+        int next = 0;
+        // Offer 3 and drain 2 per round, so the read and write positions drift across slots.
+        for (int round = 0; round < 1000; round++) {
+            for (int i = 0; i < 3; i++)
+                if (buffer.offer(next))
+                    next++;
+            buffer.drainTo(drained, 2);
+        }
+        buffer.drainTo(drained, Integer.MAX_VALUE);
+        assertThat(next).isGreaterThan(4 * 100);
+        assertThat(drained).containsExactlyElementsOf(IntStream.range(0, next).boxed().toList());
+    }
+
+    @Test
+    void concurrentProducersLoseAndDuplicateNothing() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        AuditRingBuffer<Integer> buffer = new AuditRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int p = 0; p < producers; p++) {
+                int first = p * perProducer;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = first; i < first + perProducer; i++)
+                        while (!buffer.offer(i))
+                            Thread.yield();
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            // Single consumer: this thread. Elements of one producer must stay in order.
+            int[] lastSeen = new int[producers];
+            Arrays.fill(lastSeen, -1);
+            List<Integer> batch = new ArrayList<>();
+            int total = 0;
+            int outOfOrder = 0;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (total < producers * perProducer && System.nanoTime() < deadline) {
+                batch.clear();
+                if (buffer.drainTo(batch, 128) == 0)
+                    Thread.yield();
+                for (int element : batch) {
+                    int producer = element / perProducer;
+                    if (element <= lastSeen[producer])
+                        outOfOrder++;
+                    lastSeen[producer] = element;
+                }
+                total += batch.size();
+            }
+            for (Future<?> future : futures)
+                future.get(10, TimeUnit.SECONDS);
+
+            // In order per producer and ending at each producer's last element means every
+            // element was seen exactly once.
+            assertThat(outOfOrder).isZero();
+            assertThat(total).isEqualTo(producers * perProducer);
+            for (int p = 0; p < producers; p++)
+                assertThat(lastSeen[p]).isEqualTo((p + 1) * perProducer - 1);
+            assertThat(buffer.size()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * JwtTokenVerifierTest.java
+ *
+ * Unit tests for JWT bearer token verification against a JWKS file.
+ */
+package com.okta.scim.server.example.auth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenVerifierTest {
+
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private KeyPair rsa;
+    private KeyPair ec;
+    private JwtTokenVerifier verifier;
+
+    @BeforeEach
+    void setUp(@TempDir Path dir) throws Exception {
+        KeyPairGenerator rsaGenerator = KeyPairGenerator.getInstance("RSA");
+        rsaGenerator.initialize(2048);
+        rsa = rsaGenerator.generateKeyPair();
+        KeyPairGenerator ecGenerator = KeyPairGenerator.getInstance("EC");
+        ecGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        ec = ecGenerator.generateKeyPair();
+
+        RSAPublicKey rsaKey = (RSAPublicKey) rsa.getPublic();
+        ECPublicKey ecKey = (ECPublicKey) ec.getPublic();
+        Path jwks = dir.resolve("jwks.json");
+        objectMapper.writeValue(jwks.toFile(), Map.of("keys", List.of(
+                Map.of("kty", "RSA", "kid", "rsa-1", "use", "sig",
+                        "n", unsigned(rsaKey.getModulus()), "e", unsigned(rsaKey.getPublicExponent())),
+                Map.of("kty", "EC", "kid", "ec-1", "use", "sig", "crv", "P-256",
+                        "x", unsigned(ecKey.getW().getAffineX()), "y", unsigned(ecKey.getW().getAffineY())))));
+
+        verifier = new JwtTokenVerifier(objectMapper, jwks.toString(), "https://issuer.example.com", "scim",
+                Duration.ofSeconds(30), 100, Duration.ofMinutes(5), Duration.ofSeconds(5),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void acceptsRs256() throws Exception {
+        String token = token("RS256", "rsa-1", rsa.getPrivate(), "SHA256withRSA", claims("okta-rs"));
+        assertThat(verifier.verify(token)).isEqualTo(new ScimClient("okta-rs"));
+    }
+
+    @Test
+    void acceptsEs256() throws Exception {
+        String token = token("ES256", "ec-1", ec.getPrivate(), "SHA256withECDSAinP1363Format", claims("okta-es"));
+        assertThat(verifier.verify(token)).isEqualTo(new ScimClient("okta-es"));
+    }
+
+    @Test
+    void rejectsAlgorithmThatDoesNotMatchTheKeyType() throws Exception {
+        assertThat(verifier.verify(token("ES256", "rsa-1", ec.getPrivate(), "SHA256withECDSAinP1363Format",
+                claims("okta")))).isNull();
+        assertThat(verifier.verify(token("RS256", "ec-1", rsa.getPrivate(), "SHA256withRSA", claims("okta"))))
+                .isNull();
+    }
+
+    @Test
+    void rejectsDerEncodedEcdsaSignatures() throws Exception {
+        assertThat(verifier.verify(token("ES256", "ec-1", ec.getPrivate(), "SHA256withECDSA", claims("okta"))))
+                .isNull();
+    }
+
+    @Test
+    void rejectsUnsupportedAlgorithms() throws Exception {
+        assertThat(verifier.verify(token("none", "rsa-1", null, null, claims("okta")))).isNull();
+        assertThat(verifier.verify(token("RS512", "rsa-1", rsa.getPrivate(), "SHA512withRSA", claims("okta"))))
+                .isNull();
+    }
+
+    @Test
+    void rejectsTamperedSignatures() throws Exception {
+        for (String[] alg : new String[][] { { "RS256", "rsa-1", "SHA256withRSA" },
+                { "ES256", "ec-1", "SHA256withECDSAinP1363Format" } }) {
+            PrivateKey key = alg[0].equals("RS256") ? rsa.getPrivate() : ec.getPrivate();
+            String token = token(alg[0], alg[1], key, alg[2], claims("okta"));
+            char last = token.charAt(token.length() - 2);
+            String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A')
+                    + token.charAt(token.length() - 1);
+            assertThat(verifier.verify(tampered)).as(alg[0]).isNull();
+        }
+    }
+
+    @Test
+    void rejectsExpiredTokensAndWrongAudience() throws Exception {
+        long now = System.currentTimeMillis() / 1000;
+        Map<String, Object> expired = Map.of("iss", "https://issuer.example.com", "aud", "scim",
+                "client_id", "okta", "exp", now - 120);
+        Map<String, Object> otherAudience = Map.of("iss", "https://issuer.example.com", "aud", "other",
+                "client_id", "okta", "exp", now + 300);
+        assertThat(verifier.verify(token("ES256", "ec-1", ec.getPrivate(), "SHA256withECDSAinP1363Format",
+                expired))).isNull();
+        assertThat(verifier.verify(token("ES256", "ec-1", ec.getPrivate(), "SHA256withECDSAinP1363Format",
+                otherAudience))).isNull();
+    }
+
+    @Test
+    void rejectsFutureOrMalformedNotBefore() throws Exception {
+        long now = System.currentTimeMillis() / 1000;
+        for (Object nbf : List.of(now + 300, "later", now - 60 + ".5x")) {
+            Map<String, Object> claims = Map.of("iss", "https://issuer.example.com", "aud", "scim",
+                    "client_id", "okta", "exp", now + 300, "nbf", nbf);
+            assertThat(verifier.verify(token("RS256", "rsa-1", rsa.getPrivate(), "SHA256withRSA", claims)))
+                    .as("nbf %s", nbf).isNull();
+        }
+        Map<String, Object> valid = Map.of("iss", "https://issuer.example.com", "aud", "scim",
+                "client_id", "okta", "exp", now + 300, "nbf", now - 60);
+        assertThat(verifier.verify(token("RS256", "rsa-1", rsa.getPrivate(), "SHA256withRSA", valid))).isNotNull();
+    }
+
+    private static Map<String, Object> claims(String clientId) {
+        return Map.of("iss", "https://issuer.example.com", "aud", List.of("scim"), "client_id", clientId,
+                "exp", System.currentTimeMillis() / 1000 + 300);
+    }
+
+    private String token(String alg, String kid, PrivateKey key, String jcaAlgorithm, Map<String, Object> claims)
+            throws Exception {
+        String signingInput = encode(Map.of("alg", alg, "kid", kid, "typ", "JWT")) + "." + encode(claims);
+        if (key == null)
+            return signingInput + ".";
+        Signature signature = Signature.getInstance(jcaAlgorithm);
+        signature.initSign(key);
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + BASE64URL.encodeToString(signature.sign());
+    }
+
+    private String encode(Map<String, Object> json) throws Exception {
+        return BASE64URL.encodeToString(objectMapper.writeValueAsBytes(json));
+    }
+
+    private static String unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0)
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        return BASE64URL.encodeToString(bytes);
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * FilterParserTest.java
+ *
+ * Unit tests for the SCIM filter parser.
+ */
+package com.okta.scim.server.example.filter;
+
+import com.okta.scim.server.example.exception.ScimException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FilterParserTest {
+
+    @Test
+    void parsesComparisonWithLowerCasedAttributeAndOperator() {
+        assertThat(FilterParser.parse("userName EQ \"bjensen\""))
+                .isEqualTo(new Filter.Comparison("username", FilterOperator.EQ, "bjensen"));
+    }
+
+    @Test
+    void parsesLiterals() {
+        assertThat(FilterParser.parse("active eq true"))
+                .isEqualTo(new Filter.Comparison("active", FilterOperator.EQ, Boolean.TRUE));
+        assertThat(FilterParser.parse("externalId eq null"))
+                .isEqualTo(new Filter.Comparison("externalid", FilterOperator.EQ, null));
+        assertThat(FilterParser.parse("id gt 42"))
+                .isEqualTo(new Filter.Comparison("id", FilterOperator.GT, new BigDecimal("42")));
+    }
+
+    @Test
+    void andBindsTighterThanOr() {
+        Filter a = new Filter.Comparison("a", FilterOperator.EQ, "1");
+        Filter b = new Filter.Comparison("b", FilterOperator.EQ, "2");
+        Filter c = new Filter.Comparison("c", FilterOperator.EQ, "3");
+
+        assertThat(FilterParser.parse("a eq \"1\" or b eq \"2\" and c eq \"3\""))
+                .isEqualTo(new Filter.Or(a, new Filter.And(b, c)));
+        assertThat(FilterParser.parse("a eq \"1\" and b eq \"2\" or c eq \"3\""))
+                .isEqualTo(new Filter.Or(new Filter.And(a, b), c));
+    }
+
+    @Test
+    void parenthesesOverridePrecedence() {
+        Filter a = new Filter.Comparison("a", FilterOperator.EQ, "1");
+        Filter b = new Filter.Comparison("b", FilterOperator.EQ, "2");
+        Filter c = new Filter.Comparison("c", FilterOperator.EQ, "3");
+
+        assertThat(FilterParser.parse("(a eq \"1\" or b eq \"2\") and c eq \"3\""))
+                .isEqualTo(new Filter.And(new Filter.Or(a, b), c));
+    }
+
+    @Test
+    void parsesNot() {
+        assertThat(FilterParser.parse("not (active eq false) and userName pr"))
+                .isEqualTo(new Filter.And(
+                        new Filter.Not(new Filter.Comparison("active", FilterOperator.EQ, Boolean.FALSE)),
+                        new Filter.Present("username")));
+    }
+
+    @Test
+    void notRequiresParentheses() {
+        assertInvalid("not active eq false");
+    }
+
+    @Test
+    void parsesPresent() {
+        assertThat(FilterParser.parse("title pr")).isEqualTo(new Filter.Present("title"));
+    }
+
+    @Test
+    void flattensValuePathsAndStripsSchemaPrefix() {
+        assertThat(FilterParser.parse("emails[type eq \"work\" and value co \"@example.com\"]"))
+                .isEqualTo(new Filter.And(
+                        new Filter.Comparison("emails.type", FilterOperator.EQ, "work"),
+                        new Filter.Comparison("emails.value", FilterOperator.CO, "@example.com")));
+        assertThat(FilterParser.parse("urn:ietf:params:scim:schemas:core:2.0:User:userName sw \"j\""))
+                .isEqualTo(new Filter.Comparison("username", FilterOperator.SW, "j"));
+    }
+
+    @Test
+    void resolvesEscapesInStrings() {
+        assertThat(FilterParser.parse("userName eq \"a\\\"b\\\\c\\u00e9\\n\""))
+                .isEqualTo(new Filter.Comparison("username", FilterOperator.EQ, "a\"b\\c\u00e9\n"));
+    }
+
+    @Test
+    void keywordsInsideStringsAreValues() {
+        assertThat(FilterParser.parse("userName eq \"and\""))
+                .isEqualTo(new Filter.Comparison("username", FilterOperator.EQ, "and"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "   ",
+            "userName",
+            "userName eq",
+            "userName xx \"a\"",
+            "userName eq \"unterminated",
+            "userName eq \"bad escape \\",
+            "userName eq \"\\u12\"",
+            "userName eq bareword",
+            "(userName eq \"a\"",
+            "userName eq \"a\")",
+            "userName eq \"a\" and",
+            "emails[type eq \"work\"",
+            "emails[type[value eq \"x\"]]",
+            "\"userName\" eq \"a\""
+    })
+    void rejectsInvalidFilters(String filter) {
+        assertInvalid(filter);
+    }
+
+    @Test
+    void acceptsNestingUpToTheLimit() {
+        String filter = "(".repeat(FilterParser.MAX_DEPTH) + "active eq true" + ")".repeat(FilterParser.MAX_DEPTH);
+        assertThat(FilterParser.parse(filter))
+                .isEqualTo(new Filter.Comparison("active", FilterOperator.EQ, Boolean.TRUE));
+    }
+
+    @Test
+    void rejectsNestingBeyondTheLimit() {
+        int depth = FilterParser.MAX_DEPTH + 1;
+        assertInvalid("(".repeat(depth) + "active eq true" + ")".repeat(depth));
+        assertInvalid("not (".repeat(depth) + "active eq true" + ")".repeat(depth));
+    }
+
+    @Test
+    void rejectsDeepNestingWithoutOverflowingTheStack() {
+        int depth = 100_000;
+        assertInvalid("(".repeat(depth) + "active eq true" + ")".repeat(depth));
+    }
+
+    @Test
+    void acceptsOperatorsUpToTheLimit() {
+        String filter = "active eq true" + " and active eq true".repeat(FilterParser.MAX_OPERATORS / 2)
+                + " or active eq true".repeat(FilterParser.MAX_OPERATORS - FilterParser.MAX_OPERATORS / 2);
+        assertThat(FilterParser.parse(filter)).isInstanceOf(Filter.Or.class);
+    }
+
+    @Test
+    void rejectsLongOperatorChains() {
+        assertInvalid("active eq true" + " and active eq true".repeat(FilterParser.MAX_OPERATORS + 1));
+        assertInvalid("active eq true" + " or active eq true".repeat(100_000));
+        // Operators inside groups and value paths count towards the same limit.
+        String group = "(active eq true" + " or active eq true".repeat(FilterParser.MAX_OPERATORS / 2) + ")";
+        assertInvalid(group + " and " + group);
+        assertInvalid("emails[type eq \"work\"" + " or type eq \"home\"".repeat(FilterParser.MAX_OPERATORS + 1)
+                + "]");
+    }
+
+    private static void assertInvalid(String filter) {
+        assertThatThrownBy(() -> FilterParser.parse(filter))
+                .isInstanceOf(ScimException.class)
+                .satisfies(e -> assertThat(((ScimException) e).getScimType()).isEqualTo("invalidFilter"));
+    }
+}
@@ -0,0 +1,131 @@
+/**
+ * FilterSpecificationBuilderTest.java
+ *
+ * Runs compiled SCIM filters against the embedded database.
+ */
+package com.okta.scim.server.example.filter;
+
+import com.okta.scim.server.example.entity.UserEntity;
+import com.okta.scim.server.example.exception.ScimException;
+import com.okta.scim.server.example.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks what the generated predicates select, including the cases SQL gets subtly wrong:
+ * LIKE wildcards in values, {@code ne} and NULL, {@code pr} and empty strings.
+ */
+@SpringBootTest
+@ActiveProfiles("embedded")
+@Transactional
+class FilterSpecificationBuilderTest {
+
+    private static final FilterSpecificationBuilder<UserEntity> FILTERS = new FilterSpecificationBuilder<>(Map.of(
+            "id", "scimId",
+            "externalid", "externalId",
+            "username", "userName",
+            "name.givenname", "givenName",
+            "active", "active",
+            "meta.lastmodified", "lastModified"));
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        persist("alice@example.com", "ext-1", "Alice", true);
+        persist("bob@example.com", null, "", true);
+        persist("carol_50%@example.com", "ext-3", null, false);
+        entityManager.flush();
+    }
+
+    @Test
+    void comparesUserNameCaseInsensitively() {
+        assertThat(userNames("userName eq \"ALICE@example.com\"")).containsExactly("alice@example.com");
+    }
+
+    @Test
+    void escapesLikeWildcardsInValues() {
+        assertThat(userNames("userName co \"_50%\"")).containsExactly("carol_50%@example.com");
+        assertThat(userNames("userName co \"%\"")).containsExactly("carol_50%@example.com");
+        assertThat(userNames("userName sw \"b\"")).containsExactly("bob@example.com");
+        assertThat(userNames("userName ew \"example.com\"")).hasSize(3);
+    }
+
+    @Test
+    void notEqualIncludesMissingValues() {
+        assertThat(userNames("externalId ne \"ext-1\""))
+                .containsExactlyInAnyOrder("bob@example.com", "carol_50%@example.com");
+    }
+
+    @Test
+    void presentExcludesNullAndEmptyStrings() {
+        assertThat(userNames("name.givenName pr")).containsExactly("alice@example.com");
+    }
+
+    @Test
+    void combinesLogicalOperators() {
+        assertThat(userNames("active eq true and not (externalId pr)")).containsExactly("bob@example.com");
+        assertThat(userNames("externalId eq \"ext-1\" or active eq false"))
+                .containsExactlyInAnyOrder("alice@example.com", "carol_50%@example.com");
+    }
+
+    @Test
+    void comparesNullWithEqAndNe() {
+        assertThat(userNames("externalId eq null")).containsExactly("bob@example.com");
+        assertThat(userNames("externalId ne null")).hasSize(2);
+    }
+
+    @Test
+    void nonNumericIdMatchesNothing() {
+        assertThat(userNames("id eq \"not-a-number\"")).isEmpty();
+    }
+
+    @Test
+    void rejectsUnsupportedAttributesAndOperators() {
+        assertInvalid("title eq \"Boss\"");
+        assertInvalid("active gt true");
+        assertInvalid("active co \"t\"");
+        assertInvalid("externalId gt null");
+        assertInvalid("meta.lastModified gt \"yesterday\"");
+    }
+
+    private List<String> userNames(String filter) {
+        return userRepository.findAll(FILTERS.build(FilterParser.parse(filter))).stream()
+                .map(UserEntity::getUserName)
+                .toList();
+    }
+
+    private void assertInvalid(String filter) {
+        assertThatThrownBy(() -> userNames(filter))
+                .isInstanceOf(ScimException.class)
+                .satisfies(e -> assertThat(((ScimException) e).getScimType()).isEqualTo("invalidFilter"));
+    }
+
+    private void persist(String userName, String externalId, String givenName, boolean active) {
+        UserEntity user = new UserEntity();
+        user.setUserName(userName);
+        user.setExternalId(externalId);
+        user.setGivenName(givenName);
+        user.setActive(active);
+        Instant now = Instant.now();
+        user.setCreated(now);
+        user.setLastModified(now);
+        entityManager.persist(user);
+    }
+}
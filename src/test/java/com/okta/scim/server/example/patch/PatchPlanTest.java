@@ -0,0 +1,185 @@
+/**
+ * PatchPlanTest.java
+ *
+ * Unit tests for compiling and applying SCIM PATCH requests.
+ */
+package com.okta.scim.server.example.patch;
+
+import com.okta.scim.server.example.entity.UserEntity;
+import com.okta.scim.server.example.exception.ScimException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PatchPlanTest {
+
+    private UserEntity user;
+
+    @BeforeEach
+    void setUp() {
+        user = new UserEntity();
+        user.setUserName("bjensen@example.com");
+        user.setExternalId("ext-1");
+        user.setGivenName("Barbara");
+        user.setFamilyName("Jensen");
+        user.setEmail("bjensen@example.com");
+        user.setActive(true);
+    }
+
+    @Test
+    void replacesAttributesByPath() {
+        assertThat(apply(op("replace", "active", false), op("replace", "name.givenName", "Babs"))).isTrue();
+        assertThat(user.getActive()).isFalse();
+        assertThat(user.getGivenName()).isEqualTo("Babs");
+        assertThat(user.getFamilyName()).isEqualTo("Jensen");
+    }
+
+    @Test
+    void acceptsBooleanStrings() {
+        assertThat(apply(op("replace", "active", "False"))).isTrue();
+        assertThat(user.getActive()).isFalse();
+    }
+
+    @Test
+    void replacesWithoutPathFromAnAttributeMap() {
+        Map<String, Object> value = Map.of(
+                "active", false,
+                "name", Map.of("familyName", "Smith"),
+                "urn:ietf:params:scim:schemas:extension:enterprise:2.0:User", Map.of("department", "Sales"),
+                "title", "ignored");
+        assertThat(apply(op("replace", null, value))).isTrue();
+        assertThat(user.getActive()).isFalse();
+        assertThat(user.getFamilyName()).isEqualTo("Smith");
+        assertThat(user.getGivenName()).isEqualTo("Barbara");
+    }
+
+    @Test
+    void addsPrimaryEmailFromAList() {
+        List<Map<String, Object>> emails = List.of(
+                Map.of("value", "home@example.com", "type", "home"),
+                Map.of("value", "work@example.com", "type", "work", "primary", true));
+        assertThat(apply(op("add", "emails", emails))).isTrue();
+        assertThat(user.getEmail()).isEqualTo("work@example.com");
+    }
+
+    @Test
+    void removesOptionalAttributes() {
+        assertThat(apply(op("remove", "externalId", null), op("remove", "name", null))).isTrue();
+        assertThat(user.getExternalId()).isNull();
+        assertThat(user.getGivenName()).isNull();
+        assertThat(user.getFamilyName()).isNull();
+    }
+
+    @Test
+    void rejectsRemovingRequiredAttributes() {
+        assertInvalid("mutability", op("remove", "userName", null));
+        assertInvalid("mutability", op("remove", "active", null));
+        assertInvalid("noTarget", op("remove", null, null));
+    }
+
+    @Test
+    void appliesValueFilterPathsToTheStoredEmail() {
+        assertThat(apply(op("replace", "emails[value eq \"BJENSEN@example.com\"].value", "b@example.com")))
+                .isTrue();
+        assertThat(user.getEmail()).isEqualTo("b@example.com");
+
+        assertThat(apply(op("replace", "emails[type eq \"work\" and primary eq true].value", "c@example.com")))
+                .isTrue();
+        assertThat(user.getEmail()).isEqualTo("c@example.com");
+
+        assertThat(apply(op("remove", "emails[value co \"@example.com\"]", null))).isTrue();
+        assertThat(user.getEmail()).isNull();
+    }
+
+    @Test
+    void addWithUnmatchedValueFilterIsSkipped() {
+        assertThat(apply(op("add", "emails[value eq \"other@example.com\"].value", "x@example.com"))).isFalse();
+        assertThat(user.getEmail()).isEqualTo("bjensen@example.com");
+    }
+
+    @Test
+    void replaceWithUnmatchedValueFilterHasNoTarget() {
+        assertInvalid("noTarget", op("replace", "emails[value eq \"other@example.com\"].value", "x@example.com"));
+    }
+
+    @Test
+    void rejectsValueFiltersOutsideEmails() {
+        assertInvalid("invalidPath", op("replace", "name[givenName eq \"x\"].familyName", "y"));
+        assertInvalid("invalidFilter", op("replace", "emails[locale eq \"en\"].value", "x@example.com"));
+    }
+
+    @Test
+    void detectsNoOps() {
+        assertThat(apply(op("replace", "active", true), op("add", "name.givenName", "Barbara"))).isFalse();
+        assertThat(apply(op("replace", "emails.primary", true))).isFalse();
+    }
+
+    @Test
+    void stepsThatCancelOutAreNoOps() {
+        assertThat(apply(op("replace", "active", false), op("replace", "active", true))).isFalse();
+        assertThat(user.getActive()).isTrue();
+    }
+
+    @Test
+    void restoresTheEntityWhenAnOperationFails() {
+        assertThatThrownBy(() -> apply(
+                op("replace", "name.givenName", "Babs"),
+                op("replace", "active", false),
+                op("replace", "emails[value eq \"other@example.com\"].value", "x@example.com")))
+                .isInstanceOf(ScimException.class);
+        assertThat(user.getGivenName()).isEqualTo("Barbara");
+        assertThat(user.getActive()).isTrue();
+        assertThat(user.getEmail()).isEqualTo("bjensen@example.com");
+    }
+
+    @Test
+    void rejectsInvalidRequests() {
+        assertInvalidRequest("invalidSyntax", Map.of());
+        assertInvalidRequest("invalidSyntax", Map.of("Operations", List.of("replace")));
+        assertInvalid("invalidSyntax", op("move", "active", true));
+        assertInvalid("invalidPath", op("replace", "title", "Boss"));
+        assertInvalid("invalidPath", op("replace", "name..givenName", "x"));
+        assertInvalid("mutability", op("replace", "id", "42"));
+        assertInvalid("invalidValue", op("replace", "active", "yes"));
+        assertInvalid("invalidValue", op("replace", "name", "Barbara"));
+        assertInvalid("invalidValue", Map.<String, Object>of("op", "add", "path", "externalId"));
+    }
+
+    @SafeVarargs
+    private boolean apply(Map<String, Object>... operations) {
+        return PatchPlan.parse(patch(operations)).apply(user);
+    }
+
+    @SafeVarargs
+    private void assertInvalid(String scimType, Map<String, Object>... operations) {
+        assertInvalidRequest(scimType, patch(operations));
+    }
+
+    private void assertInvalidRequest(String scimType, Map<String, Object> request) {
+        assertThatThrownBy(() -> PatchPlan.parse(request).apply(user))
+                .isInstanceOf(ScimException.class)
+                .satisfies(e -> assertThat(((ScimException) e).getScimType()).isEqualTo(scimType));
+    }
+
+    @SafeVarargs
+    private static Map<String, Object> patch(Map<String, Object>... operations) {
+        return Map.of("schemas", List.of(PatchPlan.PATCH_OP_SCHEMA), "Operations", Arrays.asList(operations));
+    }
+
+    private static Map<String, Object> op(String op, String path, Object value) {
+        Map<String, Object> operation = new HashMap<>();
+        operation.put("op", op);
+        if (path != null)
+            operation.put("path", path);
+        if (value != null || !"remove".equals(op))
+            operation.put("value", value);
+        return operation;
+    }
+}
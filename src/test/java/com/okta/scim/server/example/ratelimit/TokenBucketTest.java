@@ -0,0 +1,119 @@
+/**
+ * TokenBucketTest.java
+ *
+ * Unit tests for the lock-free token bucket.
+ */
+package com.okta.scim.server.example.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void rejectsInvalidRateAndBurst() {
+        assertThatThrownBy(() -> new TokenBucket(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(-1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void startsFullAndAllowsABurst() {
+        TokenBucket bucket = new TokenBucket(1, 5);
+        for (int i = 0; i < 5; i++)
+            assertThat(bucket.tryAcquire(1)).as("token %d", i).isZero();
+
+        long wait = bucket.tryAcquire(1);
+        assertThat(wait).isPositive().isLessThanOrEqualTo(SECOND);
+    }
+
+    @Test
+    void multiTokenRequestsCostMore() {
+        TokenBucket bucket = new TokenBucket(1, 5);
+        assertThat(bucket.tryAcquire(3)).isZero();
+        // Two tokens left: a request for three waits about one interval.
+        assertThat(bucket.tryAcquire(3)).isPositive().isLessThanOrEqualTo(SECOND);
+        assertThat(bucket.tryAcquire(2)).isZero();
+    }
+
+    @Test
+    void requestsLargerThanTheBurstNeedAFullBucket() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+        assertThat(bucket.tryAcquire(1)).isZero();
+        // Two tokens left: ten tokens wait until the bucket is full again.
+        assertThat(bucket.tryAcquire(10)).isPositive().isLessThanOrEqualTo(SECOND);
+    }
+
+    @Test
+    void requestsLargerThanTheBurstCarryTheirDebt() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+        assertThat(bucket.tryAcquire(10)).isZero();
+        // Seven tokens are owed on top of the empty bucket: the next one waits about eight intervals.
+        assertThat(bucket.tryAcquire(1)).isGreaterThan(7 * SECOND).isLessThanOrEqualTo(8 * SECOND);
+        assertThat(bucket.tryAcquire(10)).isGreaterThan(9 * SECOND).isLessThanOrEqualTo(10 * SECOND);
+    }
+
+    @Test
+    void refillsAtTheConfiguredRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(5, 2); // one token per 200 ms
+        assertThat(bucket.tryAcquire(2)).isZero();
+        long wait = bucket.tryAcquire(1);
+        assertThat(wait).isPositive().isLessThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(bucket.tryAcquire(1)).isZero();
+        // Only one token was added in that time.
+        assertThat(bucket.tryAcquire(1)).isPositive();
+    }
+
+    @Test
+    void doesNotAccumulateBeyondTheBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(50, 3); // one token per 20 ms
+        TimeUnit.MILLISECONDS.sleep(200); // long enough for ten tokens
+        assertThat(bucket.tryAcquire(3)).isZero();
+        assertThat(bucket.tryAcquire(1)).isPositive();
+    }
+
+    @Test
+    void concurrentAcquiresGrantExactlyTheBurst() throws Exception {
+        int burst = 1000;
+        int threads = 8;
+        int attemptsPerThread = 500;
+        TokenBucket bucket = new TokenBucket(0.001, burst); // no refill during the test
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int granted = 0;
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        if (bucket.tryAcquire(1) == 0)
+                            granted++;
+                    }
+                    return granted;
+                }));
+            }
+            start.countDown();
+            int granted = 0;
+            for (Future<Integer> future : futures)
+                granted += future.get(30, TimeUnit.SECONDS);
+            assertThat(granted).isEqualTo(burst);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * QueryPlanTest.java
+ *
+ * Verifies that the hot SCIM queries are answered from an index.
+ */
+package com.okta.scim.server.example.repository;
+
+import com.okta.scim.server.example.datasource.TenantRegistry;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+
+/**
+ * Runs {@code EXPLAIN} on the freshly migrated embedded databases for the statements
+ * behind the SCIM endpoints (the shapes Hibernate generates for {@code UserRepository},
+ * the list and the common filters), so a migration that misses an index fails the build
+ * instead of scanning a whole table in production. Runs in multi-tenant mode, so every
+ * tenant database is checked, not only the default one.
+ */
+@SpringBootTest
+@ActiveProfiles({ "embedded", "embedded-tenants" })
+class QueryPlanTest {
+
+    /** Hot statements by name, with literals in place of bind parameters. */
+    static final Map<String, String> HOT_QUERIES = new LinkedHashMap<>();
+    static {
+        HOT_QUERIES.put("findByUserName",
+                "SELECT * FROM users WHERE user_name = 'plan-check'");
+        HOT_QUERIES.put("findByExternalId",
+                "SELECT * FROM users WHERE external_id = 'plan-check'");
+        HOT_QUERIES.put("listCount",
+                "SELECT COUNT(scim_id) FROM users WHERE active = TRUE");
+        HOT_QUERIES.put("listPage",
+                "SELECT * FROM users WHERE active = TRUE AND scim_id > 0 ORDER BY scim_id LIMIT 100");
+        HOT_QUERIES.put("filterUserNameEq",
+                "SELECT * FROM users WHERE user_name = 'plan-check' AND active = TRUE AND scim_id > 0"
+                        + " ORDER BY scim_id LIMIT 100");
+        HOT_QUERIES.put("filterUserNameSw",
+                "SELECT * FROM users WHERE user_name LIKE 'plan-check%' AND active = TRUE AND scim_id > 0"
+                        + " ORDER BY scim_id LIMIT 100");
+        HOT_QUERIES.put("filterExternalIdEq",
+                "SELECT * FROM users WHERE external_id = 'plan-check' AND active = TRUE AND scim_id > 0"
+                        + " ORDER BY scim_id LIMIT 100");
+        HOT_QUERIES.put("changedSinceCount",
+                "SELECT COUNT(scim_id) FROM users WHERE last_modified > TIMESTAMP '2000-01-01 00:00:00'");
+        HOT_QUERIES.put("changedSincePage",
+                "SELECT * FROM users WHERE last_modified > TIMESTAMP '2000-01-01 00:00:00'"
+                        + " AND last_modified >= TIMESTAMP '2000-01-01 00:00:00'"
+                        + " AND (last_modified > TIMESTAMP '2000-01-01 00:00:00' OR scim_id > 0)"
+                        + " ORDER BY last_modified, scim_id LIMIT 100");
+        HOT_QUERIES.put("groupFilterDisplayNameEq",
+                "SELECT * FROM scim_groups WHERE display_name = 'plan-check' ORDER BY scim_id LIMIT 100");
+        HOT_QUERIES.put("groupMembers",
+                "SELECT m.user_id, u.user_name FROM group_members m JOIN users u ON u.scim_id = m.user_id"
+                        + " WHERE m.group_id = 1 ORDER BY m.user_id");
+        HOT_QUERIES.put("groupMembersOfUser",
+                "SELECT group_id FROM group_members WHERE user_id = 1");
+        HOT_QUERIES.put("archiveCandidates",
+                "SELECT scim_id, user_name FROM users WHERE active = FALSE"
+                        + " AND last_modified < TIMESTAMP '2000-01-01 00:00:00' ORDER BY scim_id LIMIT 500");
+        HOT_QUERIES.put("archivedByUserName",
+                "SELECT scim_id FROM users_archive WHERE user_name = 'plan-check' ORDER BY archived DESC LIMIT 1");
+        HOT_QUERIES.put("archivedByExternalId",
+                "SELECT scim_id FROM users_archive WHERE external_id = 'plan-check' ORDER BY archived DESC LIMIT 1");
+        HOT_QUERIES.put("archivedMembersOfUser",
+                "SELECT group_id FROM group_members_archive WHERE user_id = 1");
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TenantRegistry tenantRegistry;
+
+    @TestFactory
+    Stream<DynamicTest> hotQueriesUseAnIndex() {
+        return tenantRegistry.tenants().stream().flatMap(tenant -> {
+            JdbcTemplate tenantJdbc = tenantRegistry.dataSource(tenant) != null
+                    ? new JdbcTemplate(tenantRegistry.dataSource(tenant))
+                    : jdbcTemplate;
+            return HOT_QUERIES.entrySet().stream().map(query -> dynamicTest(tenant + ": " + query.getKey(),
+                    () -> assertThat(plan(tenantJdbc, query.getValue())).doesNotContain(".tablescan")));
+        });
+    }
+
+    /**
+     * H2 prints the chosen access path as a comment, e.g. {@code /* public.users.tableScan *}{@code /}.
+     */
+    static String plan(JdbcTemplate jdbcTemplate, String sql) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+        return plan != null ? plan.toLowerCase(Locale.ROOT) : "";
+    }
+}
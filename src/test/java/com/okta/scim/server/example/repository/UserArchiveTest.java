@@ -0,0 +1,204 @@
+/**
+ * UserArchiveTest.java
+ *
+ * Archiving inactive users and restoring them on create, against the embedded database.
+ */
+package com.okta.scim.server.example.repository;
+
+import com.okta.scim.server.example.dto.BulkOperationDTO;
+import com.okta.scim.server.example.dto.BulkRequestDTO;
+import com.okta.scim.server.example.entity.UserEntity;
+import com.okta.scim.server.example.service.BulkService;
+import com.okta.scim.server.example.service.UserTransferService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that an archived user is restored with its identity by every write path that
+ * can reach it, including one that races the archive job, instead of being re-created
+ * with a new ID.
+ */
+@SpringBootTest
+@ActiveProfiles("embedded")
+class UserArchiveTest {
+
+    private static final String USER_NAME = "archive-test@example.com";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BulkService bulkService;
+
+    @Autowired
+    private UserTransferService userTransferService;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM users WHERE user_name = ?", USER_NAME);
+        jdbcTemplate.update("DELETE FROM users_archive WHERE user_name = ?", USER_NAME);
+    }
+
+    @Test
+    void upsertRestoresArchivedUser() {
+        long scimId = createInactiveUser();
+        assertThat(archive()).contains(scimId);
+        assertThat(userRepository.findById(scimId)).isEmpty();
+
+        UserUpsertResult result = upsert();
+
+        assertThat(result.created()).isFalse();
+        assertThat(result.user().getScimId()).isEqualTo(scimId);
+        assertThat(result.user().getActive()).isTrue();
+        assertThat(archivedCount()).isZero();
+    }
+
+    @Test
+    void upsertWaitsForAConcurrentArchiveAndRestoresTheUser() throws Exception {
+        long scimId = createInactiveUser();
+        CountDownLatch archived = new CountDownLatch(1);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        // The archive job moves the user out and holds its transaction open while the
+        // upsert starts.
+        CompletableFuture<List<Long>> archiveJob = CompletableFuture.supplyAsync(() ->
+                transaction.execute(status -> {
+                    List<Long> ids = userRepository.archiveInactive(Instant.now().plusSeconds(60), 100);
+                    archived.countDown();
+                    sleep(Duration.ofMillis(500));
+                    return ids;
+                }));
+        assertThat(archived.await(30, TimeUnit.SECONDS)).isTrue();
+
+        UserUpsertResult result = upsert();
+
+        assertThat(archiveJob.get(30, TimeUnit.SECONDS)).contains(scimId);
+        assertThat(result.created()).isFalse();
+        assertThat(result.user().getScimId()).isEqualTo(scimId);
+        assertThat(archivedCount()).isZero();
+    }
+
+    @Test
+    void bulkPostRestoresArchivedUser() {
+        long scimId = createInactiveUser();
+        assertThat(archive()).contains(scimId);
+
+        Map<String, Object> result = bulk("POST", "/Users",
+                Map.of("userName", USER_NAME, "externalId", "archive-test", "active", true));
+
+        assertThat(result).containsEntry("status", "200").containsEntry("location", "/scim/v2/Users/" + scimId);
+        assertThat(archivedCount()).isZero();
+    }
+
+    @Test
+    void bulkPutAndPatchRestoreArchivedUser() {
+        long scimId = createInactiveUser();
+        assertThat(archive()).contains(scimId);
+
+        Map<String, Object> patched = bulk("PATCH", "/Users/" + scimId, Map.of("Operations",
+                List.of(Map.of("op", "replace", "value", Map.of("active", true)))));
+        assertThat(patched).containsEntry("status", "200").containsEntry("location", "/scim/v2/Users/" + scimId);
+        assertThat(archivedCount()).isZero();
+        assertThat(userRepository.findById(scimId)).get().extracting(UserEntity::getActive).isEqualTo(true);
+
+        jdbcTemplate.update("UPDATE users SET active = FALSE WHERE scim_id = ?", scimId);
+        assertThat(archive()).contains(scimId);
+
+        Map<String, Object> put = bulk("PUT", "/Users/" + scimId,
+                Map.of("userName", USER_NAME, "externalId", "archive-test", "active", true));
+        assertThat(put).containsEntry("status", "200").containsEntry("location", "/scim/v2/Users/" + scimId);
+        assertThat(archivedCount()).isZero();
+    }
+
+    @Test
+    void importSkipsArchivedUsers() throws Exception {
+        long scimId = createInactiveUser();
+        assertThat(archive()).contains(scimId);
+
+        String ndjson = "{\"userName\":\"" + USER_NAME + "\",\"active\":true}\n"
+                + "{\"userName\":\"other-" + USER_NAME + "\",\"externalId\":\"archive-test\",\"active\":true}\n";
+        Map<String, Object> summary = userTransferService.importUsers(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(summary).containsEntry("imported", 0L).containsEntry("skipped", 2L);
+        assertThat(archivedCount()).isEqualTo(1);
+        assertThat(userRepository.restoreArchived(scimId)).isTrue();
+    }
+
+    private long createInactiveUser() {
+        UserEntity user = new UserEntity();
+        user.setUserName(USER_NAME);
+        user.setExternalId("archive-test");
+        user.setActive(false);
+        Instant now = Instant.now();
+        user.setCreated(now);
+        user.setLastModified(now);
+        return userRepository.save(user).getScimId();
+    }
+
+    private List<Long> archive() {
+        return new TransactionTemplate(transactionManager)
+                .execute(status -> userRepository.archiveInactive(Instant.now().plusSeconds(60), 100));
+    }
+
+    private UserUpsertResult upsert() {
+        UserEntity candidate = new UserEntity();
+        candidate.setUserName(USER_NAME);
+        candidate.setExternalId("archive-test");
+        candidate.setActive(true);
+        return userRepository.upsertByUserName(candidate, false, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> bulk(String method, String path, Map<String, Object> data) {
+        BulkOperationDTO op = new BulkOperationDTO();
+        op.setMethod(method);
+        op.setPath(path);
+        op.setBulkId("archive-test");
+        op.setData(data);
+        BulkRequestDTO request = new BulkRequestDTO();
+        request.setOperations(List.of(op));
+        List<Map<String, Object>> results = (List<Map<String, Object>>) bulkService.processBulk(request)
+                .get("Operations");
+        assertThat(results).hasSize(1);
+        return results.get(0);
+    }
+
+    private int archivedCount() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users_archive WHERE user_name = ?",
+                Integer.class, USER_NAME);
+        return count != null ? count : 0;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * BulkServiceTest.java
+ *
+ * Bulk POST against the embedded database.
+ */
+package com.okta.scim.server.example.service;
+
+import com.okta.scim.server.example.dto.BulkOperationDTO;
+import com.okta.scim.server.example.dto.BulkRequestDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that a bulk POST creates or reactivates a user like a single POST does.
+ */
+@SpringBootTest
+@ActiveProfiles("embedded")
+class BulkServiceTest {
+
+    private static final String USER_NAME = "bulk-test@example.com";
+
+    @Autowired
+    private BulkService bulkService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM users WHERE user_name = ?", USER_NAME);
+    }
+
+    @Test
+    void postOfAnExistingUserNameReactivatesTheUser() {
+        Map<String, Object> created = onlyResult(bulkService.processBulk(request(post("a", USER_NAME, false))));
+        Map<String, Object> reactivated = onlyResult(bulkService.processBulk(request(post("b", USER_NAME.toUpperCase(), true))));
+
+        assertThat(created).containsEntry("status", "201");
+        assertThat(reactivated).containsEntry("status", "200")
+                .containsEntry("location", created.get("location"));
+        assertThat(jdbcTemplate.queryForObject("SELECT active FROM users WHERE user_name = ?", Boolean.class, USER_NAME))
+                .isTrue();
+    }
+
+    @Test
+    void concurrentPostsOfOneUserNameCreateItOnce() throws Exception {
+        int requests = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            String bulkId = "c" + i;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                await(start);
+                return onlyResult(bulkService.processBulk(request(post(bulkId, USER_NAME, true))));
+            }));
+        }
+        start.countDown();
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (CompletableFuture<Map<String, Object>> future : futures)
+            results.add(future.get(30, TimeUnit.SECONDS));
+        assertThat(results).extracting(r -> r.get("status")).containsOnly("201", "200");
+        assertThat(results).filteredOn(r -> "201".equals(r.get("status"))).hasSize(1);
+        assertThat(results).extracting(r -> r.get("location")).containsOnly(results.get(0).get("location"));
+    }
+
+    private static BulkOperationDTO post(String bulkId, String userName, boolean active) {
+        BulkOperationDTO op = new BulkOperationDTO();
+        op.setMethod("POST");
+        op.setPath("/Users");
+        op.setBulkId(bulkId);
+        op.setData(Map.of("userName", userName, "active", active));
+        return op;
+    }
+
+    private static BulkRequestDTO request(BulkOperationDTO... operations) {
+        BulkRequestDTO request = new BulkRequestDTO();
+        request.setOperations(List.of(operations));
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> onlyResult(Map<String, Object> response) {
+        List<Map<String, Object>> results = (List<Map<String, Object>>) response.get("Operations");
+        assertThat(results).hasSize(1);
+        return results.get(0);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}